@@ -27,6 +27,20 @@ public interface CommitRepository extends MongoRepository<CommitModel, String> {
     @Cacheable("authorCommits")
     List<CommitModel> findCommitModelsByRepositoryIdAndAuthor(String id, String author, Sort sort);
 
+    /**
+     * Returns the commits of a repository with only their SHA and build
+     * status loaded.
+     */
+    @Query(value = "{'repositoryId': ?0}", fields = "{'_id': 1, 'buildStatus': 1}")
+    List<CommitModel> findShasByRepositoryId(String repositoryId);
+
+    /**
+     * Returns a commit of the repository that has the given source tree and
+     * build status, if any.
+     */
+    CommitModel findFirstByRepositoryIdAndTreeIdAndBuildStatus(String repositoryId, String treeId,
+            BuildStatus buildStatus);
+
     @Cacheable("timeline")
     List<CommitModel> findByRepositoryIdAndBuildStatusOrderByTimestampAsc(String id, BuildStatus buildStatus);
 }
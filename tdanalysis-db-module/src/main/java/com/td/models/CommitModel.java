@@ -21,6 +21,15 @@ public class CommitModel implements Comparable<CommitModel> {
 
     private List<String> issueIds;
 
+    /**
+     * SHA of the source tree of the commit. Commits with the same tree have
+     * identical contents and therefore the same build and analysis results.
+     */
+    @Indexed
+    private String treeId;
+
+    private List<String> parents;
+
     @Indexed
     private LocalDateTime timestamp;
 
@@ -91,6 +100,34 @@ public class CommitModel implements Comparable<CommitModel> {
         this.timestamp = timestamp;
     }
 
+    /**
+     * @return the treeId
+     */
+    public String getTreeId() {
+        return treeId;
+    }
+
+    /**
+     * @param treeId the treeId to set
+     */
+    public void setTreeId(String treeId) {
+        this.treeId = treeId;
+    }
+
+    /**
+     * @return the SHAs of the parent commits, first parent first
+     */
+    public List<String> getParents() {
+        return parents;
+    }
+
+    /**
+     * @param parents the parents to set
+     */
+    public void setParents(List<String> parents) {
+        this.parents = parents;
+    }
+
     public CommitDiff getDiff() {
         return diff;
     }
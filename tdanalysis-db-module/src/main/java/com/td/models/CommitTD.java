@@ -1,5 +1,7 @@
 package com.td.models;
 
+import java.util.Objects;
+
 import com.td.models.TechnicalDebtItem.CompositeKey;
 
 public class CommitTD implements Comparable<CommitTD> {
@@ -7,6 +9,9 @@ public class CommitTD implements Comparable<CommitTD> {
     private CompositeKey id;
     private TechnicalDebtPriority priority;
     private CodeLocation location;
+    private String module;
+    private Integer rank;
+    private String method;
 
     /**
      * @return the id
@@ -50,6 +55,50 @@ public class CommitTD implements Comparable<CommitTD> {
         this.location = location;
     }
 
+    /**
+     * @return the folder of the module the item was found in
+     */
+    public String getModule() {
+        return module;
+    }
+
+    /**
+     * @param module the module to set
+     */
+    public void setModule(String module) {
+        this.module = module;
+    }
+
+    /**
+     * @return the bug rank reported by the analysis, from 1 (scariest) to 20,
+     *         or null if unknown
+     */
+    public Integer getRank() {
+        return rank;
+    }
+
+    /**
+     * @param rank the rank to set
+     */
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+
+    /**
+     * @return the fully qualified name of the method the item was found in, or
+     *         null if the item is not reported against a method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @param method the method to set
+     */
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
     @Override
     public int compareTo(CommitTD o) {
         int r1 = this.id.compareTo(o.getId());
@@ -127,6 +176,11 @@ public class CommitTD implements Comparable<CommitTD> {
             }
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileName, lineNumber);
+        }
+
         @Override
         public int compareTo(CodeLocation o) {
             int res = this.fileName.compareTo(o.getFileName());
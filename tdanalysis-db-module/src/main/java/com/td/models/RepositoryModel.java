@@ -5,6 +5,7 @@ import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.io.File;
+import java.util.List;
 
 @Document(collection = "repos")
 public class RepositoryModel {
@@ -19,6 +20,19 @@ public class RepositoryModel {
 
     private String buildCommand;
 
+    /**
+     * SHAs of the branch and tag tips at the end of the last completed run of
+     * the loader. Used to process only commits added since then.
+     */
+    private List<String> processedTips;
+
+    /**
+     * Selection of the history the processed tips were taken from, as they
+     * only stand for the commits of that selection. Null for runs that
+     * predate it, which processed the whole history.
+     */
+    private String processedSelection;
+
     @Transient
     private File projectFolder;
 
@@ -107,4 +121,32 @@ public class RepositoryModel {
     public void setIssueTrackerURI(String issueTrackerURI) {
         this.issueTrackerURI = issueTrackerURI;
     }
+
+    /**
+     * @return the processedTips
+     */
+    public List<String> getProcessedTips() {
+        return processedTips;
+    }
+
+    /**
+     * @param processedTips the processedTips to set
+     */
+    public void setProcessedTips(List<String> processedTips) {
+        this.processedTips = processedTips;
+    }
+
+    /**
+     * @return the processedSelection
+     */
+    public String getProcessedSelection() {
+        return processedSelection;
+    }
+
+    /**
+     * @param processedSelection the processedSelection to set
+     */
+    public void setProcessedSelection(String processedSelection) {
+        this.processedSelection = processedSelection;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.td.models;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.td.models.CommitTD.CodeLocation;
+import com.td.models.TechnicalDebtItem.CompositeKey;
+
+/**
+ * Canonicalises the values technical debt items repeat from one commit to the
+ * next: issue keys, code locations and the strings in them. Every commit of a
+ * repository reports mostly the same items, so sharing one instance of each
+ * keeps a repository's history from holding the same objects millions of
+ * times.
+ *
+ * Interned keys and locations are shared between items and must not be
+ * modified. The pools only hold them weakly, so that values no longer
+ * referenced by any item are collected, and are used by the loader's
+ * analysis threads without locking.
+ */
+public final class TechnicalDebtInterner {
+
+    private static final WeakPool<String> STRINGS = new WeakPool<>();
+    private static final WeakPool<CompositeKey> KEYS = new WeakPool<>();
+    private static final WeakPool<CodeLocation> LOCATIONS = new WeakPool<>();
+
+    /**
+     * Canonical instances, held weakly. Entries of collected values are
+     * removed on the next access.
+     */
+    private static final class WeakPool<T> {
+
+        private final ConcurrentMap<Entry<T>, Entry<T>> pool = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+
+        T get(T value) {
+            expunge();
+            Entry<T> existing = pool.get(new Entry<>(value, null));
+            return existing != null ? existing.get() : null;
+        }
+
+        T putIfAbsent(T value) {
+            Entry<T> entry = new Entry<>(value, collected);
+            while (true) {
+                Entry<T> existing = pool.putIfAbsent(entry, entry);
+                if (existing == null) {
+                    return value;
+                }
+
+                T canonical = existing.get();
+                if (canonical != null) {
+                    return canonical;
+                }
+                // collected, but not expunged yet
+                pool.remove(existing, existing);
+            }
+        }
+
+        private void expunge() {
+            Reference<? extends T> reference;
+            while ((reference = collected.poll()) != null) {
+                pool.remove(reference, reference);
+            }
+        }
+    }
+
+    /**
+     * Weak reference equal to the references of equal values. A collected
+     * value is only equal to its own reference, so that it can be removed.
+     */
+    private static final class Entry<T> extends WeakReference<T> {
+
+        private final int hash;
+
+        Entry(T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Entry)) {
+                return false;
+            }
+
+            T value = get();
+            return value != null && value.equals(((Entry<?>) other).get());
+        }
+    }
+
+    private TechnicalDebtInterner() {
+    }
+
+    /**
+     * Replaces the key, location and strings of the item by their canonical
+     * instances.
+     * @return the item
+     */
+    public static CommitTD intern(CommitTD item) {
+        item.setId(intern(item.getId()));
+        item.setLocation(intern(item.getLocation()));
+        item.setModule(intern(item.getModule()));
+        item.setMethod(intern(item.getMethod()));
+        return item;
+    }
+
+    /**
+     * Interns all technical debt items of the commit.
+     * @return the commit
+     */
+    public static CommitModel intern(CommitModel commit) {
+        TechnicalDebt technicalDebt = commit.getTechnicalDebt();
+        if (technicalDebt != null && technicalDebt.getTdItems() != null) {
+            technicalDebt.getTdItems().forEach(TechnicalDebtInterner::intern);
+        }
+        return commit;
+    }
+
+    public static CompositeKey key(String categoryInitial, String issueCode) {
+        return intern(new CompositeKey(categoryInitial, issueCode));
+    }
+
+    public static CompositeKey intern(CompositeKey key) {
+        if (key == null || key.getCategoryInitial() == null || key.getIssueCode() == null) {
+            return key;
+        }
+
+        CompositeKey existing = KEYS.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        key.setCategoryInitial(intern(key.getCategoryInitial()));
+        key.setIssueCode(intern(key.getIssueCode()));
+        return KEYS.putIfAbsent(key);
+    }
+
+    public static CodeLocation intern(CodeLocation location) {
+        if (location == null || location.getFileName() == null) {
+            return location;
+        }
+
+        CodeLocation existing = LOCATIONS.get(location);
+        if (existing != null) {
+            return existing;
+        }
+
+        location.setFileName(intern(location.getFileName()));
+        location.setLine(intern(location.getLine()));
+        return LOCATIONS.putIfAbsent(location);
+    }
+
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        String existing = STRINGS.get(value);
+        return existing != null ? existing : STRINGS.putIfAbsent(value);
+    }
+}
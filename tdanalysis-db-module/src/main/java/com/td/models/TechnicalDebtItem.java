@@ -1,6 +1,7 @@
 package com.td.models;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
@@ -116,6 +117,11 @@ public class TechnicalDebtItem {
                     && this.getIssueCode().equals(key.getIssueCode());
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoryInitial, issueCode);
+        }
+
         @Override
         public int compareTo(CompositeKey o) {
             int res = this.categoryInitial.compareTo(o.getCategoryInitial());
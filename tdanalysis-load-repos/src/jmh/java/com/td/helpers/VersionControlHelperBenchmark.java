@@ -0,0 +1,164 @@
+package com.td.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.td.models.CommitModel;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares how long {@link VersionControlHelper} takes to extract the
+ * commits of a generated repository with their diffs, with one and with
+ * several diff threads, against diffing every commit through the porcelain
+ * diff command with a new walk and reader per tree, as it was done before.
+ * Run with gradle jmh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VersionControlHelperBenchmark {
+
+    @Param("1000")
+    private int commits;
+
+    @Param("2000")
+    private int files;
+
+    @Param("4")
+    private int threads;
+
+    private File root;
+    private VersionControlHelper vch;
+
+    @Setup
+    public void setUp() throws IOException, GitAPIException {
+        root = Files.createTempDirectory("vch-benchmark").toFile();
+        generate(root, commits, files);
+        vch = new VersionControlHelper(root);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        vch.close();
+        try (Stream<Path> paths = Files.walk(root.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public long porcelainDiff() throws IOException, GitAPIException {
+        long changes = 0;
+        try (Git git = Git.open(root)) {
+            Repository repository = git.getRepository();
+            for (RevCommit commit : git.log().all().call()) {
+                changes += git.diff().setOldTree(prepareTreeParser(repository, commit.getName() + "^"))
+                        .setNewTree(prepareTreeParser(repository, commit.getName())).call().size();
+            }
+        }
+        return changes;
+    }
+
+    @Benchmark
+    public long treeWalk() {
+        return countChanges(1);
+    }
+
+    @Benchmark
+    public long treeWalkParallel() {
+        return countChanges(threads);
+    }
+
+    private long countChanges(int diffThreads) {
+        try (Stream<CommitModel> stream = vch.getCommitStream(sha -> true, Collections.emptyList(), diffThreads)) {
+            return stream.mapToLong(commit -> commit.getDiff().getTotalChanges()).sum();
+        }
+    }
+
+    /**
+     * The previous extraction: each side of the porcelain diff resolved with
+     * its own walk and reader.
+     */
+    private static AbstractTreeIterator prepareTreeParser(Repository repository, String objectId)
+            throws IOException {
+        ObjectId id = repository.resolve(objectId);
+        if (id == null) {
+            return new EmptyTreeIterator();
+        }
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit commit = walk.parseCommit(id);
+            CanonicalTreeParser treeParser = new CanonicalTreeParser();
+            try (ObjectReader reader = repository.newObjectReader()) {
+                treeParser.reset(reader, walk.parseTree(commit.getTree().getId()).getId());
+            }
+            return treeParser;
+        }
+    }
+
+    /**
+     * Creates a repository whose commits each change a few files spread over
+     * a tree of nested folders.
+     */
+    private static void generate(File root, int commits, int files) throws IOException, GitAPIException {
+        Random random = new Random(42);
+        try (Git git = Git.init().setDirectory(root).call()) {
+            for (int i = 0; i < files; i++) {
+                write(root, path(i), "class F" + i + " {}");
+            }
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setAuthor("dev", "dev@example.com").call();
+
+            for (int c = 1; c < commits; c++) {
+                for (int change = 0; change < 3; change++) {
+                    int i = random.nextInt(files);
+                    write(root, path(i), "class F" + i + " { int v" + c + "; }");
+                }
+                git.add().addFilepattern(".").call();
+                git.commit().setMessage("TD-" + c).setAuthor("dev", "dev@example.com").call();
+            }
+        }
+    }
+
+    private static String path(int i) {
+        return String.format("module%d/src/main/java/p%d/F%d.java", i % 10, (i / 10) % 20, i);
+    }
+
+    private static void write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
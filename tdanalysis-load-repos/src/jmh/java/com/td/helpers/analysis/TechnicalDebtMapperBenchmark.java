@@ -0,0 +1,61 @@
+package com.td.helpers.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the findbugs output parsers on recorded findbugs -textui output of
+ * commons-lang3 and jgit. Run with gradle jmh, adding -prof gc to the JMH
+ * arguments to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TechnicalDebtMapperBenchmark {
+
+    static final String OUTPUT = "/findbugs-output.txt";
+
+    private List<String> lines;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                TechnicalDebtMapperBenchmark.class.getResourceAsStream(OUTPUT), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public void parseIndexed(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(TechnicalDebtMapper.parseFindBugsOutput(line));
+        }
+    }
+
+    @Benchmark
+    public void parseLegacy(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(LegacyTechnicalDebtMapper.parseFindBugsOutput(line));
+        }
+    }
+}
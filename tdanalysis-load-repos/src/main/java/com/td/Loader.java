@@ -4,22 +4,39 @@ import java.util.List;
 
 import com.td.models.RepositoryModel;
 import com.td.processor.RepositoryProcessor;
+import com.td.scheduler.RepositoryScheduler;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 @SpringBootApplication(exclude = DataSourceAutoConfiguration.class)
 public class Loader {
 
+    private static final Logger logger = LoggerFactory.getLogger(Loader.class);
+
     public static void main(String[] args) {
-        ApplicationContext context = new AnnotationConfigApplicationContext(Loader.class);
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Loader.class);
 
         RepositoryReader reader = context.getBean(RepositoryReader.class);
         List<RepositoryModel> repos = reader.readRepositories();
 
         RepositoryProcessor processor = context.getBean(RepositoryProcessor.class);
         processor.processRepositories(repos);
+
+        // wait for all repositories to be processed before exiting
+        boolean successful = false;
+        try {
+            successful = context.getBean(RepositoryScheduler.class).awaitCompletion();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while waiting for repositories to be processed", e);
+            Thread.currentThread().interrupt();
+        } finally {
+            context.close();
+        }
+
+        System.exit(successful ? 0 : 1);
     }
 }
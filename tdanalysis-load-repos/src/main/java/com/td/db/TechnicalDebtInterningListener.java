@@ -0,0 +1,23 @@
+package com.td.db;
+
+import com.td.models.CommitModel;
+import com.td.models.TechnicalDebtInterner;
+
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Interns the technical debt items of every commit the loader reads from the
+ * database, e.g. to reuse their results, so that they share their keys and
+ * locations with the items of the commits being analysed. The web app reads
+ * commits without interning them.
+ */
+@Component
+public class TechnicalDebtInterningListener extends AbstractMongoEventListener<CommitModel> {
+
+    @Override
+    public void onAfterConvert(AfterConvertEvent<CommitModel> event) {
+        TechnicalDebtInterner.intern(event.getSource());
+    }
+}
@@ -0,0 +1,95 @@
+package com.td.helpers;
+
+import java.time.Instant;
+
+/**
+ * Selects the part of the history of a repository that is processed, see
+ * {@link VersionControlHelper#setHistorySelection(HistorySelection)}.
+ */
+public class HistorySelection {
+
+    private static final HistorySelection ALL = new HistorySelection(null, false, false, null, null);
+
+    private final String branch;
+    private final boolean firstParent;
+    private final boolean noMerges;
+    private final Instant since;
+    private final Instant until;
+
+    /**
+     * @param branch name of the branch whose history is selected, e.g. master
+     *            or origin/master, or null for all branches and tags
+     * @param firstParent if true, only the commits reached by following the
+     *            first parent of each commit from the tips are selected
+     * @param noMerges if true, merge commits are left out
+     * @param since commits committed before are left out, null if unbounded
+     * @param until commits committed after are left out, null if unbounded
+     */
+    public HistorySelection(String branch, boolean firstParent, boolean noMerges, Instant since, Instant until) {
+        this.branch = branch == null || branch.trim().isEmpty() ? null : branch.trim();
+        this.firstParent = firstParent;
+        this.noMerges = noMerges;
+        this.since = since;
+        this.until = until;
+    }
+
+    /**
+     * Selects the history of all branches and tags.
+     */
+    public static HistorySelection all() {
+        return ALL;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public boolean isFirstParent() {
+        return firstParent;
+    }
+
+    public boolean isNoMerges() {
+        return noMerges;
+    }
+
+    public Instant getSince() {
+        return since;
+    }
+
+    public Instant getUntil() {
+        return until;
+    }
+
+    /**
+     * @return true if commits are left out by date. Commits behind the tips
+     *         are then not all processed, so the tips must not be used to
+     *         skip them in later runs.
+     */
+    public boolean isDateBounded() {
+        return since != null || until != null;
+    }
+
+    /**
+     * @return true if the commit time, in seconds since the epoch, is within
+     *         the selected range
+     */
+    public boolean isInRange(long commitTime) {
+        return (since == null || commitTime >= since.getEpochSecond())
+                && (until == null || commitTime <= until.getEpochSecond());
+    }
+
+    /**
+     * Describes the selection apart from the dates, in the form stored with
+     * the processed tips of a repository.
+     */
+    public String getHistoryKey() {
+        return String.format("branch=%s;firstParent=%s;noMerges=%s", branch != null ? branch : "",
+                firstParent, noMerges);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("branch %s, first parent %s, no merges %s, since %s, until %s",
+                branch != null ? branch : "all", firstParent, noMerges, since, until);
+    }
+}
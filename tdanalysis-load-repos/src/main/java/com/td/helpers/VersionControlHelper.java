@@ -5,26 +5,58 @@ import com.td.models.CommitDiff;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.AndRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
-import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -32,8 +64,14 @@ public class VersionControlHelper implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(VersionControlHelper.class);
     private static final String GIT_FOLDER = ".git";
+    private static final String OBJECTS_FOLDER = "objects";
+    private static final String ALTERNATES_FILE = "info/alternates";
+
+    // commits whose diffs are computed ahead of the consumer, per diff thread
+    private static final int DIFFS_AHEAD_PER_THREAD = 8;
 
     private Git gitProject;
+    private HistorySelection historySelection = HistorySelection.all();
 
     /***
      * Instantiate a new VersionControlHelper by using an existing repository.
@@ -49,31 +87,181 @@ public class VersionControlHelper implements AutoCloseable {
         this.gitProject = cloneProject(uri, path);
     }
 
+    /***
+     * Restricts the history returned by {@link #getCommitStream},
+     * {@link #getCommitMessages} and {@link #getTips} to a part of it, e.g.
+     * the first parent history of one branch.
+     */
+    public void setHistorySelection(HistorySelection historySelection) {
+        this.historySelection = historySelection;
+        logger.info(String.format("Selecting history of %s: %s",
+                gitProject.getRepository().getDirectory().getAbsolutePath(), historySelection));
+    }
+
     public Stream<CommitModel> getCommitStream() {
+        return getCommitStream(sha -> true);
+    }
+
+    /***
+     * Returns a stream of all commits whose SHA is accepted by the filter.
+     * Commits that are filtered out are skipped before their diff is computed.
+     */
+    public Stream<CommitModel> getCommitStream(Predicate<String> filter) {
+        return getCommitStream(filter, new ArrayList<>());
+    }
+
+    /***
+     * Returns a stream of the commits that are reachable from the current
+     * branches and tags but not from any of the excluded tips, and whose SHA
+     * is accepted by the filter. Commits are returned oldest first, and
+     * parents always come before their children. Only the commits of the
+     * {@link HistorySelection} are returned.
+     * @param filter filter on commit SHAs
+     * @param excludedTips SHAs of commits whose history should not be returned
+     */
+    public Stream<CommitModel> getCommitStream(Predicate<String> filter, Collection<String> excludedTips) {
+        return getCommitStream(filter, excludedTips, 1);
+    }
+
+    /***
+     * Same as {@link #getCommitStream(Predicate, Collection)}, but the diffs
+     * are computed by worker threads, a number of commits ahead of the
+     * consumer. The stream should be closed if it is not consumed to the end.
+     * @param diffThreads number of diffs computed at the same time, the diffs
+     *            are computed by the consuming thread if 1 or less
+     */
+    public Stream<CommitModel> getCommitStream(Predicate<String> filter, Collection<String> excludedTips,
+            int diffThreads) {
+        RevWalk walk;
         try {
-            Iterable<RevCommit> commitIterable = gitProject.log().all().call();
-            return StreamSupport.stream(commitIterable.spliterator(), false).map(commit -> {
-                PersonIdent committer = commit.getCommitterIdent();
-                Date date = committer.getWhen();
-                TimeZone zone = committer.getTimeZone();
-
-                CommitModel model = new CommitModel();
-                model.setSha(commit.getName());
-                model.setAuthor(committer.getName());
-                model.setMessage(commit.getFullMessage());
-                model.setTimestamp(LocalDateTime.ofInstant(date.toInstant(), zone.toZoneId()));
-                try {
-                    model.setDiff(getDiff(commit.getName() + "^", commit.getName()));
-                } catch (GitAPIException | IOException e) {
-                    logger.error("An exception occurred when retrieving diff between commits.", e);
-                }
+            walk = walkHistory(excludedTips);
+        } catch (IOException e) {
+            logger.error("An exception occurred when retrieving list of commits.", e);
+            return Stream.empty();
+        }
 
-                return model;
-            });
-        } catch (GitAPIException | IOException e) {
+        Stream<PendingDiff> commits = StreamSupport.stream(walk.spliterator(), false)
+                .filter(commit -> filter.test(commit.getName())).map(commit -> toPendingDiff(walk, commit));
+        if (diffThreads <= 1) {
+            // one reader for the whole history
+            return commits.map(commit -> commit.complete(walk.getObjectReader())).onClose(walk::close);
+        }
+
+        return diffInParallel(commits.iterator(), diffThreads).onClose(walk::close);
+    }
+
+    /***
+     * Returns the messages of the commits {@link #getCommitStream(Predicate,
+     * Collection)} returns, in the same order. Only the commits are parsed,
+     * no diffs are computed, so the whole history can be scanned up front.
+     * The stream must be closed to release the walk.
+     */
+    public Stream<String> getCommitMessages(Predicate<String> filter, Collection<String> excludedTips) {
+        RevWalk walk;
+        try {
+            walk = walkHistory(excludedTips);
+        } catch (IOException e) {
             logger.error("An exception occurred when retrieving list of commits.", e);
             return Stream.empty();
         }
+
+        return StreamSupport.stream(walk.spliterator(), false).filter(commit -> filter.test(commit.getName()))
+                .map(RevCommit::getFullMessage).onClose(walk::close);
+    }
+
+    /**
+     * Sets up a walk over the selected history, in reverse topological order.
+     */
+    private RevWalk walkHistory(Collection<String> excludedTips) throws IOException {
+        RevWalk walk = new RevWalk(gitProject.getRepository());
+        try {
+            walk.sort(RevSort.TOPO);
+            walk.sort(RevSort.REVERSE, true);
+
+            List<String> tips = getTips();
+            for (String tip : tips) {
+                walk.markStart(walk.parseCommit(ObjectId.fromString(tip)));
+            }
+            for (ObjectId tip : resolveCommits(excludedTips)) {
+                walk.markUninteresting(walk.parseCommit(tip));
+            }
+
+            walk.setRevFilter(getRevFilter(tips));
+            return walk;
+        } catch (IOException | RuntimeException e) {
+            walk.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the filter that leaves out the commits that are not selected.
+     * Commits that are filtered out are still walked through, so the order
+     * of the remaining ones does not change.
+     */
+    private RevFilter getRevFilter(List<String> tips) throws IOException {
+        List<RevFilter> filters = new ArrayList<>();
+        if (historySelection.isNoMerges()) {
+            filters.add(RevFilter.NO_MERGES);
+        }
+
+        Set<ObjectId> firstParents = historySelection.isFirstParent() ? getFirstParentHistory(tips) : null;
+        if (firstParents != null || historySelection.getSince() != null || historySelection.getUntil() != null) {
+            filters.add(new SelectionFilter(firstParents, historySelection));
+        }
+
+        if (filters.isEmpty()) {
+            return RevFilter.ALL;
+        }
+        return filters.size() == 1 ? filters.get(0) : AndRevFilter.create(filters);
+    }
+
+    /**
+     * Follows the first parents from the tips down to the root commits.
+     */
+    private Set<ObjectId> getFirstParentHistory(List<String> tips) throws IOException {
+        Set<ObjectId> history = new HashSet<>();
+        try (RevWalk walk = new RevWalk(gitProject.getRepository())) {
+            walk.setRetainBody(false);
+            for (String tip : tips) {
+                RevCommit commit = walk.parseCommit(ObjectId.fromString(tip));
+                while (commit != null && history.add(commit.copy())) {
+                    commit = commit.getParentCount() > 0 ? walk.parseCommit(commit.getParent(0)) : null;
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Accepts the commits of the first parent history, if selected, that were
+     * committed within the selected time range.
+     */
+    private static class SelectionFilter extends RevFilter {
+
+        private final Set<ObjectId> firstParents;
+        private final HistorySelection selection;
+
+        SelectionFilter(Set<ObjectId> firstParents, HistorySelection selection) {
+            this.firstParents = firstParents;
+            this.selection = selection;
+        }
+
+        @Override
+        public boolean include(RevWalk walker, RevCommit commit) {
+            return (firstParents == null || firstParents.contains(commit))
+                    && selection.isInRange(commit.getCommitTime());
+        }
+
+        @Override
+        public RevFilter clone() {
+            return this;
+        }
+
+        @Override
+        public boolean requiresCommitBody() {
+            return false;
+        }
     }
 
     /***
@@ -81,21 +269,10 @@ public class VersionControlHelper implements AutoCloseable {
      */
     public List<CommitModel> getCommits() {
         List<CommitModel> result = new ArrayList<>();
-        try {
+        try (RevWalk walk = new RevWalk(gitProject.getRepository())) {
             Iterable<RevCommit> commits = gitProject.log().all().call();
             for (RevCommit commit : commits) {
-                PersonIdent committer = commit.getCommitterIdent();
-                Date date = committer.getWhen();
-                TimeZone zone = committer.getTimeZone();
-
-                CommitModel model = new CommitModel();
-                model.setSha(commit.getName());
-                model.setAuthor(committer.getName());
-                model.setMessage(commit.getFullMessage());
-                model.setTimestamp(LocalDateTime.ofInstant(date.toInstant(), zone.toZoneId()));
-                model.setDiff(getDiff(commit.getName() + "^", commit.getName()));
-
-                result.add(model);
+                result.add(toPendingDiff(walk, walk.parseCommit(commit)).complete(walk.getObjectReader()));
             }
         } catch (GitAPIException | IOException e) {
             logger.error("An exception occurred when retrieving list of commits.", e);
@@ -104,6 +281,217 @@ public class VersionControlHelper implements AutoCloseable {
         return result;
     }
 
+    /**
+     * Creates the model of a commit of the walk, and looks up the trees its
+     * diff is computed from.
+     */
+    private static PendingDiff toPendingDiff(RevWalk walk, RevCommit commit) {
+        PersonIdent committer = commit.getCommitterIdent();
+        Date date = committer.getWhen();
+        TimeZone zone = committer.getTimeZone();
+
+        CommitModel model = new CommitModel();
+        model.setSha(commit.getName());
+        model.setTreeId(commit.getTree().getName());
+        model.setParents(Arrays.stream(commit.getParents()).map(RevCommit::getName).collect(Collectors.toList()));
+        model.setAuthor(committer.getName());
+        model.setMessage(commit.getFullMessage());
+        model.setTimestamp(LocalDateTime.ofInstant(date.toInstant(), zone.toZoneId()));
+
+        ObjectId parentTree = null;
+        try {
+            if (commit.getParentCount() > 0) {
+                parentTree = walk.parseCommit(commit.getParent(0)).getTree();
+            }
+        } catch (IOException e) {
+            logger.error(String.format("Could not read the parent of commit %s", commit.getName()), e);
+            return new PendingDiff(model, null, null);
+        }
+
+        return new PendingDiff(model, parentTree, commit.getTree());
+    }
+
+    /**
+     * Computes the diffs of the commits with a pool of threads, each with its
+     * own reader, and returns the commits in their original order.
+     */
+    private Stream<CommitModel> diffInParallel(Iterator<PendingDiff> commits, int threads) {
+        Repository repository = gitProject.getRepository();
+        List<ObjectReader> readers = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<ObjectReader> reader = ThreadLocal.withInitial(() -> {
+            ObjectReader created = repository.newObjectReader();
+            readers.add(created);
+            return created;
+        });
+
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "diff-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable shutdown = () -> {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readers.forEach(ObjectReader::close);
+        };
+
+        Iterator<CommitModel> results = new Iterator<CommitModel>() {
+
+            private final Deque<Future<CommitModel>> ahead = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                while (ahead.size() < threads * DIFFS_AHEAD_PER_THREAD && commits.hasNext()) {
+                    PendingDiff commit = commits.next();
+                    ahead.add(executor.submit(() -> commit.complete(reader.get())));
+                }
+                if (ahead.isEmpty()) {
+                    shutdown.run();
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public CommitModel next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                try {
+                    return ahead.poll().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a diff", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("An exception occurred when computing a diff", e.getCause());
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED), false)
+                .onClose(shutdown);
+    }
+
+    /**
+     * A commit whose diff is not computed yet.
+     */
+    private static class PendingDiff {
+
+        private final CommitModel model;
+        private final ObjectId oldTree;
+        private final ObjectId newTree;
+
+        PendingDiff(CommitModel model, ObjectId oldTree, ObjectId newTree) {
+            this.model = model;
+            this.oldTree = oldTree;
+            this.newTree = newTree;
+        }
+
+        /**
+         * Sets the diff of the commit, or leaves it unset if the trees cannot
+         * be read.
+         */
+        CommitModel complete(ObjectReader reader) {
+            if (newTree == null) {
+                return model;
+            }
+
+            try {
+                model.setDiff(getDiff(reader, oldTree, newTree));
+            } catch (IOException e) {
+                logger.error("An exception occurred when retrieving diff between commits.", e);
+            }
+            return model;
+        }
+    }
+
+    /***
+     * Returns the SHAs of the commits that the branches and tags of the
+     * repository currently point to, or only the commit of the selected
+     * branch if there is one.
+     */
+    public List<String> getTips() throws IOException {
+        Repository repository = gitProject.getRepository();
+        Set<String> tips = new LinkedHashSet<>();
+
+        Collection<Ref> refs;
+        if (historySelection.getBranch() != null) {
+            Ref branch = repository.getRefDatabase().getRef(historySelection.getBranch());
+            if (branch == null) {
+                logger.error(String.format("Branch %s does not exist in repository %s", historySelection.getBranch(),
+                        repository.getDirectory().getAbsolutePath()));
+                return new ArrayList<>();
+            }
+            refs = Collections.singletonList(branch);
+        } else {
+            refs = repository.getRefDatabase().getRefs(RefDatabase.ALL).values();
+        }
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            for (Ref ref : refs) {
+                Ref peeled = repository.peel(ref);
+                ObjectId id = peeled.getPeeledObjectId() != null ? peeled.getPeeledObjectId() : peeled.getObjectId();
+                if (id == null) {
+                    continue;
+                }
+
+                try {
+                    tips.add(walk.parseCommit(id).getName());
+                } catch (IncorrectObjectTypeException e) {
+                    // tags may point to trees or blobs, which have no history
+                }
+            }
+        }
+
+        return new ArrayList<>(tips);
+    }
+
+    /***
+     * Fetches new commits, branches and tags from the remote of the repository.
+     * @return true if the fetch was successful
+     */
+    public boolean fetch() {
+        logger.info(String.format("Fetching updates for repository residing at %s",
+                gitProject.getRepository().getDirectory().getAbsolutePath()));
+        try {
+            gitProject.fetch().setTagOpt(TagOpt.FETCH_TAGS).call();
+            return true;
+        } catch (GitAPIException e) {
+            logger.error("An error occurred when fetching from the remote repository.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Resolves SHAs to commit ids, ignoring those that no longer exist in the
+     * repository (e.g. after a force push and garbage collection).
+     */
+    private List<ObjectId> resolveCommits(Collection<String> shas) {
+        List<ObjectId> result = new ArrayList<>();
+        Repository repository = gitProject.getRepository();
+
+        for (String sha : shas) {
+            if (!ObjectId.isId(sha)) {
+                continue;
+            }
+
+            ObjectId id = ObjectId.fromString(sha);
+            if (repository.hasObject(id)) {
+                result.add(id);
+            } else {
+                logger.warn(String.format("Commit %s no longer exists in the repository", sha));
+            }
+        }
+
+        return result;
+    }
+
     /***
      * Checks out a specific revision of the repository.
      * @param commitSHA SHA of commit to be checked out
@@ -120,6 +508,27 @@ public class VersionControlHelper implements AutoCloseable {
         }
     }
 
+    /***
+     * Creates an additional working directory for this repository. The new
+     * repository borrows all objects from this one through git alternates, so
+     * no history is copied and any revision of this repository can be checked
+     * out in it independently. If the directory already exists it is reused.
+     * @param path folder of the new working directory
+     */
+    public VersionControlHelper createWorkspace(File path) throws IOException, GitAPIException {
+        if (!new File(path, GIT_FOLDER).exists()) {
+            logger.info(String.format("Creating workspace at %s", path.getAbsolutePath()));
+            Git.init().setDirectory(path).call().close();
+
+            File objects = new File(gitProject.getRepository().getDirectory(), OBJECTS_FOLDER);
+            Path alternates = Paths.get(path.getAbsolutePath(), GIT_FOLDER, OBJECTS_FOLDER, ALTERNATES_FILE);
+            Files.createDirectories(alternates.getParent());
+            Files.write(alternates, (objects.getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new VersionControlHelper(path);
+    }
+
     /**
      * Opens an existing repository.
      */
@@ -139,15 +548,43 @@ public class VersionControlHelper implements AutoCloseable {
     /**
      * Lists differences between SHAs of two commits.
      *
-     * @param oldCommit commit sha
+     * @param oldCommit commit sha or revision, e.g. sha^, compared against an
+     *            empty tree if it does not exist
      * @param newCommit commit sha
-     * @throws GitAPIException
      * @throws IOException
      */
-    public CommitDiff getDiff(String oldCommit, String newCommit) throws GitAPIException, IOException {
+    public CommitDiff getDiff(String oldCommit, String newCommit) throws IOException {
         Repository repository = gitProject.getRepository();
-        final List<DiffEntry> diffs = gitProject.diff().setOldTree(prepareTreeParser(repository, oldCommit))
-                .setNewTree(prepareTreeParser(repository, newCommit)).call();
+        ObjectId oldId = repository.resolve(oldCommit);
+        ObjectId newId = repository.resolve(newCommit);
+        if (newId == null) {
+            throw new IOException(String.format("Commit %s does not exist", newCommit));
+        }
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            ObjectId oldTree = oldId != null ? walk.parseCommit(oldId).getTree() : null;
+            return getDiff(walk.getObjectReader(), oldTree, walk.parseCommit(newId).getTree());
+        }
+    }
+
+    /**
+     * Lists the differences between two trees, walking both at the same time
+     * with the given reader and skipping identical subtrees.
+     * @param oldTree the tree of the parent, or null for a root commit
+     */
+    static CommitDiff getDiff(ObjectReader reader, ObjectId oldTree, ObjectId newTree) throws IOException {
+        List<DiffEntry> diffs;
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            if (oldTree != null) {
+                treeWalk.addTree(new CanonicalTreeParser(null, reader, oldTree));
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(new CanonicalTreeParser(null, reader, newTree));
+            diffs = DiffEntry.scan(treeWalk);
+        }
 
         CommitDiff diffModel = new CommitDiff();
         diffModel.setTotalChanges(diffs.size());
@@ -173,24 +610,6 @@ public class VersionControlHelper implements AutoCloseable {
         return diffModel;
     }
 
-    private static AbstractTreeIterator prepareTreeParser(Repository repository, String objectId) throws IOException {
-        // from the commit we can build the tree which allows us to construct the TreeParser
-        //noinspection Duplicates
-        try (RevWalk walk = new RevWalk(repository)) {
-            RevCommit commit = walk.parseCommit(repository.resolve(objectId));
-            RevTree tree = walk.parseTree(commit.getTree().getId());
-
-            CanonicalTreeParser treeParser = new CanonicalTreeParser();
-            try (ObjectReader reader = repository.newObjectReader()) {
-                treeParser.reset(reader, tree.getId());
-            }
-
-            walk.dispose();
-
-            return treeParser;
-        }
-    }
-
     @Override
     public void close() {
         // just to make sure we are closing the repository entirely.
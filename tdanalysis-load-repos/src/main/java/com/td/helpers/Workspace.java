@@ -0,0 +1,55 @@
+package com.td.helpers;
+
+import java.io.File;
+
+import com.td.models.RepositoryModel;
+
+/**
+ * A working directory in which a revision of a repository can be checked out,
+ * built and analysed independently of other workspaces of the same repository.
+ */
+public class Workspace implements AutoCloseable {
+
+    private final VersionControlHelper versionControl;
+    private final RepositoryModel repository;
+
+    public Workspace(VersionControlHelper versionControl, RepositoryModel repository, File folder) {
+        this.versionControl = versionControl;
+        this.repository = copyWithFolder(repository, folder);
+    }
+
+    /**
+     * @return the helper that controls the working directory
+     */
+    public VersionControlHelper getVersionControl() {
+        return versionControl;
+    }
+
+    /**
+     * @return the repository model whose project folder points to this workspace
+     */
+    public RepositoryModel getRepository() {
+        return repository;
+    }
+
+    @Override
+    public void close() {
+        versionControl.close();
+    }
+
+    /**
+     * Builds and analysis use the project folder of the repository model, so
+     * each workspace needs its own copy of it.
+     */
+    private static RepositoryModel copyWithFolder(RepositoryModel repo, File folder) {
+        RepositoryModel copy = new RepositoryModel();
+        copy.setId(repo.getId());
+        copy.setName(repo.getName());
+        copy.setAuthor(repo.getAuthor());
+        copy.setURI(repo.getURI());
+        copy.setIssueTrackerURI(repo.getIssueTrackerURI());
+        copy.setBuildCommand(repo.getBuildCommand());
+        copy.setProjectFolder(folder);
+        return copy;
+    }
+}
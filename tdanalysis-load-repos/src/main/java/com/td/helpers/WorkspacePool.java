@@ -0,0 +1,97 @@
+package com.td.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.td.models.RepositoryModel;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed set of workspaces for one repository. Workers borrow a workspace,
+ * check out and process a commit in it and give it back, so that several
+ * commits of the same repository can be processed at the same time.
+ */
+public class WorkspacePool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkspacePool.class);
+    private static final String WORKSPACES_SUFFIX = "-workspaces";
+    private static final String WORKSPACE_PREFIX = "worker-";
+
+    private final List<Workspace> workspaces;
+    private final BlockingQueue<Workspace> available;
+
+    private WorkspacePool(List<Workspace> workspaces) {
+        this.workspaces = workspaces;
+        this.available = new LinkedBlockingQueue<>(workspaces);
+    }
+
+    /**
+     * Creates a pool of workspaces for the repository. A single workspace is
+     * the main clone itself; additional ones are created next to it, under
+     * {@code <clonePath>/<name>-workspaces/worker-<n>}.
+     * @param main helper of the main clone of the repository
+     * @param repo the repository, with its project folder set to the main clone
+     * @param clonePath folder where repositories are cloned
+     * @param size number of workspaces
+     */
+    public static WorkspacePool create(VersionControlHelper main, RepositoryModel repo, String clonePath, int size)
+            throws IOException, GitAPIException {
+        List<Workspace> workspaces = new ArrayList<>();
+
+        if (size <= 1) {
+            workspaces.add(new Workspace(main, repo, repo.getProjectFolder()));
+            return new WorkspacePool(workspaces);
+        }
+
+        try {
+            for (int i = 1; i <= size; i++) {
+                File folder = new File(
+                        Paths.get(clonePath, repo.getName() + WORKSPACES_SUFFIX, WORKSPACE_PREFIX + i).toString());
+                workspaces.add(new Workspace(main.createWorkspace(folder), repo, folder));
+            }
+        } catch (IOException | GitAPIException e) {
+            workspaces.forEach(Workspace::close);
+            throw e;
+        }
+
+        logger.info(String.format("Created %d workspaces for repository %s", size, repo.getName()));
+        return new WorkspacePool(workspaces);
+    }
+
+    /**
+     * Waits until a workspace is available and takes it from the pool.
+     */
+    public Workspace borrow() throws InterruptedException {
+        return available.take();
+    }
+
+    /**
+     * Returns a borrowed workspace to the pool.
+     */
+    public void release(Workspace workspace) {
+        available.add(workspace);
+    }
+
+    public int size() {
+        return workspaces.size();
+    }
+
+    /**
+     * Closes the workspaces that were created by the pool. The main clone is
+     * left to its owner.
+     */
+    @Override
+    public void close() {
+        if (workspaces.size() > 1) {
+            workspaces.forEach(Workspace::close);
+        }
+    }
+}
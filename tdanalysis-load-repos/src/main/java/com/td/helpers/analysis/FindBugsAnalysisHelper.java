@@ -1,38 +1,44 @@
 package com.td.helpers.analysis;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import javax.xml.stream.XMLStreamException;
+
+import com.td.helpers.process.OutputHandler;
+import com.td.helpers.process.OutputHandler.Action;
+import com.td.helpers.process.ProcessPolicy;
+import com.td.helpers.process.ProcessResult;
+import com.td.helpers.process.ProcessSupervisor;
+import com.td.helpers.process.TerminationReason;
 import com.td.models.CommitTD;
 import com.td.models.RepositoryModel;
-import com.td.models.TechnicalDebt;
-import com.td.models.TechnicalDebtPriority;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
-public class FindBugsAnalysisHelper implements StaticAnalysisHelper {
+@ConditionalOnProperty(name = "analysis.engine", havingValue = "findbugs", matchIfMissing = true)
+public class FindBugsAnalysisHelper extends JarAnalysisHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FindBugsAnalysisHelper.class);
 
-    private static final String JAR_EXTENSION = ".jar";
-    private static final String FILE_EXTENSION_SEPARATOR = ".";
+    static final String OUTPUT_FORMAT_XML = "xml";
+    static final String XML_PARAM = "-xml";
+    static final String OUTPUT_PARAM = "-output";
 
     @Value("${findbugs.command.linux}")
     private String findBugsCommandLinux;
@@ -46,50 +52,52 @@ public class FindBugsAnalysisHelper implements StaticAnalysisHelper {
     @Value("${findbugs.command.priority}")
     private String findBugsPriority;
 
-    /***
-     * Executes the analysis for all project JARs found in the directory.
-     * @param repositoryModel the repository model object
-     * @return list of bugs
-     * @throws IOException if the program is not found
-     * @throws InterruptedException if any of the processes is interrupted.
+    /**
+     * Either xml, to read the XML report, or text, to scrape the text output.
      */
-    public TechnicalDebt executeAnalysis(RepositoryModel repositoryModel) {
+    @Value("${findbugs.output.format:xml}")
+    private String findBugsOutputFormat;
 
-        LOGGER.info(String.format("Starting analysis for project %s:%s", repositoryModel.getName(),
-                repositoryModel.getAuthor()));
+    /**
+     * Analyses of a single JAR running longer than this are killed.
+     */
+    @Value("${analysis.timeout.minutes:30}")
+    private long analysisTimeout;
 
+    /**
+     * Analyses printing nothing for longer than this are killed.
+     */
+    @Value("${analysis.idle.timeout.minutes:10}")
+    private long analysisIdleTimeout;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    /***
+     * Analyses each JAR in a separate findbugs process.
+     * @param repositoryModel the repository model object
+     * @param jarsByModule absolute paths of the JARs, by module folder
+     * @return set of bugs
+     */
+    @Override
+    Set<CommitTD> analyseModules(RepositoryModel repositoryModel, Map<String, List<String>> jarsByModule) {
         Set<CommitTD> results = Collections.synchronizedSet(new HashSet<>());
         String analysisCommand = System.getProperty("os.name").contains("Windows") ? findBugsCommandWindows
                 : findBugsCommandLinux;
-        List<String> projectJars = getProjectJars(repositoryModel.getProjectFolder(), repositoryModel.getName());
 
-        // process JARs in parallel to speed up analysis
-        projectJars.parallelStream().forEach(jar -> {
+        // process JARs of all modules in parallel to speed up analysis
+        jarsByModule.entrySet().parallelStream().forEach(module -> module.getValue().parallelStream().forEach(jar -> {
             LOGGER.info(String.format("Starting analysis for JAR %s in project %s", jar, repositoryModel.getName()));
-            results.addAll(analyseJar(analysisCommand, repositoryModel.getProjectFolder(), jar));
-        });
-
-        return analyseResults(results);
-    }
-
-    TechnicalDebt analyseResults(Set<CommitTD> tdItems) {
-        TechnicalDebt td = new TechnicalDebt();
-
-        int highPriority = getPriorityCount(TechnicalDebtPriority.HIGH, tdItems);
-        int mediumPriority = getPriorityCount(TechnicalDebtPriority.MEDIUM, tdItems);
-        int lowPriority = getPriorityCount(TechnicalDebtPriority.LOW, tdItems);
-
-        td.setTotalCount(tdItems.size());
-        td.setHighCount(highPriority);
-        td.setMediumCount(mediumPriority);
-        td.setLowCount(lowPriority);
-        td.setTdItems(new ArrayList<>(tdItems));
+            Set<CommitTD> items = analyseJar(analysisCommand, repositoryModel.getProjectFolder(), jar);
+            items.forEach(item -> item.setModule(module.getKey()));
+            results.addAll(items);
+        }));
 
-        return td;
+        return results;
     }
 
-    int getPriorityCount(TechnicalDebtPriority priority, Set<CommitTD> tdItems) {
-        return (int) tdItems.stream().filter(item -> item.getPriority().equals(priority)).count();
+    private ProcessPolicy getAnalysisPolicy() {
+        return ProcessPolicy.ofMinutes(analysisTimeout, analysisIdleTimeout);
     }
 
     /***
@@ -98,11 +106,13 @@ public class FindBugsAnalysisHelper implements StaticAnalysisHelper {
      * @param projectDirectory project... directory
      * @param jarPath jar... path
      * @return list of bugs
-     * @throws IOException if the program is not found
-     * @throws InterruptedException if the process is interrupted
      */
     Set<CommitTD> analyseJar(String command, File projectDirectory, String jarPath) {
 
+        if (OUTPUT_FORMAT_XML.equalsIgnoreCase(findBugsOutputFormat)) {
+            return analyseJarReport(command, projectDirectory, jarPath);
+        }
+
         Set<CommitTD> results = new HashSet<>();
         ProcessBuilder builder = new ProcessBuilder();
 
@@ -110,79 +120,87 @@ public class FindBugsAnalysisHelper implements StaticAnalysisHelper {
         builder.command(command, findBugsUIParam, findBugsPriority, jarPath);
         builder.directory(projectDirectory);
 
-        Process p;
+        // store the results as they are found
+        boolean completed = runAnalysis(builder, jarPath, line -> {
+            TechnicalDebtMapper.parseFindBugsOutput(line).ifPresent(results::add);
+            return Action.CONTINUE;
+        });
+
+        return completed ? results : new HashSet<>();
+    }
+
+    /***
+     * Analyses a JAR into a temporary XML report, which is then streamed into
+     * technical debt items.
+     * @param command command to run the analysis
+     * @param projectDirectory project directory
+     * @param jarPath path of the JAR
+     * @return list of bugs
+     */
+    Set<CommitTD> analyseJarReport(String command, File projectDirectory, String jarPath) {
+
+        Set<CommitTD> results = new HashSet<>();
+        Path report;
         try {
-            p = builder.start();
+            report = Files.createTempFile("findbugs", ".xml");
         } catch (IOException e) {
-            LOGGER.error("An error occurred when starting the findbugs process", e);
-            e.printStackTrace();
+            LOGGER.error("An error occurred when creating the findbugs report file", e);
             return results;
         }
 
-        // store the results as they are found
-        BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-        String line;
         try {
-            while ((line = reader.readLine()) != null) {
-                Optional<CommitTD> optional = TechnicalDebtMapper.parseFindBugsOutput(line);
-                optional.ifPresent(results::add);
+            ProcessBuilder builder = new ProcessBuilder();
+            builder.command(command, findBugsUIParam, findBugsPriority, XML_PARAM, OUTPUT_PARAM, report.toString(),
+                    jarPath);
+            builder.directory(projectDirectory);
+
+            // the report holds the results, the output only progress and warnings
+            boolean completed = runAnalysis(builder, jarPath, line -> {
+                LOGGER.debug(line);
+                return Action.CONTINUE;
+            });
+
+            if (!completed) {
+                return results;
             }
-        } catch (IOException e) {
-            LOGGER.error("An error occurred when processing findbugs output", e);
-            e.printStackTrace();
-            return results;
-        }
 
-        // wait for process to complete
-        try {
-            p.waitFor();
-        } catch (InterruptedException e) {
-            LOGGER.error("An error occurred when processing findbugs output", e);
-            e.printStackTrace();
+            try (InputStream input = new BufferedInputStream(Files.newInputStream(report))) {
+                int count = FindBugsXmlParser.parse(input, results::add);
+                LOGGER.info(String.format("Read %d bugs from the findbugs report of %s", count, jarPath));
+            } catch (IOException | XMLStreamException e) {
+                LOGGER.error(String.format("Could not read the findbugs report of %s", jarPath), e);
+                return new HashSet<>();
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(report);
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Could not delete findbugs report %s", report));
+            }
         }
 
         return results;
     }
 
     /**
-     * Returns all the JARs that contain the name of the project.
-     *
-     * @param projectFolder folder of the build files
-     * @param projectName   the name of the project
-     * @return a list of all the jars in the form of absolute paths
-     * @throws IOException if the project folder does not exist
+     * Runs a findbugs process under supervision.
+     * @return true if the analysis ran to completion
      */
-    List<String> getProjectJars(File projectFolder, String projectName) {
-        Path paths = Paths.get(projectFolder.getAbsolutePath());
+    private boolean runAnalysis(ProcessBuilder builder, String jarPath, OutputHandler handler) {
+        ProcessResult result;
         try {
-            return Files.walk(paths).filter(Files::isRegularFile).filter(path -> isProjectJar(path, projectName))
-                    .map(Path::toString).collect(Collectors.toList());
+            result = processSupervisor.run("findbugs analysis of " + jarPath, builder, getAnalysisPolicy(), handler);
         } catch (IOException e) {
-            LOGGER.error("An error occurred when searching for project JARs", e);
-            return new ArrayList<>();
+            LOGGER.error("An error occurred when starting the findbugs process", e);
+            return false;
         }
-    }
-
-    boolean isProjectJar(Path path, String projectName) {
-        String fileName = path.getFileName().toString();
-        return fileName.contains(projectName) && isJarFile(fileName) && !isSourcesJar(fileName) && !isDocsJar(fileName)
-                && !isTestsJar(fileName);
-    }
 
-    boolean isJarFile(String fileName) {
-        int index = fileName.lastIndexOf(FILE_EXTENSION_SEPARATOR);
-        return index > 0 && fileName.substring(index).equals(JAR_EXTENSION);
-    }
-
-    boolean isSourcesJar(String fileName) {
-        return fileName.contains("sources");
-    }
-
-    boolean isDocsJar(String fileName) {
-        return fileName.contains("doc");
-    }
+        // results of an interrupted analysis are incomplete
+        if (result.getReason() != TerminationReason.COMPLETED) {
+            LOGGER.error(String.format("Discarding findbugs results of %s: %s", jarPath, result));
+            return false;
+        }
 
-    boolean isTestsJar(String fileName) {
-        return fileName.contains("test");
+        return true;
     }
 }
@@ -0,0 +1,228 @@
+package com.td.helpers.analysis;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.td.models.CommitTD;
+import com.td.models.CommitTD.CodeLocation;
+import com.td.models.TechnicalDebtInterner;
+import com.td.models.TechnicalDebtPriority;
+
+/**
+ * Streams a findbugs XML report (-xml output) into technical debt items. Each
+ * BugInstance is mapped as soon as it is read, so the report is never held in
+ * memory as a whole.
+ */
+public class FindBugsXmlParser {
+
+    static final String BUG_INSTANCE = "BugInstance";
+    static final String CLASS = "Class";
+    static final String FIELD = "Field";
+    static final String METHOD = "Method";
+    static final String SOURCE_LINE = "SourceLine";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Parses the report and passes every bug to the consumer.
+     * @param input the report
+     * @param consumer receives the bugs in report order
+     * @return the number of bugs read
+     */
+    public static int parse(InputStream input, Consumer<CommitTD> consumer) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(input);
+        int count = 0;
+
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && BUG_INSTANCE.equals(reader.getLocalName())) {
+                    consumer.accept(parseBugInstance(reader));
+                    count++;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return count;
+    }
+
+    /**
+     * Reads a BugInstance element, leaving the reader on its end tag. The
+     * location is picked the same way findbugs picks the one it prints: the
+     * bug's own source line, then the source of the primary (first) method,
+     * field or class.
+     */
+    static CommitTD parseBugInstance(XMLStreamReader reader) throws XMLStreamException {
+        String issueCode = reader.getAttributeValue(null, "abbrev");
+        String category = reader.getAttributeValue(null, "category");
+        String priority = reader.getAttributeValue(null, "priority");
+        String rank = reader.getAttributeValue(null, "rank");
+
+        CodeLocation bugLocation = null;
+        CodeLocation methodLocation = null;
+        CodeLocation fieldLocation = null;
+        CodeLocation classLocation = null;
+        String method = null;
+        boolean seenField = false;
+        boolean seenClass = false;
+
+        // the primary annotation (Class, Method, Field) the reader is in, if any
+        String primaryAnnotation = null;
+        int depth = 0;
+
+        while (depth >= 0) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String name = reader.getLocalName();
+
+                if (depth == 1) {
+                    primaryAnnotation = null;
+
+                    if (SOURCE_LINE.equals(name)) {
+                        // source lines with a role describe something other than the bug
+                        if (bugLocation == null && reader.getAttributeValue(null, "role") == null) {
+                            bugLocation = parseSourceLine(reader);
+                        }
+                    } else if (METHOD.equals(name) && method == null) {
+                        primaryAnnotation = name;
+                        method = reader.getAttributeValue(null, "classname") + "."
+                                + reader.getAttributeValue(null, "name");
+                    } else if (FIELD.equals(name) && !seenField) {
+                        primaryAnnotation = name;
+                        seenField = true;
+                    } else if (CLASS.equals(name) && !seenClass) {
+                        primaryAnnotation = name;
+                        seenClass = true;
+                    }
+                } else if (depth == 2 && SOURCE_LINE.equals(name) && primaryAnnotation != null) {
+                    switch (primaryAnnotation) {
+                    case METHOD:
+                        methodLocation = parseSourceLine(reader);
+                        break;
+                    case FIELD:
+                        fieldLocation = parseSourceLine(reader);
+                        break;
+                    default:
+                        classLocation = parseSourceLine(reader);
+                        break;
+                    }
+                }
+            }
+        }
+
+        CodeLocation location = firstKnown(bugLocation, methodLocation, fieldLocation, classLocation);
+
+        CommitTD result = TechnicalDebtMapper.createCommitTD(getPriority(priority), getCategoryInitial(category),
+                issueCode, location);
+        result.setRank(parseNumber(rank));
+        result.setMethod(TechnicalDebtInterner.intern(method));
+        return result;
+    }
+
+    /**
+     * Returns the first location with known lines, or else the first location.
+     */
+    private static CodeLocation firstKnown(CodeLocation... locations) {
+        CodeLocation first = null;
+        for (CodeLocation location : locations) {
+            if (location == null) {
+                continue;
+            }
+            if (location.getLine() != null) {
+                return location;
+            }
+            if (first == null) {
+                first = location;
+            }
+        }
+        return first;
+    }
+
+    static CodeLocation parseSourceLine(XMLStreamReader reader) {
+        Integer start = parseNumber(reader.getAttributeValue(null, "start"));
+        Integer end = parseNumber(reader.getAttributeValue(null, "end"));
+
+        String lines = start == null ? null : TechnicalDebtMapper.formatLines(start, end == null ? 0 : end);
+
+        return new CodeLocation(reader.getAttributeValue(null, "sourcefile"), lines);
+    }
+
+    /**
+     * Parses a numeric attribute of the report.
+     * @return null if the attribute is missing or not a number, so that the
+     *         rest of the bug is still read
+     */
+    static Integer parseNumber(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Maps the numeric priority of the XML report, 1 being the highest.
+     */
+    static TechnicalDebtPriority getPriority(String priority) {
+        switch (priority == null ? "" : priority) {
+        case "1":
+            return TechnicalDebtPriority.HIGH;
+        case "2":
+            return TechnicalDebtPriority.MEDIUM;
+        default:
+            return TechnicalDebtPriority.LOW;
+        }
+    }
+
+    /**
+     * Maps a bug category to the initial the findbugs text output prints, so
+     * items keep the same id whichever output format produced them.
+     */
+    static String getCategoryInitial(String category) {
+        switch (category == null ? "" : category) {
+        case "BAD_PRACTICE":
+            return "B";
+        case "CORRECTNESS":
+            return "C";
+        case "STYLE":
+            return "D";
+        case "I18N":
+            return "I";
+        case "MT_CORRECTNESS":
+            return "M";
+        case "NOISE":
+            return "N";
+        case "PERFORMANCE":
+            return "P";
+        case "SECURITY":
+            return "S";
+        case "MALICIOUS_CODE":
+            return "V";
+        case "EXPERIMENTAL":
+            return "X";
+        default:
+            return category == null || category.isEmpty() ? "?" : category.substring(0, 1);
+        }
+    }
+}
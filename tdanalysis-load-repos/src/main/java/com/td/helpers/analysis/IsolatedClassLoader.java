@@ -0,0 +1,113 @@
+package com.td.helpers.analysis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+/**
+ * Class loader that loads classes from its own URLs before asking its
+ * parent, so that a tool and its dependencies can be loaded next to the
+ * application without clashing with the application's own libraries.
+ * Classes under the shared prefixes (the JDK, logging and the application's
+ * own packages) are always taken from the parent, except those under the
+ * isolated prefixes, which are always loaded by this class loader. Isolated
+ * classes missing from its URLs are defined from the class files of the
+ * parent, so that they need not be on a class path entry of their own.
+ */
+public class IsolatedClassLoader extends URLClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final List<String> sharedPrefixes;
+    private final List<String> isolatedPrefixes;
+
+    public IsolatedClassLoader(URL[] urls, ClassLoader parent, List<String> sharedPrefixes,
+            List<String> isolatedPrefixes) {
+        super(urls, parent);
+        this.sharedPrefixes = sharedPrefixes;
+        this.isolatedPrefixes = isolatedPrefixes;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (isShared(name)) {
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                try {
+                    loaded = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    loaded = getParent().loadClass(name);
+                }
+            }
+
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        try {
+            return super.findClass(name);
+        } catch (ClassNotFoundException e) {
+            if (!isIsolated(name)) {
+                throw e;
+            }
+            return defineFromParent(name);
+        }
+    }
+
+    /**
+     * Defines the class from the class file the parent would load it from.
+     * The application's classes are not on a plain class path entry when it
+     * runs from an executable JAR, where they are nested in the archive.
+     */
+    private Class<?> defineFromParent(String name) throws ClassNotFoundException {
+        String resource = name.replace('.', '/') + ".class";
+        try (InputStream input = getParent().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new ClassNotFoundException(name);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+
+            int packageEnd = name.lastIndexOf('.');
+            if (packageEnd > 0 && getPackage(name.substring(0, packageEnd)) == null) {
+                definePackage(name.substring(0, packageEnd), null, null, null, null, null, null, null);
+            }
+            return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    @Override
+    public URL getResource(String name) {
+        URL resource = findResource(name);
+        return resource != null ? resource : super.getResource(name);
+    }
+
+    private boolean isShared(String name) {
+        return !isIsolated(name) && sharedPrefixes.stream().anyMatch(name::startsWith);
+    }
+
+    private boolean isIsolated(String name) {
+        return isolatedPrefixes.stream().anyMatch(name::startsWith);
+    }
+}
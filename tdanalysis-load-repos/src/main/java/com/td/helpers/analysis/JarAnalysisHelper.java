@@ -0,0 +1,152 @@
+package com.td.helpers.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.td.helpers.building.ModuleLocator;
+import com.td.models.CommitTD;
+import com.td.models.RepositoryModel;
+import com.td.models.TechnicalDebt;
+import com.td.models.TechnicalDebtPriority;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for static analysis helpers that analyse the JARs produced by
+ * the build of a project.
+ */
+public abstract class JarAnalysisHelper implements StaticAnalysisHelper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JarAnalysisHelper.class);
+
+    private static final String JAR_EXTENSION = ".jar";
+    private static final String FILE_EXTENSION_SEPARATOR = ".";
+
+    /***
+     * Executes the analysis for all project JARs found in the directory.
+     * @param repositoryModel the repository model object
+     * @return list of bugs
+     */
+    @Override
+    public TechnicalDebt executeAnalysis(RepositoryModel repositoryModel) {
+
+        LOGGER.info(String.format("Starting analysis for project %s:%s", repositoryModel.getName(),
+                repositoryModel.getAuthor()));
+
+        List<String> projectJars = getProjectJars(repositoryModel.getProjectFolder(), repositoryModel.getName());
+        return analyseResults(analyseModules(repositoryModel, groupByModule(repositoryModel.getProjectFolder(),
+                projectJars)));
+    }
+
+    /***
+     * Analyses the JARs of the modules that were rebuilt, and keeps the
+     * baseline results of the other modules.
+     * @param repositoryModel the repository model object
+     * @param modules the rebuilt modules
+     * @param baseline results of the previous commit, split by module
+     * @return list of bugs
+     */
+    @Override
+    public TechnicalDebt executeModuleAnalysis(RepositoryModel repositoryModel, Collection<String> modules,
+            TechnicalDebt baseline) {
+        Map<String, List<String>> rebuiltModules = groupByModule(repositoryModel.getProjectFolder(),
+                getProjectJars(repositoryModel.getProjectFolder(), repositoryModel.getName()));
+        rebuiltModules.keySet().retainAll(modules);
+
+        LOGGER.info(String.format("Starting analysis of rebuilt modules %s for project %s", rebuiltModules.keySet(),
+                repositoryModel.getName()));
+
+        Set<CommitTD> tdItems = new HashSet<>(analyseModules(repositoryModel, rebuiltModules));
+        baseline.getTdItems().stream().filter(item -> !modules.contains(item.getModule()))
+                .forEach(tdItems::add);
+
+        return analyseResults(tdItems);
+    }
+
+    /**
+     * Analyses the given JARs of the project. The returned items are
+     * attributed to the module of the JAR they were found in.
+     * @param repositoryModel the repository model object
+     * @param jarsByModule absolute paths of the JARs, by module folder
+     * @return set of bugs found in all JARs
+     */
+    abstract Set<CommitTD> analyseModules(RepositoryModel repositoryModel, Map<String, List<String>> jarsByModule);
+
+    Map<String, List<String>> groupByModule(File projectFolder, List<String> jars) {
+        return jars.stream().collect(Collectors.groupingBy(jar -> ModuleLocator.getModule(projectFolder,
+                Paths.get(jar)), TreeMap::new, Collectors.toList()));
+    }
+
+    TechnicalDebt analyseResults(Set<CommitTD> tdItems) {
+        TechnicalDebt td = new TechnicalDebt();
+
+        int highPriority = getPriorityCount(TechnicalDebtPriority.HIGH, tdItems);
+        int mediumPriority = getPriorityCount(TechnicalDebtPriority.MEDIUM, tdItems);
+        int lowPriority = getPriorityCount(TechnicalDebtPriority.LOW, tdItems);
+
+        td.setTotalCount(tdItems.size());
+        td.setHighCount(highPriority);
+        td.setMediumCount(mediumPriority);
+        td.setLowCount(lowPriority);
+        td.setTdItems(new ArrayList<>(tdItems));
+
+        return td;
+    }
+
+    int getPriorityCount(TechnicalDebtPriority priority, Set<CommitTD> tdItems) {
+        return (int) tdItems.stream().filter(item -> item.getPriority().equals(priority)).count();
+    }
+
+    /**
+     * Returns all the JARs that contain the name of the project.
+     *
+     * @param projectFolder folder of the build files
+     * @param projectName   the name of the project
+     * @return a list of all the jars in the form of absolute paths
+     */
+    List<String> getProjectJars(File projectFolder, String projectName) {
+        Path paths = Paths.get(projectFolder.getAbsolutePath());
+        try {
+            return Files.walk(paths).filter(Files::isRegularFile).filter(path -> isProjectJar(path, projectName))
+                    .map(Path::toString).collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.error("An error occurred when searching for project JARs", e);
+            return new ArrayList<>();
+        }
+    }
+
+    boolean isProjectJar(Path path, String projectName) {
+        String fileName = path.getFileName().toString();
+        return fileName.contains(projectName) && isJarFile(fileName) && !isSourcesJar(fileName) && !isDocsJar(fileName)
+                && !isTestsJar(fileName);
+    }
+
+    boolean isJarFile(String fileName) {
+        int index = fileName.lastIndexOf(FILE_EXTENSION_SEPARATOR);
+        return index > 0 && fileName.substring(index).equals(JAR_EXTENSION);
+    }
+
+    boolean isSourcesJar(String fileName) {
+        return fileName.contains("sources");
+    }
+
+    boolean isDocsJar(String fileName) {
+        return fileName.contains("doc");
+    }
+
+    boolean isTestsJar(String fileName) {
+        return fileName.contains("test");
+    }
+}
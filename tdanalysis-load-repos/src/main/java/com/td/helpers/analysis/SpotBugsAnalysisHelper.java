@@ -0,0 +1,131 @@
+package com.td.helpers.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import com.td.models.CommitTD;
+import com.td.models.RepositoryModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs SpotBugs inside the loader JVM. SpotBugs and its libraries are loaded
+ * once from {@code spotbugs.home/lib} into an isolated class loader, so the
+ * start-up, classpath scanning and plugin loading of a findbugs process are
+ * paid only once instead of for every JAR of every commit.
+ */
+@Component
+@ConditionalOnProperty(name = "analysis.engine", havingValue = "spotbugs")
+public class SpotBugsAnalysisHelper extends JarAnalysisHelper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpotBugsAnalysisHelper.class);
+
+    private static final String ENGINE_CLASS = "com.td.helpers.analysis.spotbugs.InProcessSpotBugsEngine";
+    private static final String LIB_FOLDER = "lib";
+
+    // taken from the application class loader rather than from SpotBugs
+    private static final List<String> SHARED_PREFIXES = Arrays.asList("java.", "javax.", "sun.", "org.w3c.",
+            "org.xml.", "org.slf4j.", "com.td.");
+
+    // loaded next to SpotBugs, since they link against its classes
+    private static final List<String> ISOLATED_PREFIXES = Arrays.asList("com.td.helpers.analysis.spotbugs.");
+
+    @Value("${spotbugs.home:${SPOTBUGS_HOME:}}")
+    private String spotBugsHome;
+
+    @Value("${findbugs.command.priority}")
+    private String findBugsPriority;
+
+    private IsolatedClassLoader classLoader;
+    private SpotBugsEngine engine;
+
+    /***
+     * Analyses the JARs of each module in a single SpotBugs run.
+     * @param repositoryModel the repository model object
+     * @param jarsByModule absolute paths of the JARs, by module folder
+     * @return set of bugs
+     */
+    @Override
+    Set<CommitTD> analyseModules(RepositoryModel repositoryModel, Map<String, List<String>> jarsByModule) {
+        Set<CommitTD> results = new HashSet<>();
+        for (Map.Entry<String, List<String>> module : jarsByModule.entrySet()) {
+            LOGGER.info(String.format("Starting in-process analysis of %d JARs in module '%s' of project %s",
+                    module.getValue().size(), module.getKey(), repositoryModel.getName()));
+            try {
+                Set<CommitTD> items = getEngine().analyse(module.getValue(), findBugsPriority);
+                items.forEach(item -> item.setModule(module.getKey()));
+                results.addAll(items);
+            } catch (Exception e) {
+                LOGGER.error(String.format("An error occurred when analysing project %s", repositoryModel.getName()),
+                        e);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the engine, loading SpotBugs on first use.
+     */
+    synchronized SpotBugsEngine getEngine() throws ReflectiveOperationException, IOException {
+        if (engine == null) {
+            classLoader = new IsolatedClassLoader(getClassPath(), getClass().getClassLoader(), SHARED_PREFIXES,
+                    ISOLATED_PREFIXES);
+            engine = (SpotBugsEngine) classLoader.loadClass(ENGINE_CLASS).newInstance();
+            LOGGER.info(String.format("Loaded SpotBugs from %s", spotBugsHome));
+        }
+
+        return engine;
+    }
+
+    /**
+     * Returns the JARs of the SpotBugs installation. The engine classes are
+     * defined by the isolated class loader from the application's class files.
+     */
+    URL[] getClassPath() throws IOException {
+        if (spotBugsHome == null || spotBugsHome.isEmpty()) {
+            throw new IOException("spotbugs.home is not set");
+        }
+
+        List<URL> urls = new ArrayList<>();
+        Path lib = Paths.get(spotBugsHome, LIB_FOLDER);
+        try (Stream<Path> files = Files.list(lib)) {
+            for (Path jar : (Iterable<Path>) files.filter(path -> path.toString().endsWith(".jar"))::iterator) {
+                urls.add(toURL(jar.toFile()));
+            }
+        }
+
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        engine = null;
+        if (classLoader != null) {
+            classLoader.close();
+            classLoader = null;
+        }
+    }
+
+    private static URL toURL(File file) throws MalformedURLException {
+        return file.toURI().toURL();
+    }
+}
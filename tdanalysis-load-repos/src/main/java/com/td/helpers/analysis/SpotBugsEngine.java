@@ -0,0 +1,22 @@
+package com.td.helpers.analysis;
+
+import java.util.List;
+import java.util.Set;
+
+import com.td.models.CommitTD;
+
+/**
+ * Runs SpotBugs on a set of JARs in the current JVM. Implementations are
+ * loaded through an {@link IsolatedClassLoader}, so this interface must only
+ * use types that are shared with the application.
+ */
+public interface SpotBugsEngine {
+
+    /**
+     * Analyses the JARs and returns the bugs found.
+     * @param jars absolute paths of the JARs to analyse
+     * @param priority minimum priority to report, as in the command line
+     * (-low, -medium or -high)
+     */
+    Set<CommitTD> analyse(List<String> jars, String priority) throws Exception;
+}
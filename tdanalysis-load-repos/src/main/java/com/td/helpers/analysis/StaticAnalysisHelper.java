@@ -1,8 +1,17 @@
 package com.td.helpers.analysis;
 
+import java.util.Collection;
+
 import com.td.models.RepositoryModel;
 import com.td.models.TechnicalDebt;
 
 public interface StaticAnalysisHelper {
     TechnicalDebt executeAnalysis(RepositoryModel repository);
+
+    /**
+     * Analyses only the given modules, which were just rebuilt, and takes the
+     * results of all other modules from the baseline.
+     */
+    TechnicalDebt executeModuleAnalysis(RepositoryModel repository, Collection<String> modules,
+            TechnicalDebt baseline);
 }
\ No newline at end of file
@@ -3,9 +3,9 @@ package com.td.helpers.analysis;
 import java.util.Optional;
 
 import com.td.models.CommitTD;
+import com.td.models.TechnicalDebtInterner;
 import com.td.models.TechnicalDebtPriority;
 import com.td.models.CommitTD.CodeLocation;
-import com.td.models.TechnicalDebtItem.CompositeKey;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,93 +14,144 @@ public class TechnicalDebtMapper {
 
     private static final Logger logger = LoggerFactory.getLogger(TechnicalDebtMapper.class);
 
-    static final String SEPARATOR = ":";
+    static final char SEPARATOR = ':';
+
+    // denotes the line range following the file name
+    static final String SEPARATOR_LINES = ":[line";
 
     // denotes lines
-    static final String SEPARATOR_AT = "at ";
+    static final String SEPARATOR_AT = "at";
 
     // denotes class
-    static final String SEPARATOR_IN = "in ";
+    static final String SEPARATOR_IN = "in";
 
+    /**
+     * Parses a line of findbugs text output in a single pass over the line,
+     * only allocating the strings kept by the resulting item.
+     * E.g. M D NP: executor must be non-null but is marked as nullable  At AsyncCompleter.java:[line 287]
+     */
     public static Optional<CommitTD> parseFindBugsOutput(String line) {
+        int codesEnd = line.indexOf(SEPARATOR);
+        if (codesEnd < 0) {
+            return Optional.empty();
+        }
 
-        try {
-            CommitTD result = new CommitTD();
-            int firstIndex = line.indexOf(SEPARATOR);
-
-            if (firstIndex < 0) {
-                return Optional.empty();
-            }
-
-            String[] codes = line.substring(0, firstIndex).split(" ");
-
-            String categoryInitial = codes[1];
-            String issueCode = codes[2];
-            CodeLocation location = parseLocation(line);
-            TechnicalDebtPriority priority = getPriority(codes[0]);
-
-            result.setId(new CompositeKey(categoryInitial, issueCode));
-            result.setLocation(location);
-            result.setPriority(priority);
-
-            return Optional.of(result);
-        } catch (Exception e) {
-            /**
-             * I know this is generic, and things like this should not appear in
-             * the code. However, findbugs output is a mess and it extremely
-             * difficult to parse. There might be some lines of the output which
-             * are weird and not covered by the parsing algorithm.
-             *
-             * This try-catch block aims to cover these issues and keep the
-             * thread running in case of an exception. The line will be ignored
-             * in such cases.
-             */
+        // priority, category and issue code, separated by single spaces
+        int categoryStart = line.indexOf(' ') + 1;
+        int codeStart = line.indexOf(' ', categoryStart) + 1;
+        if (categoryStart != 2 || codeStart <= categoryStart || codeStart >= codesEnd) {
+            return Optional.empty();
+        }
+
+        int codeEnd = line.indexOf(' ', codeStart);
+        if (codeEnd < 0 || codeEnd > codesEnd) {
+            codeEnd = codesEnd;
+        }
+
+        CodeLocation location = parseLocation(line);
+        if (location == null) {
             logger.error("An error occurred while parsing findbugs output.");
             logger.error("Line error: " + line);
             return Optional.empty();
         }
+
+        TechnicalDebtPriority priority = getPriority(line.charAt(0));
+        String categoryInitial = line.substring(categoryStart, codeStart - 1);
+        String issueCode = line.substring(codeStart, codeEnd);
+
+        return Optional.of(createCommitTD(priority, categoryInitial, issueCode, location));
     }
 
     /**
-     * Parses a line of findbugs output to CodeLocation object.
-     * E.g. M D NP: executor must be non-null but is marked as nullable  At AsyncCompleter.java:[line 287]
+     * Parses the location of a line of findbugs output, which is either
+     * At File.java:[line 287], At File.java:[lines 62-80] or, at the end of the
+     * line, In File.java. Returns null if the line has no location.
      */
     public static CodeLocation parseLocation(String line) {
-        String lowerCaseLine = line.toLowerCase();
-        int separatorAt = lowerCaseLine.lastIndexOf(SEPARATOR_AT);
-        int separatorIn = lowerCaseLine.lastIndexOf(SEPARATOR_IN);
-
-        if (separatorAt < 0) {
-            return parseClassLocation(line.substring(separatorIn));
+        int separatorIndex = line.lastIndexOf(SEPARATOR_LINES);
+        if (separatorIndex >= 0) {
+            return parseCodeLocation(line, separatorIndex);
         }
 
-        return parseCodeLocation(line.substring(separatorAt));
+        return parseClassLocation(line);
     }
 
+    /**
+     * Parses In File.java at the end of the line.
+     */
     static CodeLocation parseClassLocation(String line) {
-        String className = line.split(" ")[1].trim();
-        return new CodeLocation(className, null);
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+
+        int nameStart = line.lastIndexOf(' ', end - 1) + 1;
+        if (nameStart >= end || !isPrecededBy(line, nameStart, SEPARATOR_IN)) {
+            return null;
+        }
+
+        return new CodeLocation(line.substring(nameStart, end), null);
+    }
+
+    /**
+     * Parses At File.java:[lines 62-80], given the index of its :[line part.
+     */
+    static CodeLocation parseCodeLocation(String line, int separatorIndex) {
+        int bracketOpenIndex = separatorIndex + 1;
+        int bracketClosedIndex = line.indexOf(']', bracketOpenIndex);
+        int linesStart = line.indexOf(' ', bracketOpenIndex) + 1;
+        int nameStart = line.lastIndexOf(' ', separatorIndex) + 1;
+
+        if (bracketClosedIndex < 0 || linesStart <= 0 || linesStart >= bracketClosedIndex
+                || nameStart >= separatorIndex || !isPrecededBy(line, nameStart, SEPARATOR_AT)) {
+            return null;
+        }
+
+        return new CodeLocation(line.substring(nameStart, separatorIndex),
+                line.substring(linesStart, bracketClosedIndex));
+    }
+
+    /**
+     * Checks that the word before the given index is the keyword, ignoring case.
+     */
+    static boolean isPrecededBy(String line, int index, String keyword) {
+        int keywordStart = index - keyword.length() - 1;
+        return keywordStart >= 0 && line.charAt(index - 1) == ' '
+                && line.regionMatches(true, keywordStart, keyword, 0, keyword.length())
+                && (keywordStart == 0 || line.charAt(keywordStart - 1) == ' ');
     }
 
-    static CodeLocation parseCodeLocation(String line) {
-        int separatorIndex = line.lastIndexOf(SEPARATOR);
-        int nameIndex = line.indexOf("At ") + 3; // note the space
-        int bracketOpenIndex = line.indexOf("[");
-        int bracketClosedIndex = line.indexOf("]");
+    /**
+     * Creates a technical debt item from the fields reported by the analysis.
+     */
+    public static CommitTD createCommitTD(TechnicalDebtPriority priority, String categoryInitial, String issueCode,
+            CodeLocation location) {
+        CommitTD result = new CommitTD();
+        result.setId(TechnicalDebtInterner.key(categoryInitial, issueCode));
+        result.setLocation(TechnicalDebtInterner.intern(location));
+        result.setPriority(priority);
+        return result;
+    }
 
-        String className = line.substring(nameIndex, separatorIndex).trim();
-        String location = line.substring(bracketOpenIndex + 1, bracketClosedIndex).split(" ")[1];
+    /**
+     * Formats a line range the way the findbugs text output does, e.g. 108 or
+     * 62-80. Returns null if the range is unknown.
+     */
+    public static String formatLines(int start, int end) {
+        if (start <= 0) {
+            return null;
+        }
 
-        return new CodeLocation(className, location);
+        return end <= start ? Integer.toString(start) : start + "-" + end;
     }
 
-    static TechnicalDebtPriority getPriority(String c) {
+    static TechnicalDebtPriority getPriority(char c) {
         switch (c) {
-        case "H":
+        case 'H':
             return TechnicalDebtPriority.HIGH;
-        case "M":
+        case 'M':
             return TechnicalDebtPriority.MEDIUM;
-        case "L":
+        case 'L':
         default:
             return TechnicalDebtPriority.LOW;
         }
@@ -0,0 +1,108 @@
+package com.td.helpers.analysis.spotbugs;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.td.helpers.analysis.SpotBugsEngine;
+import com.td.helpers.analysis.TechnicalDebtMapper;
+import com.td.models.CommitTD;
+import com.td.models.CommitTD.CodeLocation;
+import com.td.models.TechnicalDebtInterner;
+import com.td.models.TechnicalDebtPriority;
+
+import edu.umd.cs.findbugs.BugCollectionBugReporter;
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugPattern;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.DetectorFactoryCollection;
+import edu.umd.cs.findbugs.FindBugs;
+import edu.umd.cs.findbugs.FindBugs2;
+import edu.umd.cs.findbugs.MethodAnnotation;
+import edu.umd.cs.findbugs.Priorities;
+import edu.umd.cs.findbugs.Project;
+import edu.umd.cs.findbugs.SourceLineAnnotation;
+import edu.umd.cs.findbugs.config.UserPreferences;
+
+/**
+ * Drives the SpotBugs engine directly instead of through its command line.
+ * This class is loaded by an isolated class loader together with SpotBugs,
+ * which keeps the detector plugins loaded and the JIT warm between runs.
+ */
+public class InProcessSpotBugsEngine implements SpotBugsEngine {
+
+    @Override
+    public Set<CommitTD> analyse(List<String> jars, String priority) throws Exception {
+        Project project = new Project();
+        jars.forEach(project::addFile);
+
+        BugCollectionBugReporter reporter = new BugCollectionBugReporter(project);
+        reporter.setPriorityThreshold(getPriorityThreshold(priority));
+        reporter.setErrorVerbosity(BugReporter.SILENT);
+
+        FindBugs2 engine = new FindBugs2();
+        try {
+            engine.setBugReporter(reporter);
+            engine.setProject(project);
+            engine.setDetectorFactoryCollection(DetectorFactoryCollection.instance());
+            engine.setUserPreferences(UserPreferences.createDefaultUserPreferences());
+            engine.setAnalysisFeatureSettings(FindBugs.DEFAULT_EFFORT);
+            engine.setNoClassOk(true);
+            engine.execute();
+        } finally {
+            engine.dispose();
+        }
+
+        Set<CommitTD> results = new HashSet<>();
+        for (BugInstance bug : reporter.getBugCollection()) {
+            results.add(toCommitTD(bug));
+        }
+
+        return results;
+    }
+
+    private CommitTD toCommitTD(BugInstance bug) {
+        BugPattern pattern = bug.getBugPattern();
+        SourceLineAnnotation line = bug.getPrimarySourceLineAnnotation();
+
+        CodeLocation location = new CodeLocation(line.getSourceFile(),
+                TechnicalDebtMapper.formatLines(line.getStartLine(), line.getEndLine()));
+
+        CommitTD result = TechnicalDebtMapper.createCommitTD(getPriority(bug.getPriority()),
+                pattern.getCategoryAbbrev(), pattern.getAbbrev(), location);
+        result.setRank(bug.getBugRank());
+
+        MethodAnnotation method = bug.getPrimaryMethod();
+        if (method != null) {
+            result.setMethod(TechnicalDebtInterner.intern(method.getClassName() + "." + method.getMethodName()));
+        }
+
+        return result;
+    }
+
+    private TechnicalDebtPriority getPriority(int priority) {
+        switch (priority) {
+        case Priorities.HIGH_PRIORITY:
+            return TechnicalDebtPriority.HIGH;
+        case Priorities.NORMAL_PRIORITY:
+            return TechnicalDebtPriority.MEDIUM;
+        default:
+            return TechnicalDebtPriority.LOW;
+        }
+    }
+
+    /**
+     * Maps the command line priority flag to the reporter threshold.
+     */
+    private int getPriorityThreshold(String priority) {
+        switch (priority == null ? "" : priority) {
+        case "-high":
+            return Priorities.HIGH_PRIORITY;
+        case "-medium":
+            return Priorities.NORMAL_PRIORITY;
+        case "-low":
+        default:
+            return Priorities.LOW_PRIORITY;
+        }
+    }
+}
@@ -1,39 +1,124 @@
 package com.td.helpers.building;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
+import com.td.helpers.process.OutputHandler.Action;
+import com.td.helpers.process.ProcessPolicy;
+import com.td.helpers.process.ProcessResult;
+import com.td.helpers.process.ProcessSupervisor;
 import com.td.models.BuildStatus;
 import com.td.models.RepositoryModel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 public abstract class BuildHelper {
 
     private static final Logger logger = LoggerFactory.getLogger(BuildHelper.class);
     protected final String BUILD_FAILURE_MESSAGE = "BUILD FAILURE";
 
+    @Autowired
+    protected ProcessSupervisor processSupervisor;
+
+    /**
+     * Builds running longer than this are killed.
+     */
+    @Value("${build.timeout.minutes:60}")
+    private long buildTimeout;
+
+    /**
+     * Builds printing nothing for longer than this are killed.
+     */
+    @Value("${build.idle.timeout.minutes:20}")
+    private long buildIdleTimeout;
+
     public abstract BuildStatus buildRepository(RepositoryModel repo);
 
+    /***
+     * Builds the given modules and the modules depending on them. Build tools
+     * without module support build the whole project.
+     * @param repo the repository model
+     * @param modules module folders relative to the project folder
+     * @return status of the build
+     */
+    public BuildStatus buildModules(RepositoryModel repo, Collection<String> modules) {
+        return buildRepository(repo);
+    }
+
+    /***
+     * Returns the given modules and the modules depending on them, which are
+     * built with them by {@link #buildModules}.
+     * @param projectFolder root folder of the project
+     * @param modules module folders relative to the project folder
+     */
+    public Set<String> getDependentModules(File projectFolder, Collection<String> modules) {
+        return new TreeSet<>(modules);
+    }
+
+    /***
+     * Checks whether the helper can build single modules of a project.
+     */
+    public boolean supportsModules() {
+        return false;
+    }
+
+    /***
+     * Returns the names of the files that identify a project of the build tool.
+     */
+    public abstract List<String> getBuildFiles();
+
+    /***
+     * Checks whether the command runs the build tool of this helper.
+     */
+    public abstract boolean isBuildCommand(String command);
+
+    /***
+     * Checks whether the project folder contains a build file of the tool.
+     */
+    public boolean canBuild(File projectFolder) {
+        return getBuildFiles().stream().anyMatch(file -> new File(projectFolder, file).isFile());
+    }
+
+    protected List<String> splitCommand(String command) {
+        return Arrays.asList(command.trim().split("\\s+"));
+    }
+
+    protected boolean isExecutable(String command, List<String> executables) {
+        if (command == null || command.trim().isEmpty()) {
+            return false;
+        }
+
+        String executable = splitCommand(command).get(0);
+        return executables.contains(Paths.get(executable).getFileName().toString());
+    }
+
+    protected ProcessPolicy getBuildPolicy() {
+        return ProcessPolicy.ofMinutes(buildTimeout, buildIdleTimeout);
+    }
+
+    /***
+     * Runs a build process under supervision. The process is killed as soon
+     * as its output reports a build failure, or when it times out.
+     */
     protected BuildStatus startBuildProcess(ProcessBuilder builder) {
         try {
-            Process p = builder.start();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                logger.info(line);
-                if (line.contains(BUILD_FAILURE_MESSAGE)) {
-                    p.destroy();
-                    return BuildStatus.FAILED;
-                }
-            }
-            p.waitFor();
-            p.destroy();
-
-            return BuildStatus.SUCCESSFUL;
-        } catch (IOException | InterruptedException e) {
+            ProcessResult result = processSupervisor.run("build in " + builder.directory(), builder,
+                    getBuildPolicy(), line -> {
+                        logger.info(line);
+                        return line.contains(BUILD_FAILURE_MESSAGE) ? Action.ABORT : Action.CONTINUE;
+                    });
+
+            return result.isSuccessful() ? BuildStatus.SUCCESSFUL : BuildStatus.FAILED;
+        } catch (IOException e) {
             logger.error("An error occurred when building repository", e);
             return BuildStatus.FAILED;
         }
@@ -0,0 +1,47 @@
+package com.td.helpers.building;
+
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.td.models.RepositoryModel;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Selects the build helper of a repository from the build files present in
+ * its project folder. When several build tools apply, the one of the
+ * repository build command is preferred.
+ */
+@Component
+public class BuildHelperResolver {
+
+    private final List<BuildHelper> buildHelpers;
+
+    @Autowired
+    public BuildHelperResolver(List<BuildHelper> buildHelpers) {
+        this.buildHelpers = buildHelpers;
+    }
+
+    /***
+     * Returns the build helper for the current revision of the repository.
+     * @param repo the repository model
+     * @return the build helper, or empty if no build tool is recognised
+     */
+    public Optional<BuildHelper> getBuildHelper(RepositoryModel repo) {
+        File folder = repo.getProjectFolder();
+        List<BuildHelper> candidates = buildHelpers.stream().filter(helper -> helper.canBuild(folder))
+                .collect(Collectors.toList());
+
+        // without build files at the root, rely on the build command alone
+        Optional<BuildHelper> byCommand = (candidates.isEmpty() ? buildHelpers : candidates).stream()
+                .filter(helper -> helper.isBuildCommand(repo.getBuildCommand())).findFirst();
+        if (byCommand.isPresent() || candidates.isEmpty()) {
+            return byCommand;
+        }
+
+        return Optional.of(candidates.get(0));
+    }
+}
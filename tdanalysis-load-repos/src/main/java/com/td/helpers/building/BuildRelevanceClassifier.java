@@ -0,0 +1,66 @@
+package com.td.helpers.building;
+
+import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.td.models.CommitDiff;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether the changes of a commit can affect the result of the build
+ * and analysis, based on a list of path globs (sources, poms, build scripts).
+ * Commits that only change other files (README, docs, CI config, test
+ * resources) produce the same build as their parent.
+ */
+@Component
+public class BuildRelevanceClassifier {
+
+    static final String DEFAULT_PATTERNS = "**.java,pom.xml,**/pom.xml,*.gradle,**/*.gradle,*.gradle.kts,"
+            + "**/*.gradle.kts,gradle.properties,**/gradle.properties,src/main/**,**/src/main/**";
+
+    private static final String GLOB = "glob:";
+
+    private final List<PathMatcher> matchers;
+
+    public BuildRelevanceClassifier(@Value("${build.relevant.paths:" + DEFAULT_PATTERNS + "}") String[] patterns) {
+        this.matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (!pattern.trim().isEmpty()) {
+                matchers.add(FileSystems.getDefault().getPathMatcher(GLOB + pattern.trim()));
+            }
+        }
+    }
+
+    /**
+     * Returns true if any path added, modified or deleted by the commit is
+     * relevant to the build. A missing diff is treated as relevant.
+     */
+    public boolean isRelevant(CommitDiff diff) {
+        if (diff == null) {
+            return true;
+        }
+
+        return Stream.of(diff.getAdditionSet(), diff.getModificationSet(), diff.getDeletionSet())
+                .filter(paths -> paths != null).flatMap(List::stream).anyMatch(this::isRelevant);
+    }
+
+    /**
+     * Returns true if the path, relative to the repository root, matches any
+     * of the configured globs.
+     */
+    public boolean isRelevant(String path) {
+        try {
+            return matchers.stream().anyMatch(matcher -> matcher.matches(Paths.get(path)));
+        } catch (InvalidPathException e) {
+            // cannot tell, so assume the worst
+            return true;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.td.helpers.building;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import com.td.helpers.process.ProcessWatch;
+import com.td.models.BuildStatus;
+import com.td.models.RepositoryModel;
+
+import org.gradle.tooling.BuildException;
+import org.gradle.tooling.BuildLauncher;
+import org.gradle.tooling.CancellationTokenSource;
+import org.gradle.tooling.GradleConnectionException;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProjectConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds Gradle projects through the Tooling API. Connections are kept per
+ * project folder, so successive commits are built by the same warm Gradle
+ * daemon and can share its build cache.
+ */
+@Component
+@Order(2)
+public class GradleBuildHelper extends BuildHelper {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradleBuildHelper.class);
+
+    private static final List<String> BUILD_FILES = Arrays.asList("build.gradle", "build.gradle.kts",
+            "settings.gradle", "settings.gradle.kts");
+    private static final List<String> GRADLE_EXECUTABLES = Arrays.asList("gradle", "gradle.bat", "gradlew",
+            "gradlew.bat");
+
+    // options whose value is a separate command line token
+    private static final List<String> OPTIONS_WITH_VALUE = Arrays.asList("-x", "--exclude-task", "-b",
+            "--build-file", "-c", "--settings-file", "-p", "--project-dir", "-I", "--init-script");
+
+    private static final String BUILD_CACHE_FLAG = "--build-cache";
+    private static final String NO_BUILD_CACHE_FLAG = "--no-build-cache";
+    private static final String WRAPPER_PROPERTIES = "gradle/wrapper/gradle-wrapper.properties";
+    private static final String DISTRIBUTION_URL = "distributionUrl";
+
+    /**
+     * Used when the build command of the repository is not a Gradle command.
+     */
+    @Value("${gradle.default.command:gradle clean build}")
+    private String defaultCommand;
+
+    /**
+     * Installation used for projects without a Gradle wrapper.
+     */
+    @Value("${gradle.home:${GRADLE_HOME:}}")
+    private String gradleHome;
+
+    @Value("${gradle.build.cache:true}")
+    private boolean buildCache;
+
+    @Value("${gradle.daemon.jvm.options:}")
+    private String[] daemonJvmOptions;
+
+    private final Map<File, GradleProject> projects = new ConcurrentHashMap<>();
+
+    @Override
+    public BuildStatus buildRepository(RepositoryModel repo) {
+        List<String> tasks = new ArrayList<>();
+        List<String> arguments = new ArrayList<>();
+        String command = isBuildCommand(repo.getBuildCommand()) ? repo.getBuildCommand() : defaultCommand;
+        parseCommand(command, tasks, arguments);
+
+        if (buildCache && !arguments.contains(BUILD_CACHE_FLAG) && !arguments.contains(NO_BUILD_CACHE_FLAG)) {
+            arguments.add(BUILD_CACHE_FLAG);
+        }
+
+        logger.info(String.format("Starting Gradle build of tasks %s for repository %s", tasks, repo.getName()));
+        File folder = repo.getProjectFolder();
+        CancellationTokenSource cancellation = GradleConnector.newCancellationTokenSource();
+        try (ProcessWatch watch = processSupervisor.watch("Gradle build in " + folder, getBuildPolicy(),
+                cancellation::cancel); OutputStream output = new LoggingOutputStream(watch)) {
+            BuildLauncher launcher = getConnection(folder).newBuild();
+            launcher.withCancellationToken(cancellation.token());
+            launcher.forTasks(tasks.toArray(new String[tasks.size()]));
+            launcher.withArguments(arguments.toArray(new String[arguments.size()]));
+            launcher.setStandardOutput(output);
+            launcher.setStandardError(output);
+
+            List<String> jvmOptions = getDaemonJvmOptions();
+            if (!jvmOptions.isEmpty()) {
+                launcher.setJvmArguments(jvmOptions.toArray(new String[jvmOptions.size()]));
+            }
+
+            launcher.run();
+            return BuildStatus.SUCCESSFUL;
+        } catch (BuildException e) {
+            logger.error(String.format("Gradle build failed for repository %s", repo.getName()));
+            return BuildStatus.FAILED;
+        } catch (GradleConnectionException | IllegalStateException | IOException e) {
+            logger.error("An error occurred when building repository with Gradle", e);
+            closeProject(folder);
+            return BuildStatus.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BuildStatus.FAILED;
+        }
+    }
+
+    @Override
+    public List<String> getBuildFiles() {
+        return BUILD_FILES;
+    }
+
+    @Override
+    public boolean isBuildCommand(String command) {
+        return isExecutable(command, GRADLE_EXECUTABLES);
+    }
+
+    /***
+     * Splits a Gradle command line into task names and arguments, dropping
+     * the executable.
+     * @param command the build command
+     * @param tasks receives the task names
+     * @param arguments receives the options and their values
+     */
+    void parseCommand(String command, List<String> tasks, List<String> arguments) {
+        List<String> tokens = splitCommand(command);
+        boolean optionValue = false;
+        for (String token : tokens.subList(1, tokens.size())) {
+            if (optionValue || token.startsWith("-")) {
+                arguments.add(token);
+                optionValue = OPTIONS_WITH_VALUE.contains(token);
+            } else {
+                tasks.add(token);
+            }
+        }
+    }
+
+    /**
+     * Returns the connection of the project folder. It is replaced when the
+     * Gradle wrapper of the checked out revision points to another
+     * distribution.
+     */
+    private ProjectConnection getConnection(File folder) {
+        String distribution = getWrapperDistribution(folder);
+        GradleProject project = projects.get(folder);
+        if (project != null && !project.distribution.equals(distribution)) {
+            closeProject(folder);
+            project = null;
+        }
+
+        if (project == null) {
+            logger.info(String.format("Connecting to Gradle project in %s", folder));
+            GradleConnector connector = GradleConnector.newConnector().forProjectDirectory(folder);
+            if (distribution.isEmpty() && gradleHome != null && !gradleHome.isEmpty()) {
+                connector.useInstallation(new File(gradleHome));
+            }
+
+            ProjectConnection connection = connector.connect();
+            project = new GradleProject(connection, distribution);
+            projects.put(folder, project);
+        }
+
+        return project.connection;
+    }
+
+    private String getWrapperDistribution(File folder) {
+        File wrapper = new File(folder, WRAPPER_PROPERTIES);
+        if (!wrapper.isFile()) {
+            return "";
+        }
+
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(wrapper)) {
+            properties.load(input);
+        } catch (IOException e) {
+            logger.warn(String.format("Could not read %s", wrapper));
+        }
+        return properties.getProperty(DISTRIBUTION_URL, "");
+    }
+
+    private List<String> getDaemonJvmOptions() {
+        List<String> options = new ArrayList<>();
+        if (daemonJvmOptions != null) {
+            Arrays.stream(daemonJvmOptions).filter(option -> !option.trim().isEmpty()).map(String::trim)
+                    .forEach(options::add);
+        }
+        return options;
+    }
+
+    private void closeProject(File folder) {
+        GradleProject project = projects.remove(folder);
+        if (project != null) {
+            project.connection.close();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        new ArrayList<>(projects.keySet()).forEach(this::closeProject);
+    }
+
+    private static class GradleProject {
+        private final ProjectConnection connection;
+        private final String distribution;
+
+        GradleProject(ProjectConnection connection, String distribution) {
+            this.connection = connection;
+            this.distribution = distribution;
+        }
+    }
+
+    /**
+     * Writes the build output to the log, one line at a time, and reports it
+     * as progress of the build.
+     */
+    private static class LoggingOutputStream extends OutputStream {
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final ProcessWatch watch;
+
+        LoggingOutputStream(ProcessWatch watch) {
+            this.watch = watch;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            watch.touch();
+            if (b == '\n') {
+                flushLine();
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            flushLine();
+        }
+
+        private void flushLine() {
+            if (line.size() > 0) {
+                logger.info(new String(line.toByteArray(), Charset.defaultCharset()));
+                line.reset();
+            }
+        }
+    }
+}
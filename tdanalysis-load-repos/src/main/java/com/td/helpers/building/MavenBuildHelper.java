@@ -1,24 +1,44 @@
 package com.td.helpers.building;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
 
 import com.td.models.BuildStatus;
 import com.td.models.RepositoryModel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 @Component
-public class MavenBuildHelper {
+@Order(1)
+public class MavenBuildHelper extends BuildHelper {
 
     private static final Logger logger = LoggerFactory.getLogger(MavenBuildHelper.class);
-    protected final String BUILD_FAILURE_MESSAGE = "BUILD FAILURE";
+
+    private static final List<String> BUILD_FILES = Arrays.asList("pom.xml");
+    private static final List<String> MAVEN_EXECUTABLES = Arrays.asList("mvn", "mvn.cmd", "mvn.bat");
+    private static final List<String> WRAPPER_EXECUTABLES = Arrays.asList("mvnw", "mvnw.cmd");
+    private static final String BATCH_MODE_FLAG = "-B";
+    private static final String PROJECT_LIST_FLAG = "-pl";
+    private static final String ALSO_MAKE_FLAG = "-am";
+    private static final String ALSO_MAKE_DEPENDENTS_FLAG = "-amd";
 
     private static final List<String> PERFORMANCE_FLAGS = new ArrayList<String>() {
         private static final long serialVersionUID = 1L;
@@ -28,11 +48,60 @@ public class MavenBuildHelper {
         }
     };
 
+    @Value("${maven.daemon.enabled:true}")
+    private boolean daemonEnabled;
+
+    @Value("${maven.home:${MAVEN_HOME:${M2_HOME:}}}")
+    private String mavenHome;
+
+    @Value("${maven.daemon.jvm.options:}")
+    private String[] daemonJvmOptions;
+
+    @Value("${maven.daemon.max.builds:50}")
+    private int daemonMaxBuilds;
+
+    // warm daemons not running a build, at most one per concurrent worker
+    private final Queue<MavenDaemon> idleDaemons = new ConcurrentLinkedQueue<>();
+
+    @Override
     public BuildStatus buildRepository(RepositoryModel repo) {
-        ProcessBuilder builder = new ProcessBuilder();
-        List<String> commands = new ArrayList<>(Arrays.asList(repo.getBuildCommand().split(" ")));
+        return build(repo, Collections.emptyList());
+    }
+
+    /***
+     * Builds the modules, the modules they depend on and their dependents in
+     * the reactor. Modules of the reactor are never resolved from the local
+     * repository, which may hold them in another version or not at all.
+     */
+    @Override
+    public BuildStatus buildModules(RepositoryModel repo, Collection<String> modules) {
+        logger.info(String.format("Building modules %s of repository %s", modules, repo.getName()));
+        return build(repo, Arrays.asList(PROJECT_LIST_FLAG, String.join(",", modules), ALSO_MAKE_FLAG,
+                ALSO_MAKE_DEPENDENTS_FLAG));
+    }
+
+    @Override
+    public Set<String> getDependentModules(File projectFolder, Collection<String> modules) {
+        return MavenReactor.read(projectFolder).getDependents(modules);
+    }
+
+    @Override
+    public boolean supportsModules() {
+        return true;
+    }
+
+    private BuildStatus build(RepositoryModel repo, List<String> arguments) {
+        List<String> commands = new ArrayList<>(splitCommand(repo.getBuildCommand()));
         commands.addAll(PERFORMANCE_FLAGS);
+        commands.addAll(arguments);
+
+        File home = daemonEnabled ? getMavenHome() : null;
+        if (home != null && isMavenExecutable(commands.get(0))) {
+            logger.info(String.format("Starting daemon build for repository %s", repo.getName()));
+            return buildWithDaemon(home, repo, commands.subList(1, commands.size()));
+        }
 
+        ProcessBuilder builder = new ProcessBuilder();
         builder.command(commands);
         builder.directory(repo.getProjectFolder());
 
@@ -40,27 +109,122 @@ public class MavenBuildHelper {
         return startBuildProcess(builder);
     }
 
-    protected BuildStatus startBuildProcess(ProcessBuilder builder) {
+    /***
+     * Runs the build in an idle Maven daemon, starting one if none is
+     * available. Daemons that terminated or reached the maximum number of
+     * builds are replaced, which bounds leaks from plugins.
+     * @param home the Maven installation
+     * @param repo the repository model
+     * @param arguments Maven arguments
+     * @return status of the build
+     */
+    BuildStatus buildWithDaemon(File home, RepositoryModel repo, List<String> arguments) {
+        List<String> daemonArguments = new ArrayList<>(arguments);
+        if (!daemonArguments.contains(BATCH_MODE_FLAG)) {
+            // the daemon reads its requests from stdin
+            daemonArguments.add(0, BATCH_MODE_FLAG);
+        }
+
+        MavenDaemon daemon = idleDaemons.poll();
         try {
-            Process p = builder.start();
-            logger.info("Process builder started...");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            String line;
-            BuildStatus status = BuildStatus.SUCCESSFUL;
-            while ((line = reader.readLine()) != null) {
+            if (daemon == null) {
+                logger.info(String.format("Starting Maven daemon from %s", home));
+                daemon = MavenDaemon.start(home, getDaemonJvmOptions(), processSupervisor);
+            }
+
+            AtomicBoolean failure = new AtomicBoolean(false);
+            int exitCode = daemon.build(repo.getProjectFolder(), daemonArguments, getBuildPolicy(), line -> {
                 logger.info(line);
                 if (line.contains(BUILD_FAILURE_MESSAGE)) {
-                    status = BuildStatus.FAILED;
+                    failure.set(true);
                 }
-            }
-            p.waitFor();
+            });
 
-            return status;
-        } catch (Exception e) {
-            logger.error("An error occurred when building repository", e);
-            e.printStackTrace();
+            return exitCode == 0 && !failure.get() ? BuildStatus.SUCCESSFUL : BuildStatus.FAILED;
+        } catch (IOException e) {
+            logger.error("An error occurred when building repository in Maven daemon", e);
             return BuildStatus.FAILED;
+        } finally {
+            releaseDaemon(daemon);
+        }
+    }
+
+    private void releaseDaemon(MavenDaemon daemon) {
+        if (daemon == null) {
+            return;
         }
+
+        if (daemon.isAlive() && daemon.getBuilds() < daemonMaxBuilds) {
+            idleDaemons.offer(daemon);
+        } else {
+            daemon.close();
+        }
+    }
+
+    private List<String> getDaemonJvmOptions() {
+        List<String> options = new ArrayList<>();
+        if (daemonJvmOptions != null) {
+            Arrays.stream(daemonJvmOptions).filter(option -> !option.trim().isEmpty()).map(String::trim)
+                    .forEach(options::add);
+        }
+        return options;
+    }
+
+    /**
+     * Returns the configured Maven installation, or the one of the mvn
+     * executable on the PATH.
+     */
+    File getMavenHome() {
+        if (mavenHome == null || mavenHome.isEmpty()) {
+            mavenHome = findMavenHomeOnPath();
+        }
+
+        if (mavenHome.isEmpty() || !new File(mavenHome, "boot").isDirectory()) {
+            return null;
+        }
+
+        return new File(mavenHome);
     }
 
+    private String findMavenHomeOnPath() {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return "";
+        }
+
+        for (String folder : path.split(File.pathSeparator)) {
+            Path executable = Paths.get(folder, "mvn");
+            if (Files.isExecutable(executable)) {
+                try {
+                    return executable.toRealPath().getParent().getParent().toString();
+                } catch (IOException e) {
+                    logger.warn(String.format("Could not resolve %s", executable));
+                }
+            }
+        }
+
+        return "";
+    }
+
+    boolean isMavenExecutable(String command) {
+        return isExecutable(command, MAVEN_EXECUTABLES);
+    }
+
+    @Override
+    public List<String> getBuildFiles() {
+        return BUILD_FILES;
+    }
+
+    @Override
+    public boolean isBuildCommand(String command) {
+        return isExecutable(command, MAVEN_EXECUTABLES) || isExecutable(command, WRAPPER_EXECUTABLES);
+    }
+
+    @PreDestroy
+    void close() {
+        MavenDaemon daemon;
+        while ((daemon = idleDaemons.poll()) != null) {
+            daemon.close();
+        }
+    }
 }
@@ -0,0 +1,174 @@
+package com.td.helpers.building;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.td.helpers.process.OutputHandler.Action;
+import com.td.helpers.process.ProcessPolicy;
+import com.td.helpers.process.ProcessResult;
+import com.td.helpers.process.ProcessSupervisor;
+import com.td.helpers.process.TerminationReason;
+
+/**
+ * Handle to a long running Maven process started with {@link MavenDaemonMain}.
+ * A daemon runs one build at a time and is not thread safe.
+ */
+class MavenDaemon implements Closeable {
+
+    private static final List<String> CLASS_PATH_FOLDERS = Arrays.asList("boot", "lib", "lib/ext");
+
+    // class path entry holding the class file of the daemon main class
+    private static Path daemonClasses;
+
+    private final Process process;
+    private final ProcessSupervisor supervisor;
+    private final BufferedWriter writer;
+    private final BufferedReader reader;
+    private int builds;
+
+    private MavenDaemon(Process process, ProcessSupervisor supervisor) {
+        this.process = process;
+        this.supervisor = supervisor;
+        this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+        this.reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    }
+
+    /***
+     * Starts a daemon on the given Maven installation.
+     * @param mavenHome root folder of the Maven installation
+     * @param jvmOptions additional options of the daemon JVM
+     * @param supervisor supervises the builds of the daemon
+     * @return the daemon
+     * @throws IOException if the process cannot be started
+     */
+    static MavenDaemon start(File mavenHome, List<String> jvmOptions, ProcessSupervisor supervisor)
+            throws IOException {
+        List<String> commands = new ArrayList<>();
+        commands.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        commands.addAll(jvmOptions);
+        commands.add("-Dmaven.home=" + mavenHome.getAbsolutePath());
+        commands.add("-Dmaven.conf=" + new File(mavenHome, "conf").getAbsolutePath());
+        commands.add("-cp");
+        commands.add(getClassPath(mavenHome));
+        commands.add(MavenDaemonMain.class.getName());
+
+        ProcessBuilder builder = new ProcessBuilder(commands);
+        builder.redirectErrorStream(true);
+        return new MavenDaemon(builder.start(), supervisor);
+    }
+
+    /***
+     * Runs a build in the daemon and waits for it to finish. A build failure
+     * does not stop the daemon, but a build that times out kills it.
+     * @param directory the project folder
+     * @param arguments Maven arguments, without the mvn executable
+     * @param policy timeouts of the build
+     * @param output receives every line printed by the build
+     * @return exit code of the build
+     * @throws IOException if the daemon terminated before finishing the build
+     */
+    int build(File directory, List<String> arguments, ProcessPolicy policy, Consumer<String> output)
+            throws IOException {
+        builds++;
+        writer.write(directory.getAbsolutePath());
+        for (String argument : arguments) {
+            writer.write(MavenDaemonMain.SEPARATOR);
+            writer.write(argument);
+        }
+        writer.newLine();
+        writer.flush();
+
+        int[] exitCode = { ProcessResult.NO_EXIT_CODE };
+        ProcessResult result = supervisor.supervise("Maven daemon build in " + directory, process, reader, policy,
+                line -> {
+                    if (line.startsWith(MavenDaemonMain.EXIT_MARKER)) {
+                        exitCode[0] = Integer.parseInt(line.substring(MavenDaemonMain.EXIT_MARKER.length()).trim());
+                        return Action.STOP;
+                    }
+                    output.accept(line);
+                    return Action.CONTINUE;
+                });
+
+        if (result.getReason() != TerminationReason.COMPLETED || exitCode[0] == ProcessResult.NO_EXIT_CODE) {
+            throw new IOException(String.format("Maven daemon terminated during the build: %s", result));
+        }
+
+        return exitCode[0];
+    }
+
+    int getBuilds() {
+        return builds;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+    }
+
+    private static String getClassPath(File mavenHome) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String folder : CLASS_PATH_FOLDERS) {
+            File[] jars = new File(mavenHome, folder).listFiles((dir, name) -> name.endsWith(".jar"));
+            if (jars != null) {
+                Arrays.sort(jars);
+                Arrays.stream(jars).map(File::getAbsolutePath).forEach(entries::add);
+            }
+        }
+
+        // slf4j configuration of the maven distribution
+        entries.add(new File(mavenHome, "conf/logging").getAbsolutePath());
+        entries.add(getDaemonClasses().toString());
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Copies the class file of {@link MavenDaemonMain} to a temporary folder,
+     * which is put on the daemon class path. The loader's own class path entry
+     * cannot be used, since it is nested in the archive when the loader runs
+     * from an executable JAR.
+     */
+    static synchronized Path getDaemonClasses() throws IOException {
+        if (daemonClasses != null && Files.isDirectory(daemonClasses)) {
+            return daemonClasses;
+        }
+
+        String resource = MavenDaemonMain.class.getName().replace('.', '/') + ".class";
+        Path folder = Files.createTempDirectory("maven-daemon");
+        Path file = folder.resolve(resource);
+        try (InputStream input = MavenDaemonMain.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IOException(String.format("Class file %s not found", resource));
+            }
+            Files.createDirectories(file.getParent());
+            Files.copy(input, file);
+        }
+
+        // deleted in the reverse order of registration, files before their folders
+        folder.toFile().deleteOnExit();
+        Path path = folder;
+        for (Path name : folder.relativize(file)) {
+            path = path.resolve(name);
+            path.toFile().deleteOnExit();
+        }
+
+        daemonClasses = folder;
+        return daemonClasses;
+    }
+}
@@ -0,0 +1,63 @@
+package com.td.helpers.building;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Entry point of a Maven daemon process. It runs on the class path of a Maven
+ * installation and executes one build per line read from standard input, so
+ * successive builds reuse the same JVM, loaded classes and JIT state.
+ *
+ * A request is the working directory followed by the Maven arguments, all
+ * separated by tabs. Each build is terminated by a line holding
+ * {@link #EXIT_MARKER} and the exit code. This class must only depend on the
+ * JDK and must not have nested classes, since its class file is the only one
+ * of the loader on the daemon class path.
+ */
+public final class MavenDaemonMain {
+
+    static final String EXIT_MARKER = "@@tdanalysis-maven-daemon-exit:";
+    static final String SEPARATOR = "\t";
+
+    private static final String MAVEN_CLI = "org.apache.maven.cli.MavenCli";
+    private static final String MULTI_MODULE_DIRECTORY = "maven.multiModuleProjectDirectory";
+
+    private MavenDaemonMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Class<?> cliClass = Class.forName(MAVEN_CLI);
+        Object cli = cliClass.newInstance();
+        Method doMain = cliClass.getMethod("doMain", String[].class, String.class, PrintStream.class,
+                PrintStream.class);
+
+        PrintStream out = System.out;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String[] fields = line.split(SEPARATOR);
+            String directory = fields[0];
+            String[] mavenArgs = Arrays.copyOfRange(fields, 1, fields.length);
+
+            int exitCode;
+            try {
+                System.setProperty(MULTI_MODULE_DIRECTORY, directory);
+                exitCode = (Integer) doMain.invoke(cli, mavenArgs, directory, out, out);
+            } catch (InvocationTargetException e) {
+                e.getCause().printStackTrace(out);
+                exitCode = 1;
+            }
+
+            out.println(EXIT_MARKER + exitCode);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.td.helpers.building;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Modules of a Maven reactor and the dependencies between them, read from
+ * the pom.xml files starting at the root module. A module depends on the
+ * reactor modules it declares as dependencies and on its parent. Modules are
+ * identified by their folder relative to the project root, as in
+ * {@link ModuleLocator}, and matched to dependencies by artifact id.
+ */
+public class MavenReactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MavenReactor.class);
+
+    private static final String POM_FILE = "pom.xml";
+
+    // module -> modules it depends on
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+    private MavenReactor() {
+    }
+
+    /**
+     * Reads the reactor of the project. Modules whose pom.xml cannot be read
+     * are left out.
+     * @param projectFolder root folder of the project
+     */
+    public static MavenReactor read(File projectFolder) {
+        Path root = projectFolder.toPath().toAbsolutePath().normalize();
+        Map<String, Pom> poms = new HashMap<>();
+
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(ModuleLocator.ROOT_MODULE);
+        while (!pending.isEmpty()) {
+            String module = pending.poll();
+            if (poms.containsKey(module)) {
+                continue;
+            }
+
+            Path folder = root.resolve(module).normalize();
+            Pom pom = Pom.read(folder.resolve(POM_FILE));
+            if (pom == null) {
+                continue;
+            }
+            poms.put(module, pom);
+
+            for (String child : pom.modules) {
+                Path childFolder = folder.resolve(child).normalize();
+                if (childFolder.getFileName() != null && childFolder.getFileName().toString().equals(POM_FILE)) {
+                    childFolder = childFolder.getParent();
+                }
+                pending.add(root.relativize(childFolder).toString().replace(File.separatorChar, '/'));
+            }
+        }
+
+        Map<String, String> modulesByArtifact = new HashMap<>();
+        poms.forEach((module, pom) -> modulesByArtifact.put(pom.artifactId, module));
+
+        MavenReactor reactor = new MavenReactor();
+        poms.forEach((module, pom) -> {
+            Set<String> upstream = new HashSet<>();
+            pom.dependencies.stream().map(modulesByArtifact::get).filter(dependency -> dependency != null
+                    && !dependency.equals(module)).forEach(upstream::add);
+            reactor.dependencies.put(module, upstream);
+        });
+        return reactor;
+    }
+
+    /**
+     * @return the modules of the reactor
+     */
+    public Set<String> getModules() {
+        return new TreeSet<>(dependencies.keySet());
+    }
+
+    /**
+     * Returns the modules and the modules depending on them, directly or
+     * through other modules, as built by Maven with -amd.
+     */
+    public Set<String> getDependents(Collection<String> modules) {
+        Set<String> dependents = new TreeSet<>(modules);
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (Map.Entry<String, Set<String>> module : dependencies.entrySet()) {
+                if (!dependents.contains(module.getKey())
+                        && module.getValue().stream().anyMatch(dependents::contains)) {
+                    dependents.add(module.getKey());
+                    added = true;
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * The parts of a pom.xml that link the modules of a reactor.
+     */
+    private static class Pom {
+
+        private String artifactId;
+        // artifact ids of the parent and of the dependencies
+        private final List<String> dependencies = new ArrayList<>();
+        private final List<String> modules = new ArrayList<>();
+
+        static Pom read(Path file) {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+
+            try (InputStream input = Files.newInputStream(file)) {
+                XMLInputFactory factory = XMLInputFactory.newInstance();
+                factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+                XMLStreamReader reader = factory.createXMLStreamReader(input);
+                try {
+                    Pom pom = new Pom();
+                    Deque<String> path = new ArrayDeque<>();
+                    while (reader.hasNext()) {
+                        int event = reader.next();
+                        if (event == XMLStreamConstants.START_ELEMENT) {
+                            path.addLast(reader.getLocalName());
+                            String element = String.join("/", path);
+                            if (element.equals("project/artifactId")) {
+                                pom.artifactId = reader.getElementText().trim();
+                                path.removeLast();
+                            } else if (element.equals("project/parent/artifactId")
+                                    || element.equals("project/dependencies/dependency/artifactId")) {
+                                pom.dependencies.add(reader.getElementText().trim());
+                                path.removeLast();
+                            } else if (element.equals("project/modules/module")) {
+                                pom.modules.add(reader.getElementText().trim());
+                                path.removeLast();
+                            }
+                        } else if (event == XMLStreamConstants.END_ELEMENT) {
+                            path.removeLast();
+                        }
+                    }
+                    return pom.artifactId != null ? pom : null;
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException | XMLStreamException e) {
+                logger.warn(String.format("Could not read %s", file), e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.td.helpers.building;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Maps files of a Maven project to the reactor module containing them, which
+ * is the closest folder holding a pom.xml. Modules are identified by their
+ * folder relative to the project root, the root module being empty.
+ */
+public final class ModuleLocator {
+
+    public static final String ROOT_MODULE = "";
+
+    private static final String POM_FILE = "pom.xml";
+
+    private ModuleLocator() {
+    }
+
+    /***
+     * Returns the module of a file, which does not need to exist any more.
+     * @param projectFolder root folder of the project
+     * @param path path of the file, absolute or relative to the project folder
+     * @return relative folder of the module, using / as separator
+     */
+    public static String getModule(File projectFolder, Path path) {
+        Path root = projectFolder.toPath().toAbsolutePath().normalize();
+        Path relative = path.isAbsolute() ? root.relativize(path.normalize()) : path.normalize();
+
+        Path folder = relative.getParent();
+        while (folder != null) {
+            if (Files.isRegularFile(root.resolve(folder).resolve(POM_FILE))) {
+                return folder.toString().replace(File.separatorChar, '/');
+            }
+            folder = folder.getParent();
+        }
+
+        return ROOT_MODULE;
+    }
+}
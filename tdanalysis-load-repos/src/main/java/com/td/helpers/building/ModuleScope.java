@@ -0,0 +1,77 @@
+package com.td.helpers.building;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.td.models.TechnicalDebt;
+
+/**
+ * Part of a project that needs to be built for a commit. A scoped build
+ * covers the changed modules, the modules they depend on and the modules
+ * depending on them. The changed modules and their dependents are analysed
+ * again, while the results of the other modules are taken from the baseline,
+ * the technical debt of the parent commit.
+ */
+public class ModuleScope {
+
+    private static final ModuleScope FULL = new ModuleScope(Collections.emptySet(), Collections.emptySet(), null);
+
+    private final Set<String> modules;
+    private final Set<String> affectedModules;
+    private final TechnicalDebt baseline;
+
+    private ModuleScope(Set<String> modules, Set<String> affectedModules, TechnicalDebt baseline) {
+        this.modules = modules;
+        this.affectedModules = affectedModules;
+        this.baseline = baseline;
+    }
+
+    public static ModuleScope full() {
+        return FULL;
+    }
+
+    /**
+     * @param modules the changed modules
+     * @param affectedModules the changed modules and their dependents
+     * @param baseline the technical debt of the parent commit
+     */
+    public static ModuleScope of(Set<String> modules, Set<String> affectedModules, TechnicalDebt baseline) {
+        return new ModuleScope(Collections.unmodifiableSet(new TreeSet<>(modules)),
+                Collections.unmodifiableSet(new TreeSet<>(affectedModules)), baseline);
+    }
+
+    /**
+     * @return true if the whole project needs to be built
+     */
+    public boolean isFull() {
+        return baseline == null;
+    }
+
+    /**
+     * @return the changed modules
+     */
+    public Set<String> getModules() {
+        return modules;
+    }
+
+    /**
+     * @return the changed modules and the modules depending on them, which
+     *         are analysed again
+     */
+    public Set<String> getAffectedModules() {
+        return affectedModules;
+    }
+
+    /**
+     * @return the technical debt of the parent commit
+     */
+    public TechnicalDebt getBaseline() {
+        return baseline;
+    }
+
+    @Override
+    public String toString() {
+        return isFull() ? "full" : modules.toString();
+    }
+}
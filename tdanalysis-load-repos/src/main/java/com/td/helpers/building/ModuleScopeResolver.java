@@ -0,0 +1,117 @@
+package com.td.helpers.building;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.td.models.BuildStatus;
+import com.td.models.CommitDiff;
+import com.td.models.CommitModel;
+import com.td.models.CommitTD;
+import com.td.models.RepositoryModel;
+import com.td.models.TechnicalDebt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides from the commit diff which modules of a multi-module project have
+ * to be built. A commit is only built partially if its first parent was built
+ * successfully with results attributed to modules, and all of its build
+ * relevant changes belong to modules of the reactor other than the root.
+ */
+@Component
+public class ModuleScopeResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModuleScopeResolver.class);
+
+    @Value("${build.modules.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private BuildRelevanceClassifier relevanceClassifier;
+
+    @Autowired
+    private BuildHelperResolver buildHelperResolver;
+
+    /***
+     * Resolves the scope of the build of the checked out commit.
+     * @param commit the commit
+     * @param repo the repository model, checked out at the commit
+     * @param findCommit returns the results of a commit by SHA, only called
+     *            for the parent of a commit that can be built partially
+     * @return the modules to build, or a full scope
+     */
+    public ModuleScope resolve(CommitModel commit, RepositoryModel repo, Function<String, CommitModel> findCommit) {
+        Optional<BuildHelper> buildHelper = buildHelperResolver.getBuildHelper(repo);
+        if (!enabled || !buildHelper.isPresent() || !buildHelper.get().supportsModules() || commit.getDiff() == null
+                || commit.getParents() == null || commit.getParents().isEmpty()) {
+            return ModuleScope.full();
+        }
+
+        Set<String> modules = getChangedModules(repo.getProjectFolder(), commit.getDiff());
+        if (modules.isEmpty() || modules.contains(ModuleLocator.ROOT_MODULE)) {
+            return ModuleScope.full();
+        }
+
+        // poms outside the reactor, e.g. of integration tests, cannot be selected with -pl
+        Set<String> reactorModules = MavenReactor.read(repo.getProjectFolder()).getModules();
+        if (!reactorModules.containsAll(modules)) {
+            logger.info(String.format("Commit %s changes folders %s outside the reactor, building all modules",
+                    commit.getSha(), modules.stream().filter(module -> !reactorModules.contains(module))
+                            .collect(Collectors.toList())));
+            return ModuleScope.full();
+        }
+
+        Optional<TechnicalDebt> baseline = getBaseline(findCommit.apply(commit.getParents().get(0)));
+        if (!baseline.isPresent()) {
+            return ModuleScope.full();
+        }
+
+        Set<String> affected = buildHelper.get().getDependentModules(repo.getProjectFolder(), modules);
+        logger.info(String.format("Commit %s changes modules %s, affecting %s", commit.getSha(), modules,
+                affected));
+        return ModuleScope.of(modules, affected, baseline.get());
+    }
+
+    /***
+     * Maps the build relevant paths of the diff to their modules.
+     * @param projectFolder root folder of the project
+     * @param diff the commit diff
+     * @return set of changed modules
+     */
+    Set<String> getChangedModules(File projectFolder, CommitDiff diff) {
+        return Stream.of(diff.getAdditionSet(), diff.getModificationSet(), diff.getDeletionSet())
+                .filter(paths -> paths != null).flatMap(Collection::stream).filter(relevanceClassifier::isRelevant)
+                .map(path -> ModuleLocator.getModule(projectFolder, Paths.get(path)))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * Returns the technical debt of the parent, if it can be split by module.
+     */
+    private Optional<TechnicalDebt> getBaseline(CommitModel parent) {
+        if (parent == null || !BuildStatus.SUCCESSFUL.equals(parent.getBuildStatus())
+                || parent.getTechnicalDebt() == null) {
+            return Optional.empty();
+        }
+
+        List<CommitTD> items = parent.getTechnicalDebt().getTdItems();
+        if (items != null && items.stream().anyMatch(item -> item.getModule() == null)) {
+            // analysed before results were attributed to modules
+            return Optional.empty();
+        }
+
+        return Optional.of(parent.getTechnicalDebt());
+    }
+}
@@ -0,0 +1,20 @@
+package com.td.helpers.process;
+
+/**
+ * Receives the output of a supervised process line by line and decides how
+ * supervision continues.
+ */
+@FunctionalInterface
+public interface OutputHandler {
+
+    enum Action {
+        /** Keep reading the output. */
+        CONTINUE,
+        /** A failure was detected, kill the process. */
+        ABORT,
+        /** The task is done, stop reading but leave the process running. */
+        STOP
+    }
+
+    Action onLine(String line);
+}
@@ -0,0 +1,35 @@
+package com.td.helpers.process;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits of a supervised process. A timeout of zero disables the limit.
+ */
+public class ProcessPolicy {
+
+    private final long wallClockTimeoutMillis;
+    private final long idleTimeoutMillis;
+
+    public ProcessPolicy(long wallClockTimeoutMillis, long idleTimeoutMillis) {
+        this.wallClockTimeoutMillis = wallClockTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public static ProcessPolicy ofMinutes(long wallClockTimeout, long idleTimeout) {
+        return new ProcessPolicy(TimeUnit.MINUTES.toMillis(wallClockTimeout), TimeUnit.MINUTES.toMillis(idleTimeout));
+    }
+
+    /**
+     * @return the longest time the process may run, in milliseconds
+     */
+    public long getWallClockTimeoutMillis() {
+        return wallClockTimeoutMillis;
+    }
+
+    /**
+     * @return the longest time the process may go without output, in milliseconds
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+}
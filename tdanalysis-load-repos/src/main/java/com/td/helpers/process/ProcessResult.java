@@ -0,0 +1,53 @@
+package com.td.helpers.process;
+
+/**
+ * Outcome of a supervised process.
+ */
+public class ProcessResult {
+
+    /** Exit code reported while the process is still running or was killed. */
+    public static final int NO_EXIT_CODE = -1;
+
+    private final TerminationReason reason;
+    private final int exitCode;
+    private final long durationMillis;
+
+    public ProcessResult(TerminationReason reason, int exitCode, long durationMillis) {
+        this.reason = reason;
+        this.exitCode = exitCode;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * @return true if the process completed with exit code 0
+     */
+    public boolean isSuccessful() {
+        return reason == TerminationReason.COMPLETED && exitCode == 0;
+    }
+
+    /**
+     * @return why supervision ended
+     */
+    public TerminationReason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the exit code, or {@link #NO_EXIT_CODE}
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * @return how long the process was supervised, in milliseconds
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (exit code %d) after %d s", reason, exitCode, durationMillis / 1000);
+    }
+}
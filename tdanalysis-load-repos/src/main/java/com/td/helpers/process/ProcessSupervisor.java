@@ -0,0 +1,168 @@
+package com.td.helpers.process;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import com.td.helpers.process.OutputHandler.Action;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs heavy external work, such as builds and analyses, under supervision.
+ * Each task is killed, with its whole process tree, when it exceeds its
+ * wall-clock or idle timeout or when its output shows a failure, and the
+ * reason is reported in the result. The number of tasks running at the same
+ * time is limited by process.max.concurrent, by default the number of
+ * processors.
+ */
+@Component
+public class ProcessSupervisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessSupervisor.class);
+
+    private static final long CHECK_PERIOD_MILLIS = 1000;
+
+    private final Semaphore permits;
+    private final ScheduledExecutorService watchdog;
+
+    public ProcessSupervisor(@Value("${process.max.concurrent:0}") int maxConcurrent) {
+        int size = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        this.permits = new Semaphore(size, true);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "process-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /***
+     * Starts the process and supervises it until it exits or is killed.
+     * Standard error is merged into the output.
+     * @param name name of the task used in the logs
+     * @param builder the process to start
+     * @param policy timeouts of the process
+     * @param handler receives the output
+     * @return the result
+     * @throws IOException if the process cannot be started
+     */
+    public ProcessResult run(String name, ProcessBuilder builder, ProcessPolicy policy, OutputHandler handler)
+            throws IOException {
+        builder.redirectErrorStream(true);
+
+        Process[] process = new Process[1];
+        Runnable destroy = () -> {
+            if (process[0] != null) {
+                ProcessTree.destroy(process[0]);
+            }
+        };
+
+        try (ProcessWatch watch = watch(name, policy, destroy)) {
+            process[0] = builder.start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process[0].getInputStream()))) {
+                return supervise(watch, process[0], reader, handler);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ProcessResult(TerminationReason.INTERRUPTED, ProcessResult.NO_EXIT_CODE, 0);
+        }
+    }
+
+    /***
+     * Supervises a running process until the handler stops supervision, the
+     * process exits, or it is killed. Used for long running processes that
+     * execute several tasks, whose output is read by the caller.
+     * @param name name of the task used in the logs
+     * @param process the running process
+     * @param output reader of the process output
+     * @param policy timeouts of the task
+     * @param handler receives the output
+     * @return the result, with {@link ProcessResult#NO_EXIT_CODE} if the
+     * process is still running
+     */
+    public ProcessResult supervise(String name, Process process, BufferedReader output, ProcessPolicy policy,
+            OutputHandler handler) {
+        try (ProcessWatch watch = watch(name, policy, () -> ProcessTree.destroy(process))) {
+            return supervise(watch, process, output, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ProcessResult(TerminationReason.INTERRUPTED, ProcessResult.NO_EXIT_CODE, 0);
+        }
+    }
+
+    /***
+     * Supervises a task that is not a child process, such as a build run by a
+     * daemon. The caller reports progress with {@link ProcessWatch#touch()}
+     * and must close the watch when the task ends.
+     * @param name name of the task used in the logs
+     * @param policy timeouts of the task
+     * @param terminateAction stops the task when a timeout expires
+     * @return the watch of the task
+     * @throws InterruptedException if interrupted while waiting for a permit
+     */
+    public ProcessWatch watch(String name, ProcessPolicy policy, Runnable terminateAction)
+            throws InterruptedException {
+        permits.acquire();
+        ProcessWatch watch = new ProcessWatch(name, policy, terminateAction, permits::release);
+        watch.setCheck(watchdog.scheduleAtFixedRate(watch::checkDeadlines, CHECK_PERIOD_MILLIS, CHECK_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS));
+        return watch;
+    }
+
+    private ProcessResult supervise(ProcessWatch watch, Process process, BufferedReader reader,
+            OutputHandler handler) {
+        try {
+            String line;
+            while (watch.getReason() == null && (line = reader.readLine()) != null) {
+                watch.touch();
+                Action action = handler.onLine(line);
+                if (action == Action.ABORT) {
+                    watch.terminate(TerminationReason.FAILURE_DETECTED);
+                } else if (action == Action.STOP) {
+                    return new ProcessResult(TerminationReason.COMPLETED, ProcessResult.NO_EXIT_CODE,
+                            watch.getElapsedMillis());
+                }
+            }
+
+            // the output is closed, give the process the rest of its time to exit
+            if (watch.getReason() == null
+                    && !process.waitFor(watch.getRemainingMillis(), TimeUnit.MILLISECONDS)) {
+                watch.terminate(TerminationReason.WALL_CLOCK_TIMEOUT);
+            }
+        } catch (IOException e) {
+            // the output is closed when the process is killed
+            if (watch.getReason() == null) {
+                logger.warn(String.format("Unable to read the output of %s", watch.getName()), e);
+            }
+        } catch (InterruptedException e) {
+            watch.terminate(TerminationReason.INTERRUPTED);
+            Thread.currentThread().interrupt();
+        }
+
+        return getResult(watch, process);
+    }
+
+    private ProcessResult getResult(ProcessWatch watch, Process process) {
+        TerminationReason reason = watch.getReason();
+        if (reason == null) {
+            int exitCode = process.isAlive() ? ProcessResult.NO_EXIT_CODE : process.exitValue();
+            return new ProcessResult(TerminationReason.COMPLETED, exitCode, watch.getElapsedMillis());
+        }
+
+        return new ProcessResult(reason, ProcessResult.NO_EXIT_CODE, watch.getElapsedMillis());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+    }
+}
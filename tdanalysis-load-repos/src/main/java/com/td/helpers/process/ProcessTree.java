@@ -0,0 +1,111 @@
+package com.td.helpers.process;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Kills a process together with all processes it started, such as the JVM
+ * behind a launcher script or the forked test JVMs of a build. Killing only
+ * the root process would leave them running and holding its output open.
+ */
+final class ProcessTree {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessTree.class);
+
+    private ProcessTree() {
+    }
+
+    static void destroy(Process process) {
+        if (!destroyDescendantsByHandle(process)) {
+            destroyDescendantsByPid(process);
+        }
+        process.destroyForcibly();
+    }
+
+    /**
+     * Uses the process handles of Java 9 and later, when running on them.
+     */
+    private static boolean destroyDescendantsByHandle(Process process) {
+        try {
+            Method descendants = Process.class.getMethod("descendants");
+            Method destroyForcibly = Class.forName("java.lang.ProcessHandle").getMethod("destroyForcibly");
+            List<?> handles = ((Stream<?>) descendants.invoke(process)).collect(Collectors.toList());
+            for (Object handle : handles) {
+                destroyForcibly.invoke(handle);
+            }
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the descendants with pgrep on Java 8, which only exposes the pid
+     * of Unix processes.
+     */
+    private static void destroyDescendantsByPid(Process process) {
+        Optional<Long> pid = getPid(process);
+        if (!pid.isPresent()) {
+            logger.warn("Unable to find the child processes of a process, only the process itself is killed");
+            return;
+        }
+
+        List<Long> descendants = new ArrayList<>();
+        collectDescendants(pid.get(), descendants);
+        for (Long descendant : descendants) {
+            execute("kill", "-9", String.valueOf(descendant));
+        }
+    }
+
+    private static void collectDescendants(long pid, List<Long> descendants) {
+        for (String child : execute("pgrep", "-P", String.valueOf(pid))) {
+            try {
+                long childPid = Long.parseLong(child.trim());
+                descendants.add(childPid);
+                collectDescendants(childPid, descendants);
+            } catch (NumberFormatException e) {
+                logger.debug(String.format("Unexpected pgrep output %s", child));
+            }
+        }
+    }
+
+    private static Optional<Long> getPid(Process process) {
+        try {
+            Field field = process.getClass().getDeclaredField("pid");
+            field.setAccessible(true);
+            return Optional.of(((Number) field.get(process)).longValue());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static List<String> execute(String... command) {
+        List<String> output = new ArrayList<>();
+        try {
+            Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.add(line);
+                }
+            }
+            p.waitFor();
+        } catch (IOException e) {
+            logger.warn(String.format("Unable to run %s", command[0]), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return output;
+    }
+}
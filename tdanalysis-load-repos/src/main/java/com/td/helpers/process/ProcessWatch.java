@@ -0,0 +1,104 @@
+package com.td.helpers.process;
+
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the deadlines of one supervised task. When a deadline passes the
+ * watchdog terminates the task through its terminate action, which kills a
+ * process or cancels a build. Closing the watch ends supervision and gives
+ * back the concurrency permit of the task.
+ */
+public class ProcessWatch implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessWatch.class);
+
+    private final String name;
+    private final ProcessPolicy policy;
+    private final Runnable terminateAction;
+    private final Runnable release;
+    private final long start;
+
+    private volatile long lastActivity;
+    private volatile TerminationReason reason;
+    private ScheduledFuture<?> check;
+
+    ProcessWatch(String name, ProcessPolicy policy, Runnable terminateAction, Runnable release) {
+        this.name = name;
+        this.policy = policy;
+        this.terminateAction = terminateAction;
+        this.release = release;
+        this.start = System.currentTimeMillis();
+        this.lastActivity = start;
+    }
+
+    void setCheck(ScheduledFuture<?> check) {
+        this.check = check;
+    }
+
+    /**
+     * Records output or other progress of the task.
+     */
+    public void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * Terminates the task unless it is already terminated.
+     */
+    public synchronized void terminate(TerminationReason terminationReason) {
+        if (reason == null) {
+            reason = terminationReason;
+            logger.warn(String.format("Terminating %s after %d s: %s", name, getElapsedMillis() / 1000,
+                    terminationReason));
+            terminateAction.run();
+        }
+    }
+
+    /**
+     * Called periodically by the watchdog.
+     */
+    void checkDeadlines() {
+        long now = System.currentTimeMillis();
+        if (policy.getWallClockTimeoutMillis() > 0 && now - start > policy.getWallClockTimeoutMillis()) {
+            terminate(TerminationReason.WALL_CLOCK_TIMEOUT);
+        } else if (policy.getIdleTimeoutMillis() > 0 && now - lastActivity > policy.getIdleTimeoutMillis()) {
+            terminate(TerminationReason.IDLE_TIMEOUT);
+        }
+    }
+
+    /**
+     * @return why the task was terminated, or null if it was not
+     */
+    public TerminationReason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the time left before the wall-clock timeout, in milliseconds
+     */
+    long getRemainingMillis() {
+        if (policy.getWallClockTimeoutMillis() <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, start + policy.getWallClockTimeoutMillis() - System.currentTimeMillis());
+    }
+
+    long getElapsedMillis() {
+        return System.currentTimeMillis() - start;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    @Override
+    public void close() {
+        if (check != null) {
+            check.cancel(false);
+        }
+        release.run();
+    }
+}
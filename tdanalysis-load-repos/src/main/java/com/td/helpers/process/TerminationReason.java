@@ -0,0 +1,17 @@
+package com.td.helpers.process;
+
+/**
+ * Why a supervised process stopped being supervised.
+ */
+public enum TerminationReason {
+    /** The process exited, or its output signalled the end of the task. */
+    COMPLETED,
+    /** The output showed a failure and the process was killed. */
+    FAILURE_DETECTED,
+    /** The process ran longer than its wall-clock timeout and was killed. */
+    WALL_CLOCK_TIMEOUT,
+    /** The process printed nothing for longer than its idle timeout and was killed. */
+    IDLE_TIMEOUT,
+    /** The supervising thread was interrupted and the process was killed. */
+    INTERRUPTED
+}
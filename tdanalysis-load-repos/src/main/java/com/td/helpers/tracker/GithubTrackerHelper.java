@@ -1,20 +1,42 @@
 package com.td.helpers.tracker;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.td.models.IssueModel;
 
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GHUser;
 import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,18 +44,39 @@ public class GithubTrackerHelper extends IssueTrackerHelper {
 
     private static final Logger logger = LoggerFactory.getLogger(GithubTrackerHelper.class);
     private static final String PATTERN = "#[0-9]+";
+    private static final String API_URL = "https://api.github.com";
+
+    // number of issues per page of the issue listing, the most GitHub allows
+    static final int PAGE_SIZE = 100;
 
     private GitHub github;
     private GHRepository repository;
 
+    private String apiUrl;
+    private String repositoryId;
+    private String token;
+
+    // issues loaded by importIssues, by number
+    private final Map<Integer, IssueModel> issues = new ConcurrentHashMap<>();
+
+    // display names of the users assigned to listed issues, by login
+    private final Map<String, String> userNames = new ConcurrentHashMap<>();
+
     public GithubTrackerHelper(String repo, String login, String token) {
+        this(API_URL, repo, login, token);
+    }
+
+    public GithubTrackerHelper(String apiUrl, String repo, String login, String token) {
         this.issuePattern = Pattern.compile(PATTERN);
+        this.apiUrl = apiUrl;
+        this.repositoryId = repo;
+        this.token = token;
         initialise(repo, login, token);
     }
 
     void initialise(String repo, String login, String token) {
         try {
-            this.github = GitHub.connect(login, token);
+            this.github = new GitHubBuilder().withEndpoint(apiUrl).withOAuthToken(token, login).build();
             this.repository = github.getRepository(repo);
         } catch (IOException e) {
             logger.error("An error occurred when connecting to GitHub", e);
@@ -42,16 +85,120 @@ public class GithubTrackerHelper extends IssueTrackerHelper {
 
     @Override
     public Optional<IssueModel> getIssue(String issueId) {
-        GHIssue issue;
         try {
-            issue = repository.getIssue(Integer.parseInt(issueId.substring(1)));
-            return Optional.of(githubToIssueModel(issue));
-        } catch (NumberFormatException | IOException e) {
+            int number = Integer.parseInt(issueId.substring(1));
+            IssueModel listed = issues.get(number);
+            if (listed != null) {
+                return Optional.of(listed);
+            }
+
+            return Optional.of(requestScheduler.execute(getHost(),
+                    () -> githubToIssueModel(repository.getIssue(number))));
+        } catch (NumberFormatException e) {
             logger.error("An error occurred when retrieving issue " + issueId);
             return Optional.empty();
+        } catch (IOException e) {
+            logger.error("An error occurred when retrieving issue " + issueId);
+            defer(issueId, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean canListIssues() {
+        return true;
+    }
+
+    /***
+     * Lists the issues of the repository (state=all, including pull requests,
+     * which share their numbers) page by page. Issues saved by a previous run
+     * are kept, and only the ones updated since are listed again.
+     */
+    @Override
+    public boolean importIssues(Collection<IssueModel> known, LocalDateTime since) {
+        for (IssueModel issue : known) {
+            try {
+                issues.put(Integer.valueOf(issue.getIssueKey()), issue);
+            } catch (NumberFormatException e) {
+                logger.warn(String.format("Ignoring saved issue %s, which is not a GitHub issue", issue.getIssueId()));
+            }
+        }
+
+        try {
+            int count = listIssues(since);
+            logger.info(String.format("Listed %d issues of repository %s updated since %s, %d known", count,
+                    repositoryId, since, issues.size()));
+            return true;
+        } catch (IOException | JSONException e) {
+            logger.error(String.format("Could not list the issues of repository %s", repositoryId), e);
+            return false;
+        }
+    }
+
+    /**
+     * Lists the issues updated since the given time into the issue map.
+     * @return the number of issues listed
+     */
+    int listIssues(LocalDateTime since) throws IOException, JSONException {
+        int count = 0;
+
+        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
+            for (int page = 1;; page++) {
+                JSONArray listed = new JSONArray(get(httpClient, getIssuesUri(since, page)));
+                for (int i = 0; i < listed.length(); i++) {
+                    IssueModel issue = jsonToIssueModel(listed.getJSONObject(i));
+                    issues.put(Integer.valueOf(issue.getIssueKey()), issue);
+                }
+
+                count += listed.length();
+                if (listed.length() < PAGE_SIZE) {
+                    return count;
+                }
+            }
+        }
+    }
+
+    private URI getIssuesUri(LocalDateTime since, int page) throws IOException {
+        try {
+            URIBuilder builder = new URIBuilder(apiUrl + "/repos/" + repositoryId + "/issues")
+                    .addParameter("state", "all").addParameter("per_page", Integer.toString(PAGE_SIZE))
+                    .addParameter("page", Integer.toString(page));
+            if (since != null) {
+                builder.addParameter("since", since.atZone(ZoneId.systemDefault()).toInstant().toString());
+            }
+            return builder.build();
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid issue listing URI", e);
         }
     }
 
+    /**
+     * Sends a GET request to the GitHub API through the request scheduler and
+     * returns the response body.
+     * @throws IOException if the request fails or is not successful
+     */
+    private String get(CloseableHttpClient httpClient, URI uri) throws IOException {
+        return requestScheduler.execute(getHost(), () -> {
+            HttpGet request = new HttpGet(uri);
+            request.addHeader("Accept", "application/vnd.github.v3+json");
+            if (token != null && !token.isEmpty()) {
+                request.addHeader("Authorization", "token " + token);
+            }
+
+            HttpResponse response = httpClient.execute(request);
+            requestScheduler.updateQuota(getHost(), response);
+            String body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw requestScheduler.failed(uri, response);
+            }
+            return body;
+        });
+    }
+
+    private String getHost() {
+        return URI.create(apiUrl).getHost();
+    }
+
     /**
      * Converts a GHIssue object into an IssueModel.
      * @param issue - GHIssue object
@@ -78,6 +225,7 @@ public class GithubTrackerHelper extends IssueTrackerHelper {
 
         // dates
         result.setCreated(dateToLocalDateTime(issue.getCreatedAt()));
+        result.setUpdated(dateToLocalDateTime(issue.getUpdatedAt()));
         Date closed = issue.getClosedAt();
         if (closed != null) {
             result.setClosed(dateToLocalDateTime(closed));
@@ -86,6 +234,63 @@ public class GithubTrackerHelper extends IssueTrackerHelper {
         return result;
     }
 
+    /**
+     * Converts an issue of the issue listing into an IssueModel, the same way
+     * as {@link #githubToIssueModel(GHIssue)}.
+     */
+    IssueModel jsonToIssueModel(JSONObject issue) throws IOException, JSONException {
+        IssueModel result = new IssueModel();
+
+        String repoName = repositoryId.substring(repositoryId.lastIndexOf('/') + 1);
+        String issueKey = Integer.toString(issue.getInt("number"));
+
+        // meta
+        result.setIssueId(repoName + "/" + issueKey);
+        result.setIssueKey(issueKey);
+        result.setSummary(issue.isNull("title") ? null : issue.getString("title"));
+        result.setDescription(issue.isNull("body") ? null : issue.getString("body"));
+
+        Set<String> labels = new HashSet<>();
+        JSONArray labelArray = issue.optJSONArray("labels");
+        for (int i = 0; labelArray != null && i < labelArray.length(); i++) {
+            labels.add(labelArray.getJSONObject(i).getString("name"));
+        }
+        result.setLabels(labels);
+
+        // assignee
+        JSONArray assignees = issue.optJSONArray("assignees");
+        result.setAssignee(assignees != null && assignees.length() > 0
+                ? getUserName(assignees.getJSONObject(0).getString("login")) : "None");
+        result.setStatus(issue.getString("state").toUpperCase(Locale.ROOT));
+
+        // dates
+        result.setCreated(parseDateTime(issue.getString("created_at")));
+        result.setUpdated(parseDateTime(issue.getString("updated_at")));
+        if (!issue.isNull("closed_at")) {
+            result.setClosed(parseDateTime(issue.getString("closed_at")));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the display name of a user, which the listing does not include.
+     * Names are looked up once per user.
+     */
+    private String getUserName(String login) throws IOException {
+        String name = userNames.get(login);
+        if (name == null) {
+            String found = requestScheduler.execute(getHost(), () -> github.getUser(login).getName());
+            name = found != null ? found : login;
+            userNames.put(login, name);
+        }
+        return name;
+    }
+
+    private LocalDateTime parseDateTime(String dateTime) {
+        return LocalDateTime.ofInstant(Instant.parse(dateTime), ZoneId.systemDefault());
+    }
+
     /**
      * Converts a {@link Date} object into a {@link LocalDateTime} object.
      */
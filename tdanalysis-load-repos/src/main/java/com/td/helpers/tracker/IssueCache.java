@@ -0,0 +1,96 @@
+package com.td.helpers.tracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.td.models.IssueModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the issues retrieved from each tracker on disk, so that later runs
+ * only ask the tracker whether they changed. Issues are stored with their
+ * update time in one JSON file per tracker URI, keyed by issue key.
+ *
+ * An instance is shared by all repositories of a run, repositories with the
+ * same tracker share its file.
+ */
+public class IssueCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssueCache.class);
+    private static final TypeReference<Map<String, IssueModel>> ISSUES_TYPE =
+            new TypeReference<Map<String, IssueModel>>() {
+            };
+
+    private final Path folder;
+    private final ObjectMapper mapper;
+
+    public IssueCache(Path folder) {
+        this.folder = folder;
+        this.mapper = new ObjectMapper().findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Reads the cached issues of the tracker. Every call returns new
+     * instances, which the caller may modify.
+     * @return the issues by key, empty if none are cached
+     */
+    public synchronized Map<String, IssueModel> load(String trackerUri) {
+        Path file = getFile(trackerUri);
+        if (!Files.exists(file)) {
+            return new HashMap<>();
+        }
+
+        try {
+            Map<String, IssueModel> issues = mapper.readValue(file.toFile(), ISSUES_TYPE);
+            logger.info(String.format("Read %d cached issues of %s", issues.size(), trackerUri));
+            return issues;
+        } catch (IOException e) {
+            logger.error(String.format("Could not read cached issues from %s", file), e);
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Adds the issues to the cache of the tracker. If an issue is cached
+     * already, the version updated last is kept.
+     * @param issues the issues by key
+     */
+    public synchronized void save(String trackerUri, Map<String, IssueModel> issues) {
+        if (issues.isEmpty()) {
+            return;
+        }
+
+        Map<String, IssueModel> cached = load(trackerUri);
+        issues.forEach((issueKey, issue) -> cached.merge(issueKey, issue, IssueCache::latest));
+
+        Path file = getFile(trackerUri);
+        try {
+            Files.createDirectories(folder);
+            Path temp = Files.createTempFile(folder, file.getFileName().toString(), ".tmp");
+            mapper.writeValue(temp.toFile(), cached);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error(String.format("Could not write cached issues to %s", file), e);
+        }
+    }
+
+    private static IssueModel latest(IssueModel cached, IssueModel retrieved) {
+        boolean cachedIsNewer = cached.getUpdated() != null && retrieved.getUpdated() != null
+                && cached.getUpdated().isAfter(retrieved.getUpdated());
+        return cachedIsNewer ? cached : retrieved;
+    }
+
+    Path getFile(String trackerUri) {
+        return folder.resolve(trackerUri.replaceAll("[^A-Za-z0-9.-]+", "_") + ".json");
+    }
+}
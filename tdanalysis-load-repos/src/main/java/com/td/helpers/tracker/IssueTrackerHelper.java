@@ -1,8 +1,16 @@
 package com.td.helpers.tracker;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -12,8 +20,108 @@ public abstract class IssueTrackerHelper {
 
     protected Pattern issuePattern;
 
+    protected TrackerRequestScheduler requestScheduler = TrackerRequestScheduler.UNLIMITED;
+
+    // keys that could not be retrieved because of errors the tracker may recover from
+    private final Set<String> deferredKeys = ConcurrentHashMap.newKeySet();
+
     public abstract Optional<IssueModel> getIssue(String issueId);
 
+    /**
+     * Retrieves many issues at once. Issues that cannot be retrieved are left
+     * out. Trackers that can fetch issues in bulk override this, by default
+     * each issue is retrieved on its own.
+     * @return the issues by key
+     */
+    public Map<String, IssueModel> getIssues(Collection<String> issueIds) {
+        Map<String, IssueModel> results = new HashMap<>();
+        issueIds.stream().distinct()
+                .forEach(issueId -> getIssue(issueId).ifPresent(issue -> results.put(issueId, issue)));
+        return results;
+    }
+
+    /**
+     * Returns the issues that changed since they were last retrieved. Trackers
+     * that can search by update time override this, by default the issues are
+     * retrieved again and compared.
+     * @param known time each issue was last updated by key, null if unknown
+     * @return the changed issues by key
+     */
+    public Map<String, IssueModel> getUpdatedIssues(Map<String, LocalDateTime> known) {
+        Map<String, IssueModel> results = getIssues(known.keySet());
+        results.entrySet().removeIf(entry -> !isNewer(entry.getValue(), known.get(entry.getKey())));
+        return results;
+    }
+
+    /**
+     * @return true if the issue was updated after the given time, or if
+     *         either time is unknown
+     */
+    static boolean isNewer(IssueModel issue, LocalDateTime updated) {
+        return updated == null || issue.getUpdated() == null || issue.getUpdated().isAfter(updated);
+    }
+
+    /**
+     * @return the number of issues {@link #getIssues(Collection)} retrieves
+     *         with a single request
+     */
+    public int getBatchSize() {
+        return 1;
+    }
+
+    /**
+     * @return true if the tracker can list all issues of the repository, see
+     *         {@link #importIssues(Collection, LocalDateTime)}
+     */
+    public boolean canListIssues() {
+        return false;
+    }
+
+    /**
+     * Lists the issues of the repository once, so that issues are answered
+     * from memory instead of being retrieved one by one.
+     * @param known issues saved by a previous run
+     * @param since only issues updated since then are listed, all if null
+     * @return false if the issues could not be listed
+     */
+    public boolean importIssues(Collection<IssueModel> known, LocalDateTime since) {
+        return false;
+    }
+
+    /**
+     * Sets the scheduler all requests to the tracker go through.
+     */
+    public void setRequestScheduler(TrackerRequestScheduler requestScheduler) {
+        this.requestScheduler = requestScheduler;
+    }
+
+    /**
+     * Records an issue that could not be retrieved, to be retried later if
+     * the error was temporary (e.g. the tracker was throttling requests).
+     */
+    protected void defer(String issueKey, IOException e) {
+        if (TrackerRequestScheduler.isRetryable(e)) {
+            deferredKeys.add(issueKey);
+        }
+    }
+
+    /**
+     * @return true if the issue could not be retrieved for now
+     */
+    public boolean isDeferred(String issueKey) {
+        return deferredKeys.contains(issueKey);
+    }
+
+    /**
+     * Returns the issues recorded by {@link #defer(String, IOException)} and
+     * forgets them, so that they can be retried.
+     */
+    public Set<String> takeDeferredKeys() {
+        Set<String> issueKeys = new HashSet<>(deferredKeys);
+        deferredKeys.removeAll(issueKeys);
+        return issueKeys;
+    }
+
     /**
      * Returns all the issue IDs from the commit description.
      * @param description - commit text
@@ -5,12 +5,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.atlassian.jira.rest.client.api.JiraRestClient;
@@ -23,7 +34,9 @@ import com.td.models.IssueModel.TimeTracker;
 import com.td.models.IssueModel.Transition;
 
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.joda.time.DateTime;
@@ -32,7 +45,6 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
 
 public class JiraTrackerHelper extends IssueTrackerHelper {
 
@@ -42,14 +54,28 @@ public class JiraTrackerHelper extends IssueTrackerHelper {
     private static final String PATTERN = "[A-Z]+-[0-9]+";
     private static final String EXPAND_CHANGELOG = "?expand=changelog";
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private static final DateTimeFormatter JQL_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
+    private static final String SEARCH_PATH = "/rest/api/latest/search";
+    private static final String SEARCH_FIELDS = "summary,description,issuetype,status,priority,assignee,labels,"
+            + "created,updated,duedate,timetracking";
+
+    // number of issue keys per JQL query, keeps the query URL short
+    static final int SEARCH_BATCH_SIZE = 100;
+
+    // number of issues per page of search results
+    static final int SEARCH_PAGE_SIZE = 100;
 
     DateTimeFormatter df = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
 
     private URI uri;
+    private String username;
+    private String password;
     private JiraRestClient jiraRestClient;
 
     public JiraTrackerHelper(URI uri, String username, String password) {
         this.uri = uri;
+        this.username = username;
+        this.password = password;
         this.issuePattern = Pattern.compile(PATTERN);
         initialise(uri, username, password);
     }
@@ -57,15 +83,152 @@ public class JiraTrackerHelper extends IssueTrackerHelper {
     /***
      * Retrieves the issue details associated with the issue key.
      */
-    @Cacheable("issues")
     public Optional<IssueModel> getIssue(String issueKey) {
         try {
-            Issue issue = jiraRestClient.getIssueClient().getIssue(issueKey).claim();
+            Issue issue = requestScheduler.execute(uri.getHost(), () -> claimIssue(issueKey));
             return Optional.of(jiraIssueToIssueModel(issue));
-        } catch (Exception e) { // catches RestClientException, SocketTimeoutException
-            logger.error("Could not retrieve issue " + issueKey);
-            e.printStackTrace();
+        } catch (IOException e) {
+            logger.error("Could not retrieve issue " + issueKey, e);
+            defer(issueKey, e);
             return Optional.empty();
+        } catch (Exception e) { // catches RestClientException
+            logger.error("Could not retrieve issue " + issueKey, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Retrieves an issue with the rest client. Network errors (e.g.
+     * SocketTimeoutException) are rethrown as they are, so that they are
+     * retried.
+     */
+    private Issue claimIssue(String issueKey) throws IOException {
+        try {
+            return jiraRestClient.getIssueClient().getIssue(issueKey).claim();
+        } catch (RestClientException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public int getBatchSize() {
+        return SEARCH_BATCH_SIZE;
+    }
+
+    /***
+     * Retrieves many issues with a few JQL searches instead of one request per
+     * issue. Each search asks for up to {@link #SEARCH_BATCH_SIZE} keys and
+     * expands the changelog, so transitions come with the issues. Keys of a
+     * batch that cannot be searched are retrieved one by one, unless the
+     * tracker is unavailable, in which case they are deferred.
+     */
+    @Override
+    public Map<String, IssueModel> getIssues(Collection<String> issueKeys) {
+        Map<String, IssueModel> results = new HashMap<>();
+        List<String> keys = issueKeys.stream().distinct().collect(Collectors.toList());
+
+        for (int i = 0; i < keys.size(); i += SEARCH_BATCH_SIZE) {
+            List<String> batch = keys.subList(i, Math.min(i + SEARCH_BATCH_SIZE, keys.size()));
+            try {
+                searchIssues(getKeysJql(batch)).forEach(issue -> results.put(issue.getIssueKey(), issue));
+            } catch (IOException e) {
+                if (TrackerRequestScheduler.isRetryable(e)) {
+                    logger.error(String.format("Could not search issues %s, retrying them later", batch), e);
+                    batch.forEach(key -> defer(key, e));
+                } else {
+                    logger.error(String.format("Could not search issues %s, retrieving them one by one", batch), e);
+                    batch.forEach(key -> getIssue(key).ifPresent(issue -> results.put(key, issue)));
+                }
+            } catch (JSONException e) {
+                logger.error(String.format("Could not search issues %s, retrieving them one by one", batch), e);
+                batch.forEach(key -> getIssue(key).ifPresent(issue -> results.put(key, issue)));
+            }
+        }
+
+        return results;
+    }
+
+    /***
+     * Searches each batch of keys for the issues updated since the earliest
+     * known update of the batch, so unchanged issues cost no more than their
+     * share of a single request.
+     */
+    @Override
+    public Map<String, IssueModel> getUpdatedIssues(Map<String, LocalDateTime> known) {
+        Map<String, IssueModel> results = new HashMap<>();
+        List<String> keys = new ArrayList<>(known.keySet());
+
+        for (int i = 0; i < keys.size(); i += SEARCH_BATCH_SIZE) {
+            List<String> batch = keys.subList(i, Math.min(i + SEARCH_BATCH_SIZE, keys.size()));
+            try {
+                searchIssues(getUpdatedJql(batch, known)).stream()
+                        .filter(issue -> isNewer(issue, known.get(issue.getIssueKey())))
+                        .forEach(issue -> results.put(issue.getIssueKey(), issue));
+            } catch (IOException | JSONException e) {
+                logger.error(String.format("Could not check issues %s for updates", batch), e);
+            }
+        }
+
+        return results;
+    }
+
+    static String getKeysJql(List<String> issueKeys) {
+        return "key in (" + String.join(",", issueKeys) + ")";
+    }
+
+    /**
+     * Restricts the search to issues updated since the earliest known update
+     * of the batch. Jira compares in its own time zone and to the minute, so a
+     * day is taken off and unchanged issues are filtered out afterwards.
+     */
+    static String getUpdatedJql(List<String> issueKeys, Map<String, LocalDateTime> known) {
+        List<LocalDateTime> updated = issueKeys.stream().map(known::get).collect(Collectors.toList());
+        if (updated.contains(null)) {
+            return getKeysJql(issueKeys);
+        }
+
+        LocalDateTime since = Collections.min(updated).minusDays(1);
+        return getKeysJql(issueKeys) + " AND updated >= \"" + since.format(JQL_DATE_FORMAT) + "\"";
+    }
+
+    /**
+     * Searches the issues matching the query, following the result pages.
+     * Keys that do not exist are left out of the results.
+     */
+    List<IssueModel> searchIssues(String jql) throws IOException, JSONException {
+        List<IssueModel> results = new ArrayList<>();
+
+        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
+            int total;
+            int page;
+            do {
+                JSONObject json = getJson(httpClient, getSearchUri(jql, results.size()));
+                JSONArray issues = json.getJSONArray("issues");
+                for (int i = 0; i < issues.length(); i++) {
+                    results.add(jsonIssueToIssueModel(issues.getJSONObject(i)));
+                }
+
+                total = json.getInt("total");
+                page = issues.length();
+            } while (page > 0 && results.size() < total);
+        }
+
+        logger.info(String.format("Retrieved %d issues with a search", results.size()));
+        return results;
+    }
+
+    private URI getSearchUri(String jql, int startAt) throws IOException {
+        try {
+            // do not fail the whole search on keys that do not exist
+            return new URIBuilder(this.uri.toString() + SEARCH_PATH).addParameter("jql", jql)
+                    .addParameter("validateQuery", "false").addParameter("fields", SEARCH_FIELDS)
+                    .addParameter("expand", "changelog").addParameter("startAt", Integer.toString(startAt))
+                    .addParameter("maxResults", Integer.toString(SEARCH_PAGE_SIZE)).build();
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid search URI", e);
         }
     }
 
@@ -97,10 +260,6 @@ public class JiraTrackerHelper extends IssueTrackerHelper {
         result.setAssignee(issue.getAssignee() != null ? issue.getAssignee().getDisplayName() : "None");
         result.setLabels(issue.getLabels());
 
-        // transitions
-        List<Transition> transitions = getTransitions(issueKey);
-        result.setTransitions(transitions);
-
         // time
         DateTime created = issue.getCreationDate();
         if (created != null) {
@@ -117,22 +276,102 @@ public class JiraTrackerHelper extends IssueTrackerHelper {
             result.setDue(LocalDateTime.parse(due.toString(DATE_TIME_PATTERN), df));
         }
 
+        //tracking
+        TimeTracking tracking = issue.getTimeTracking();
+        result.setTimeTracker(createTimeTracker(tracking.getOriginalEstimateMinutes(),
+                tracking.getRemainingEstimateMinutes(), tracking.getTimeSpentMinutes()));
+
+        // transitions
+        setTransitions(result, getTransitions(issueKey));
+
+        return result;
+    }
+
+    /**
+     * Maps an issue of a search response, whose changelog is expanded, the
+     * same way as {@link #jiraIssueToIssueModel(Issue)}.
+     */
+    IssueModel jsonIssueToIssueModel(JSONObject json) throws JSONException {
+        IssueModel result = new IssueModel();
+        JSONObject fields = json.getJSONObject("fields");
+
+        // meta
+        result.setIssueKey(json.getString("key"));
+        result.setType(fields.getJSONObject("issuetype").getString("name"));
+        result.setStatus(fields.getJSONObject("status").getString("name"));
+
+        // description
+        result.setSummary(getString(fields, "summary"));
+        result.setDescription(getString(fields, "description"));
+        String priority = fields.isNull("priority") ? null : getString(fields.getJSONObject("priority"), "name");
+        result.setPriority(priority != null ? priority : "None");
+        String assignee = fields.isNull("assignee") ? null
+                : getString(fields.getJSONObject("assignee"), "displayName");
+        result.setAssignee(assignee != null ? assignee : "None");
+
+        Set<String> labels = new HashSet<>();
+        JSONArray labelArray = fields.optJSONArray("labels");
+        for (int i = 0; labelArray != null && i < labelArray.length(); i++) {
+            labels.add(labelArray.getString(i));
+        }
+        result.setLabels(labels);
+
+        // time
+        String created = getString(fields, "created");
+        if (created != null) {
+            result.setCreated(LocalDateTime.parse(created, df));
+        }
+
+        String updated = getString(fields, "updated");
+        if (updated != null) {
+            result.setUpdated(LocalDateTime.parse(updated, df));
+        }
+
+        String due = getString(fields, "duedate");
+        if (due != null) {
+            result.setDue(LocalDate.parse(due).atStartOfDay());
+        }
+
+        //tracking, reported in seconds
+        JSONObject tracking = fields.optJSONObject("timetracking");
+        result.setTimeTracker(createTimeTracker(getMinutes(tracking, "originalEstimateSeconds"),
+                getMinutes(tracking, "remainingEstimateSeconds"), getMinutes(tracking, "timeSpentSeconds")));
+
+        // transitions
+        setTransitions(result, json.has("changelog") ? parseResponseBody(json) : new ArrayList<>());
+
+        return result;
+    }
+
+    /**
+     * Sets the transitions of the issue and the closed date they give.
+     */
+    private void setTransitions(IssueModel result, List<Transition> transitions) {
+        result.setTransitions(transitions);
+
         // closed date is given by transitions
         if (!result.getStatus().equals("Open") && !result.getStatus().equals("In Progress")) {
-            System.out.println(result.getStatus());
             result.setClosed(getClosedDate(transitions));
         }
+    }
 
-        //tracking
-        TimeTracking tracking = issue.getTimeTracking();
+    private TimeTracker createTimeTracker(Integer estimate, Integer remaining, Integer logged) {
         TimeTracker tracker = new IssueModel.TimeTracker();
-        tracker.setEstimate(tracking.getOriginalEstimateMinutes() != null ? tracking.getOriginalEstimateMinutes() : 0);
-        tracker.setRemaining(
-                tracking.getRemainingEstimateMinutes() != null ? tracking.getRemainingEstimateMinutes() : 0);
-        tracker.setLogged(tracking.getTimeSpentMinutes() != null ? tracking.getTimeSpentMinutes() : 0);
-        result.setTimeTracker(tracker);
+        tracker.setEstimate(estimate != null ? estimate : 0);
+        tracker.setRemaining(remaining != null ? remaining : 0);
+        tracker.setLogged(logged != null ? logged : 0);
+        return tracker;
+    }
 
-        return result;
+    private static Integer getMinutes(JSONObject tracking, String key) {
+        return tracking == null || tracking.isNull(key) ? null : tracking.optInt(key) / 60;
+    }
+
+    /**
+     * Returns the string value of the key, or null if it is missing or null.
+     */
+    private static String getString(JSONObject json, String key) {
+        return json.isNull(key) ? null : json.optString(key);
     }
 
     /**
@@ -170,14 +409,7 @@ public class JiraTrackerHelper extends IssueTrackerHelper {
     List<Transition> getTransitions(String issueKey) {
         String uri = this.uri.toString() + "/rest/api/latest/issue/" + issueKey + EXPAND_CHANGELOG;
         try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-
-            // http get request and body
-            HttpGet request = new HttpGet(uri);
-            request.addHeader("content-type", "application/json");
-            HttpResponse response = httpClient.execute(request);
-            String body = convertStreamToString(response.getEntity().getContent());
-            JSONObject json = new JSONObject(body);
-
+            JSONObject json = getJson(httpClient, URI.create(uri));
             return parseResponseBody(json);
         } catch (IOException e) {
             logger.error("An error occurred when retrieving changelog.");
@@ -190,6 +422,35 @@ public class JiraTrackerHelper extends IssueTrackerHelper {
         }
     }
 
+    /**
+     * Sends a GET request to the Jira REST API through the request scheduler
+     * and returns the response body.
+     * @throws IOException if the request fails or is not successful
+     */
+    private JSONObject getJson(CloseableHttpClient httpClient, URI uri) throws IOException, JSONException {
+        String body = requestScheduler.execute(uri.getHost(), () -> {
+
+            // http get request and body
+            HttpGet request = new HttpGet(uri);
+            request.addHeader("content-type", "application/json");
+            if (username != null && !username.isEmpty()) {
+                String credentials = username + ":" + (password != null ? password : "");
+                request.addHeader("Authorization",
+                        "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+            }
+
+            HttpResponse response = httpClient.execute(request);
+            requestScheduler.updateQuota(uri.getHost(), response);
+            String content = convertStreamToString(response.getEntity().getContent());
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw requestScheduler.failed(uri, response);
+            }
+            return content;
+        });
+
+        return new JSONObject(body);
+    }
+
     /**
      * Method that parses the reponse body of the changelog and retrieves a list
      * of transitions that the issue has been through.
@@ -0,0 +1,51 @@
+package com.td.helpers.tracker;
+
+import java.io.IOException;
+
+import org.apache.http.HttpStatus;
+
+/**
+ * A request the issue tracker answered with an error status.
+ */
+public class TrackerRequestException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final long retryAfterMillis;
+
+    /**
+     * @param status the HTTP status of the response
+     * @param retryAfterMillis how long the tracker asked to wait before trying
+     *            again, 0 if it did not say
+     */
+    public TrackerRequestException(String message, int status, long retryAfterMillis) {
+        super(message);
+        this.status = status;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * @return true if the tracker throttled the request, rather than rejected
+     *         it for good
+     */
+    public boolean isThrottled() {
+        return status == TrackerRequestScheduler.SC_TOO_MANY_REQUESTS
+                || (status == HttpStatus.SC_FORBIDDEN && retryAfterMillis > 0);
+    }
+
+    /**
+     * @return true if sending the same request again may succeed
+     */
+    public boolean isRetryable() {
+        return isThrottled() || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }
+}
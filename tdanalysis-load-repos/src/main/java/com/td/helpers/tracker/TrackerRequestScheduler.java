@@ -0,0 +1,305 @@
+package com.td.helpers.tracker;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.kohsuke.github.HttpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Paces the requests sent to issue trackers so that long imports run as fast
+ * as the trackers allow without being cut off. Every host has a token bucket
+ * refilled at the configured rate, slowed down further to spread the
+ * remaining quota the tracker reports until the quota is reset. Failed
+ * requests are retried with exponential backoff, and a throttled request
+ * pauses all requests to its host for as long as the tracker asks.
+ *
+ * An instance is shared by all repositories of a run.
+ */
+public class TrackerRequestScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackerRequestScheduler.class);
+
+    static final int SC_TOO_MANY_REQUESTS = 429;
+
+    static final String RETRY_AFTER = "Retry-After";
+    static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    static final String RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+    /**
+     * Sends requests as they come and does not retry them.
+     */
+    public static final TrackerRequestScheduler UNLIMITED = new TrackerRequestScheduler(0, 1, 0, 0, 0);
+
+    /**
+     * A request to a tracker.
+     */
+    @FunctionalInterface
+    public interface Request<T> {
+        T send() throws IOException;
+    }
+
+    private final double requestsPerSecond;
+    private final int burst;
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param requestsPerSecond requests sent to a host per second at most,
+     *            unlimited if zero or negative
+     * @param burst requests that may be sent at once after a quiet period
+     * @param maxRetries times a failed request is sent again
+     * @param initialBackoffMillis wait before the first retry, doubled after
+     *            every retry
+     * @param maxBackoffMillis longest wait between two retries
+     */
+    public TrackerRequestScheduler(double requestsPerSecond, int burst, int maxRetries, long initialBackoffMillis,
+            long maxBackoffMillis) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Sends the request once the bucket of the host has a token, and retries
+     * it while it fails with a retryable error.
+     * @throws IOException the error of the last attempt
+     */
+    public <T> T execute(String host, Request<T> request) throws IOException {
+        Bucket bucket = getBucket(host);
+        long backoff = initialBackoffMillis;
+
+        for (int attempt = 0;; attempt++) {
+            acquire(bucket);
+            try {
+                return request.send();
+            } catch (IOException e) {
+                if (!isRetryable(e) || attempt >= maxRetries) {
+                    throw e;
+                }
+
+                long wait = backoff;
+                if (e instanceof TrackerRequestException && ((TrackerRequestException) e).isThrottled()) {
+                    wait = Math.max(wait, ((TrackerRequestException) e).getRetryAfterMillis());
+                    bucket.pause(now() + wait);
+                }
+
+                logger.warn(String.format("Request to %s failed (%s), retrying in %d ms", host, e.getMessage(),
+                        wait));
+                sleep(wait);
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    /**
+     * Adjusts the rate of the host to the quota reported in the headers of a
+     * response, see {@link #RATE_LIMIT_REMAINING} and {@link #RATE_LIMIT_RESET}.
+     */
+    public void updateQuota(String host, HttpResponse response) {
+        Header remaining = response.getFirstHeader(RATE_LIMIT_REMAINING);
+        Header reset = response.getFirstHeader(RATE_LIMIT_RESET);
+        if (remaining == null || reset == null) {
+            return;
+        }
+
+        try {
+            long resetMillis = parseTime(reset.getValue());
+            if (resetMillis > 0) {
+                getBucket(host).setQuota(Integer.parseInt(remaining.getValue().trim()), resetMillis, now());
+            }
+        } catch (NumberFormatException e) {
+            logger.warn(String.format("Ignoring invalid rate limit headers of %s", host));
+        }
+    }
+
+    /**
+     * Creates the exception for a response with an error status. The wait is
+     * taken from Retry-After, or from the quota reset if no quota is left.
+     */
+    public TrackerRequestException failed(URI uri, HttpResponse response) {
+        int status = response.getStatusLine().getStatusCode();
+        long retryAfter = 0;
+
+        Header retryAfterHeader = response.getFirstHeader(RETRY_AFTER);
+        Header remaining = response.getFirstHeader(RATE_LIMIT_REMAINING);
+        Header reset = response.getFirstHeader(RATE_LIMIT_RESET);
+        if (retryAfterHeader != null) {
+            retryAfter = parseRetryAfter(retryAfterHeader.getValue());
+        } else if (remaining != null && reset != null && "0".equals(remaining.getValue().trim())) {
+            retryAfter = Math.max(0, parseTime(reset.getValue()) - now());
+        }
+
+        return new TrackerRequestException(String.format("Request %s failed with status %d", uri, status), status,
+                retryAfter);
+    }
+
+    /**
+     * Network errors and throttled or failed responses (429 and 5xx) are
+     * retryable. Requests the tracker rejected (e.g. 401, 403 or 404) would
+     * be rejected again, and neither are other errors.
+     */
+    public static boolean isRetryable(IOException e) {
+        if (e instanceof TrackerRequestException) {
+            return ((TrackerRequestException) e).isRetryable();
+        }
+
+        if (e instanceof HttpException) {
+            // responses of the GitHub API, without a status if none was read
+            int status = ((HttpException) e).getResponseCode();
+            if (status < 0) {
+                return e.getCause() instanceof IOException && isRetryable((IOException) e.getCause());
+            }
+            return status == SC_TOO_MANY_REQUESTS || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        }
+
+        return e instanceof SocketException || e instanceof SocketTimeoutException
+                || e instanceof UnknownHostException || e instanceof NoHttpResponseException
+                || e instanceof ConnectTimeoutException;
+    }
+
+    private Bucket getBucket(String host) {
+        return buckets.computeIfAbsent(host, key -> new Bucket(requestsPerSecond, burst, now()));
+    }
+
+    private void acquire(Bucket bucket) throws IOException {
+        long wait;
+        while ((wait = bucket.reserve(now())) > 0) {
+            sleep(wait);
+        }
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a request");
+        }
+    }
+
+    /**
+     * Parses Retry-After, either seconds or an HTTP date, into milliseconds.
+     */
+    long parseRetryAfter(String value) {
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            try {
+                return Math.max(0, ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli() - now());
+            } catch (DateTimeParseException e2) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Parses a quota reset time, epoch seconds (GitHub) or an ISO timestamp
+     * (Jira), into epoch milliseconds, or -1.
+     */
+    static long parseTime(String value) {
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            try {
+                return OffsetDateTime.parse(value.trim()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e2) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Token bucket of a host.
+     */
+    static class Bucket {
+
+        private final double configuredRate;
+        private final int capacity;
+
+        private double tokens;
+        private long refilled;
+        private long pausedUntil;
+
+        // rate that spreads the remaining quota until it is reset, per millisecond
+        private double quotaRate = Double.POSITIVE_INFINITY;
+        private long quotaReset;
+
+        Bucket(double requestsPerSecond, int capacity, long now) {
+            this.configuredRate = requestsPerSecond > 0 ? requestsPerSecond / 1000 : Double.POSITIVE_INFINITY;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilled = now;
+        }
+
+        /**
+         * Takes a token if one is available.
+         * @return 0 if a token was taken, or else how long to wait for one
+         */
+        synchronized long reserve(long now) {
+            if (now < pausedUntil) {
+                return pausedUntil - now;
+            }
+            if (now >= quotaReset) {
+                quotaRate = Double.POSITIVE_INFINITY;
+            }
+
+            double rate = Math.min(configuredRate, quotaRate);
+            if (Double.isInfinite(rate)) {
+                return 0;
+            }
+
+            tokens = Math.min(capacity, tokens + (now - refilled) * rate);
+            refilled = now;
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+
+            return Math.max(1, (long) Math.ceil((1 - tokens) / rate));
+        }
+
+        synchronized void pause(long until) {
+            pausedUntil = Math.max(pausedUntil, until);
+        }
+
+        synchronized void setQuota(int remaining, long resetMillis, long now) {
+            if (resetMillis <= now) {
+                return;
+            }
+
+            quotaReset = resetMillis;
+            if (remaining <= 0) {
+                pause(resetMillis);
+            } else {
+                quotaRate = (double) remaining / (resetMillis - now);
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.td.processor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.td.db.CommitRepository;
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
+import com.td.models.IssueModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Saves commits and issues in the background. They are buffered and written
+ * with one unordered bulk upsert per collection once enough are pending or
+ * the flush interval has passed, instead of one round trip per document.
+ * Issues already written during the run are only written again if they were
+ * updated since.
+ *
+ * Commits are visible to {@link #findCommit} and {@link #findAnalysedTree}
+ * as soon as they are saved here, so that later commits can reuse their
+ * results before they reach the database.
+ */
+@Component
+public class BulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkWriter.class);
+
+    /**
+     * Number of pending commits or issues that triggers a flush.
+     */
+    @Value("${persistence.batch.size:500}")
+    private int batchSize;
+
+    /**
+     * Longest time a commit or an issue waits before it is written.
+     */
+    @Value("${persistence.flush.seconds:10}")
+    private int flushInterval;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CommitRepository commitRepository;
+
+    // guarded by this
+    private final Map<String, CommitModel> pendingCommits = new LinkedHashMap<>();
+    private final Map<String, IssueModel> pendingIssues = new LinkedHashMap<>();
+    private final Map<String, LocalDateTime> writtenIssues = new HashMap<>();
+
+    // held while writing, so that flushes do not overtake each other
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flusher;
+
+    public BulkWriter() {
+    }
+
+    /**
+     * Creates a writer that only flushes when the batch is full or when asked
+     * to, for tests.
+     */
+    BulkWriter(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void initialise() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bulk-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            // an exception would cancel the schedule
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("Could not write the pending commits and issues", e);
+            }
+        }, flushInterval, flushInterval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Queues the commit, replacing a pending version of it.
+     */
+    public void saveCommit(CommitModel commit) {
+        boolean full;
+        synchronized (this) {
+            pendingCommits.put(commit.getSha(), commit);
+            full = pendingCommits.size() >= batchSize;
+        }
+
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Queues the issues that were not written yet in their current version.
+     */
+    public void saveIssues(Collection<IssueModel> issues) {
+        boolean full;
+        synchronized (this) {
+            for (IssueModel issue : issues) {
+                String issueId = issue.getIssueId();
+                if (writtenIssues.containsKey(issueId)
+                        && Objects.equals(writtenIssues.get(issueId), issue.getUpdated())) {
+                    continue;
+                }
+                pendingIssues.put(issueId, issue);
+            }
+            full = pendingIssues.size() >= batchSize;
+        }
+
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Returns the commit of the repository, pending or already written.
+     * @return the commit, or null if it was not saved
+     */
+    public CommitModel findCommit(String sha, String repositoryId) {
+        synchronized (this) {
+            CommitModel pending = pendingCommits.get(sha);
+            if (pending != null && repositoryId.equals(pending.getRepositoryId())) {
+                return pending;
+            }
+        }
+
+        return commitRepository.findCommitModelByShaAndRepositoryId(sha, repositoryId);
+    }
+
+    /**
+     * Returns a commit of the repository with the given source tree that was
+     * built successfully, pending or already written.
+     * @return the commit, or null if there is none
+     */
+    public CommitModel findAnalysedTree(String repositoryId, String treeId) {
+        synchronized (this) {
+            Optional<CommitModel> pending = pendingCommits.values().stream()
+                    .filter(commit -> repositoryId.equals(commit.getRepositoryId())
+                            && treeId.equals(commit.getTreeId())
+                            && BuildStatus.SUCCESSFUL.equals(commit.getBuildStatus()))
+                    .findFirst();
+            if (pending.isPresent()) {
+                return pending.get();
+            }
+        }
+
+        return commitRepository.findFirstByRepositoryIdAndTreeIdAndBuildStatus(repositoryId, treeId,
+                BuildStatus.SUCCESSFUL);
+    }
+
+    /**
+     * Writes everything pending and blocks until it is written. Issues are
+     * written before the commits that refer to them.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<IssueModel> issues;
+            List<CommitModel> commits;
+            synchronized (this) {
+                issues = new ArrayList<>(pendingIssues.values());
+                commits = new ArrayList<>(pendingCommits.values());
+            }
+            if (issues.isEmpty() && commits.isEmpty()) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            Optional<List<IssueModel>> rejectedIssues = write(IssueModel.class, issues);
+            Optional<List<CommitModel>> rejectedCommits = write(CommitModel.class, commits);
+
+            synchronized (this) {
+                // keep what was queued again in the meantime
+                rejectedIssues.ifPresent(rejected -> issues.forEach(issue -> {
+                    pendingIssues.remove(issue.getIssueId(), issue);
+                    if (!rejected.contains(issue)) {
+                        writtenIssues.put(issue.getIssueId(), issue.getUpdated());
+                    }
+                }));
+                rejectedCommits.ifPresent(rejected -> commits.forEach(commit -> pendingCommits.remove(
+                        commit.getSha(), commit)));
+            }
+
+            logger.info(String.format("Wrote %d of %d issues and %d of %d commits in %d ms, %d issues and %d "
+                    + "commits were rejected", countWritten(issues, rejectedIssues), issues.size(),
+                    countWritten(commits, rejectedCommits), commits.size(), System.currentTimeMillis() - start,
+                    rejectedIssues.map(List::size).orElse(0), rejectedCommits.map(List::size).orElse(0)));
+        }
+    }
+
+    /**
+     * Upserts the documents of one collection by id. The bulk operation is
+     * unordered, so the documents the database rejects do not keep the others
+     * from being written. Rejected documents would be rejected again, and are
+     * not tried again.
+     * @return the rejected documents, or nothing if the documents could not
+     *         be written at all and are tried again with the next flush
+     */
+    <T> Optional<List<T>> write(Class<T> type, List<T> entities) {
+        if (entities.isEmpty()) {
+            return Optional.of(Collections.emptyList());
+        }
+
+        try {
+            List<BulkWriteError> errors = upsert(type, entities);
+            if (!errors.isEmpty()) {
+                logger.error(String.format("%d of %d %s documents were rejected and are dropped: %s",
+                        errors.size(), entities.size(), type.getSimpleName(), errors));
+            }
+            return Optional.of(getRejected(entities, errors));
+        } catch (MongoException e) {
+            logger.error(String.format("Could not write %d %s documents to the database, will try again",
+                    entities.size(), type.getSimpleName()), e);
+            return Optional.empty();
+        }
+    }
+
+    private static int countWritten(List<?> entities, Optional<? extends List<?>> rejected) {
+        return rejected.map(documents -> entities.size() - documents.size()).orElse(0);
+    }
+
+    /**
+     * Returns the documents of the write errors, which hold the index of the
+     * rejected upsert in the bulk operation.
+     */
+    static <T> List<T> getRejected(List<T> entities, List<BulkWriteError> errors) {
+        Set<Integer> rejected = errors.stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+        return IntStream.range(0, entities.size()).filter(rejected::contains).mapToObj(entities::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes the documents with one unordered bulk operation, in the order of
+     * the list.
+     * @return the errors of the documents the database rejected, all others
+     *         are written
+     */
+    List<BulkWriteError> upsert(Class<?> type, List<?> entities) {
+        BulkWriteOperation bulk = mongoTemplate.getCollection(mongoTemplate.getCollectionName(type))
+                .initializeUnorderedBulkOperation();
+        for (Object entity : entities) {
+            DBObject document = new BasicDBObject();
+            mongoTemplate.getConverter().write(entity, document);
+            bulk.find(new BasicDBObject("_id", document.get("_id"))).upsert().replaceOne(document);
+        }
+        try {
+            bulk.execute();
+            return Collections.emptyList();
+        } catch (BulkWriteException e) {
+            return e.getWriteErrors();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.td.processor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Set of commits of a repository that have already been processed and saved
+ * by a previous run of the loader. Commits saved without being built, with
+ * status NOT_STARTED, are not processed, so that they are analysed later.
+ * SHAs are kept as 20-byte {@link ObjectId}s
+ * rather than 40-character strings to keep the set small for large histories.
+ */
+public class CommitCheckpoint {
+
+    private final Set<ObjectId> processed;
+
+    public CommitCheckpoint(List<CommitModel> commits) {
+        this.processed = new HashSet<>(commits.size() * 2);
+        commits.stream().filter(commit -> !BuildStatus.NOT_STARTED.equals(commit.getBuildStatus()))
+                .forEach(commit -> processed.add(ObjectId.fromString(commit.getSha())));
+    }
+
+    /**
+     * Creates a checkpoint that treats all commits as not processed.
+     */
+    public static CommitCheckpoint empty() {
+        return new CommitCheckpoint(new ArrayList<>());
+    }
+
+    public boolean isProcessed(String sha) {
+        return ObjectId.isId(sha) && processed.contains(ObjectId.fromString(sha));
+    }
+
+    public int size() {
+        return processed.size();
+    }
+}
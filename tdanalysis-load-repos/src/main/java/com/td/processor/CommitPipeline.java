@@ -0,0 +1,335 @@
+package com.td.processor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.td.helpers.Workspace;
+import com.td.helpers.WorkspacePool;
+import com.td.helpers.building.ModuleScope;
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
+import com.td.models.IssueModel;
+import com.td.models.RepositoryModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Processes the commits of a repository in stages connected by bounded
+ * queues, so that builds, analyses, issue lookups and database writes of
+ * different commits overlap:
+ * 1. the calling thread walks the history and computes the diffs,
+ * 2. build: reuses earlier results, or checks the commit out in a workspace
+ *    and builds it,
+ * 3. analysis: analyses the build and returns the workspace,
+ * 4. issues: resolves the issues referenced by the commit message,
+ * 5. persistence: queues the issues and the commit on the {@link BulkWriter}.
+ * Every stage has its own threads, and the state of all stages is logged
+ * regularly so that each can be sized on its own.
+ *
+ * Commits reach the build stage in history order. A commit that uses the
+ * results of its parent, to copy them if it has no build relevant changes or
+ * as the baseline of a partial build, waits for them when it looks them up
+ * while the parent is still in the pipeline. The parent's results are known
+ * once it leaves the analysis, so other commits are built concurrently.
+ */
+@Component
+public class CommitPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommitPipeline.class);
+
+    /**
+     * Number of commits whose issues are resolved at the same time.
+     */
+    @Value("${pipeline.issue.threads:2}")
+    private int issueThreads;
+
+    /**
+     * Number of commits saved at the same time.
+     */
+    @Value("${pipeline.persist.threads:1}")
+    private int persistThreads;
+
+    /**
+     * Number of commits waiting in front of each stage. If zero or negative,
+     * twice the number of workspaces.
+     */
+    @Value("${pipeline.queue.capacity:0}")
+    private int queueCapacity;
+
+    /**
+     * Interval at which the state of the stages is logged.
+     */
+    @Value("${pipeline.status.seconds:60}")
+    private int statusInterval;
+
+    @Autowired
+    private CommitProcessor commitProcessor;
+
+    @Autowired
+    private BulkWriter bulkWriter;
+
+    public CommitPipeline() {
+    }
+
+    /**
+     * Creates a pipeline with one thread for the issues and one for the
+     * persistence, for tests.
+     */
+    CommitPipeline(CommitProcessor commitProcessor, BulkWriter bulkWriter) {
+        this.commitProcessor = commitProcessor;
+        this.bulkWriter = bulkWriter;
+        this.issueThreads = 1;
+        this.persistThreads = 1;
+        this.statusInterval = 60;
+    }
+
+    /**
+     * A commit on its way through the pipeline.
+     */
+    private static class CommitTask {
+
+        private final CommitModel commit;
+        // counted down once the build status and technical debt are known
+        private final CountDownLatch resolved = new CountDownLatch(1);
+        private List<IssueModel> issues = Collections.emptyList();
+        private Workspace workspace;
+        private ModuleScope scope;
+
+        CommitTask(CommitModel commit) {
+            this.commit = commit;
+        }
+    }
+
+    /**
+     * Runs the commits through the pipeline and blocks until all are saved.
+     * Commits that cannot be checked out, or fail in a stage, are not saved.
+     * @param commits the commits, oldest first
+     * @return number of commits that were not saved
+     */
+    public int process(Stream<CommitModel> commits, RepositoryModel repo, IssueProcessor issueProcessor,
+            WorkspacePool workspaces) throws InterruptedException {
+        int capacity = queueCapacity > 0 ? queueCapacity : workspaces.size() * 2;
+        String prefix = repo.getName() + "-";
+
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger saved = new AtomicInteger();
+        Map<String, CommitTask> inFlight = new ConcurrentHashMap<>();
+
+        PipelineStage<CommitTask> persistence = new PipelineStage<>(prefix + "persistence", persistThreads,
+                capacity, guard(inFlight, task -> {
+                    persist(task);
+                    saved.incrementAndGet();
+                    finish(task, inFlight);
+                }));
+        PipelineStage<CommitTask> issues = new PipelineStage<>(prefix + "issues", issueThreads, capacity,
+                guard(inFlight, task -> resolveIssues(task, issueProcessor, persistence)));
+        PipelineStage<CommitTask> analysis = new PipelineStage<>(prefix + "analysis", workspaces.size(), capacity,
+                guard(inFlight, task -> analyse(task, workspaces, issues)));
+        Function<String, CommitModel> findCommit = sha -> findCommit(sha, repo, inFlight);
+        PipelineStage<CommitTask> build = new PipelineStage<>(prefix + "build", workspaces.size(), capacity,
+                guard(inFlight, task -> build(task, repo, workspaces, analysis, issues, inFlight, findCommit)));
+
+        List<PipelineStage<CommitTask>> stages = Arrays.asList(build, analysis, issues, persistence);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, prefix + "pipeline-status");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> logStatus(repo, stages), statusInterval, statusInterval,
+                TimeUnit.SECONDS);
+
+        boolean completed = false;
+        try {
+            commits.forEachOrdered(commit -> {
+                CommitTask task = new CommitTask(commit);
+                submitted.incrementAndGet();
+                inFlight.put(commit.getSha(), task);
+                submit(build, task);
+            });
+
+            // close the stages in order, each one only after all its input is queued
+            for (PipelineStage<CommitTask> stage : stages) {
+                stage.close();
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                stages.forEach(PipelineStage::abort);
+            }
+            reporter.shutdownNow();
+            logStatus(repo, stages);
+        }
+
+        return submitted.get() - saved.get();
+    }
+
+    private void resolveIssues(CommitTask task, IssueProcessor issueProcessor, PipelineStage<CommitTask> next) {
+        task.issues = issueProcessor.getIssues(task.commit);
+        task.commit.setIssueIds(issueProcessor.getIssueIds(task.issues));
+        submit(next, task);
+    }
+
+    /**
+     * Copies the results of an earlier commit if possible, or else builds the
+     * commit in a workspace, which is kept for the analysis if the build
+     * succeeds.
+     */
+    private void build(CommitTask task, RepositoryModel repo, WorkspacePool workspaces,
+            PipelineStage<CommitTask> analysis, PipelineStage<CommitTask> issues, Map<String, CommitTask> inFlight,
+            Function<String, CommitModel> findCommit) {
+        CommitModel commit = task.commit;
+        if (commitProcessor.reuseAnalysis(commit, repo, findCommit)) {
+            resolve(task, issues);
+            return;
+        }
+
+        Workspace workspace = borrow(workspaces, commit);
+        if (workspace == null) {
+            finish(task, inFlight);
+            return;
+        }
+
+        boolean analyse = false;
+        try {
+            if (!workspace.getVersionControl().checkoutRevision(commit.getSha())) {
+                finish(task, inFlight);
+                return;
+            }
+
+            task.scope = commitProcessor.resolveScope(commit, workspace.getRepository(), findCommit);
+            analyse = BuildStatus.SUCCESSFUL.equals(commitProcessor.buildCommit(commit, workspace.getRepository(),
+                    task.scope));
+        } finally {
+            if (analyse) {
+                task.workspace = workspace;
+            } else {
+                workspaces.release(workspace);
+            }
+        }
+
+        if (analyse) {
+            submit(analysis, task);
+        } else {
+            resolve(task, issues);
+        }
+    }
+
+    /**
+     * Returns the results of a commit of the repository, waiting for them if
+     * the commit is still in the pipeline. Parents are submitted before their
+     * children and each one resolves without waiting for later commits, so
+     * the wait ends even while the waiting commit holds a workspace.
+     * @return null if the commit was dropped or is unknown
+     */
+    private CommitModel findCommit(String sha, RepositoryModel repo, Map<String, CommitTask> inFlight) {
+        CommitTask task = inFlight.get(sha);
+        if (task != null) {
+            try {
+                task.resolved.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(String.format("Interrupted while waiting for commit %s", sha), e);
+            }
+
+            // dropped commits leave the pipeline without being saved
+            if (inFlight.get(sha) == task) {
+                return task.commit;
+            }
+        }
+
+        return bulkWriter.findCommit(sha, repo.getId());
+    }
+
+    /**
+     * Releases the commits waiting for the results of this one, then hands it
+     * to the issues stage.
+     */
+    private static void resolve(CommitTask task, PipelineStage<CommitTask> issues) {
+        task.resolved.countDown();
+        submit(issues, task);
+    }
+
+    /**
+     * Marks the commit as no longer in the pipeline, releasing the commits
+     * waiting for it if it is dropped.
+     */
+    private static void finish(CommitTask task, Map<String, CommitTask> inFlight) {
+        inFlight.remove(task.commit.getSha(), task);
+        task.resolved.countDown();
+    }
+
+    /**
+     * Finishes commits whose stage fails, so that their children do not wait
+     * for them forever.
+     */
+    private static Consumer<CommitTask> guard(Map<String, CommitTask> inFlight, Consumer<CommitTask> stage) {
+        return task -> {
+            try {
+                stage.accept(task);
+            } catch (RuntimeException e) {
+                finish(task, inFlight);
+                throw e;
+            }
+        };
+    }
+
+    private void analyse(CommitTask task, WorkspacePool workspaces, PipelineStage<CommitTask> next) {
+        try {
+            commitProcessor.analyseCommit(task.commit, task.workspace.getRepository(), task.scope);
+        } finally {
+            workspaces.release(task.workspace);
+            task.workspace = null;
+        }
+
+        resolve(task, next);
+    }
+
+    private void persist(CommitTask task) {
+        bulkWriter.saveIssues(task.issues);
+        commitProcessor.saveCommit(task.commit);
+    }
+
+    private static Workspace borrow(WorkspacePool workspaces, CommitModel commit) {
+        try {
+            return workspaces.borrow();
+        } catch (InterruptedException e) {
+            logger.error(String.format("Interrupted before processing commit %s", commit.getSha()), e);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Hands a commit to the next stage, waiting while its queue is full.
+     */
+    private static void submit(PipelineStage<CommitTask> stage, CommitTask task) {
+        try {
+            stage.submit(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted before commit %s reached stage %s",
+                    task.commit.getSha(), stage.getName()), e);
+        }
+    }
+
+    private static void logStatus(RepositoryModel repo, List<PipelineStage<CommitTask>> stages) {
+        logger.info(String.format("Pipeline of repository %s: %s", repo.getName(),
+                stages.stream().map(PipelineStage::toString).collect(Collectors.joining("; "))));
+    }
+}
@@ -0,0 +1,104 @@
+package com.td.processor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.td.models.CommitModel;
+
+/**
+ * Splits the commits of a repository into those the issue analytics of the
+ * web application depend on and the rest. The technical debt of an issue is
+ * computed from its commits and from the last successful commit before them
+ * in timestamp order, so the required commits are the commits referencing an
+ * issue and the commit preceding each of them, their baseline.
+ */
+public class CommitPlan {
+
+    private final List<CommitModel> commits;
+    private final List<CommitModel> byTimestamp;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final Set<String> issueCommits = new HashSet<>();
+    private final Set<String> required = new HashSet<>();
+
+    private CommitPlan(List<CommitModel> commits, Predicate<CommitModel> referencesIssue) {
+        this.commits = commits;
+
+        // stable, so commits with the same timestamp keep the history order
+        this.byTimestamp = commits.stream().sorted(Comparator.comparing(CommitModel::getTimestamp,
+                Comparator.nullsFirst(Comparator.naturalOrder()))).collect(Collectors.toList());
+        for (int i = 0; i < byTimestamp.size(); i++) {
+            positions.put(byTimestamp.get(i).getSha(), i);
+        }
+
+        commits.stream().filter(referencesIssue).forEach(commit -> {
+            issueCommits.add(commit.getSha());
+            required.add(commit.getSha());
+            getPrevious(commit).ifPresent(previous -> required.add(previous.getSha()));
+        });
+    }
+
+    /***
+     * Plans the commits of a repository.
+     * @param commits the commits, oldest first
+     * @param referencesIssue tells whether a commit references an issue
+     * @return the plan
+     */
+    public static CommitPlan create(List<CommitModel> commits, Predicate<CommitModel> referencesIssue) {
+        return new CommitPlan(commits, referencesIssue);
+    }
+
+    /**
+     * @return the commits needed by the issue analytics, in history order
+     */
+    public List<CommitModel> getRequired() {
+        return commits.stream().filter(commit -> required.contains(commit.getSha())).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the other commits, in history order
+     */
+    public List<CommitModel> getRemaining() {
+        return commits.stream().filter(commit -> !required.contains(commit.getSha())).collect(Collectors.toList());
+    }
+
+    /**
+     * @return true if the commit is only required as the baseline of an issue
+     * commit
+     */
+    public boolean isBaseline(CommitModel commit) {
+        return required.contains(commit.getSha()) && !issueCommits.contains(commit.getSha());
+    }
+
+    /**
+     * Returns the commit preceding the given one in timestamp order.
+     */
+    public Optional<CommitModel> getPrevious(CommitModel commit) {
+        Integer position = positions.get(commit.getSha());
+        return position == null || position == 0 ? Optional.empty() : Optional.of(byTimestamp.get(position - 1));
+    }
+
+    /***
+     * Returns the earlier commits to use as baselines instead of the given
+     * ones, which could not be built. They are added to the required commits.
+     * @param failed baselines that were not built successfully
+     * @return the commits preceding them that are not required yet
+     */
+    public List<CommitModel> getFallbacks(List<CommitModel> failed) {
+        List<CommitModel> fallbacks = new ArrayList<>();
+        for (CommitModel commit : failed) {
+            Optional<CommitModel> previous = getPrevious(commit);
+            if (previous.isPresent() && required.add(previous.get().getSha())) {
+                fallbacks.add(previous.get());
+            }
+        }
+        return fallbacks;
+    }
+}
@@ -1,8 +1,14 @@
 package com.td.processor;
 
-import com.td.db.CommitRepository;
-import com.td.helpers.analysis.FindBugsAnalysisHelper;
-import com.td.helpers.building.MavenBuildHelper;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.td.helpers.analysis.StaticAnalysisHelper;
+import com.td.helpers.building.BuildHelper;
+import com.td.helpers.building.BuildHelperResolver;
+import com.td.helpers.building.BuildRelevanceClassifier;
+import com.td.helpers.building.ModuleScope;
+import com.td.helpers.building.ModuleScopeResolver;
 import com.td.models.BuildStatus;
 import com.td.models.CommitModel;
 import com.td.models.RepositoryModel;
@@ -11,6 +17,7 @@ import com.td.models.TechnicalDebt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -19,39 +26,188 @@ public class CommitProcessor {
     private static final Logger logger = LoggerFactory.getLogger(CommitProcessor.class);
 
     @Autowired
-    private FindBugsAnalysisHelper findBugsAnalysisHelper;
+    private StaticAnalysisHelper staticAnalysisHelper;
+
+    @Autowired
+    private BuildHelperResolver buildHelperResolver;
+
+    @Autowired
+    private BulkWriter bulkWriter;
 
     @Autowired
-    private MavenBuildHelper mavenBuildHelper;
+    private BuildRelevanceClassifier relevanceClassifier;
 
     @Autowired
-    private CommitRepository commitRepository;
+    private ModuleScopeResolver moduleScopeResolver;
+
+    /**
+     * If true, commits whose source tree has already been built and analysed
+     * successfully reuse those results.
+     */
+    @Value("${analysis.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    public CommitProcessor() {
+    }
+
+    /**
+     * Creates a processor that reuses the results of identical source trees
+     * found on the writer, for tests.
+     */
+    CommitProcessor(BulkWriter bulkWriter) {
+        this.bulkWriter = bulkWriter;
+        this.cacheEnabled = true;
+    }
 
     /**
-     * Builds and analyses revision of repository.
+     * Builds and analyses revision of repository. If the commit only changes
+     * some modules, only those and their dependents are built and analysed.
      */
     public CommitModel processCommit(CommitModel commit, RepositoryModel repo) {
-        // // set the repository id
-        commit.setRepositoryId(repo.getId());
+        return processCommit(commit, repo, getSavedCommits(repo));
+    }
 
-        BuildStatus buildStatus = buildRevision(repo);
-        commit.setBuildStatus(buildStatus);
+    /**
+     * Builds and analyses revision of repository, looking up the results of
+     * its parent with the given function.
+     * @param findCommit returns the results of a commit of the repository by
+     *            SHA, or null if they are not known
+     */
+    public CommitModel processCommit(CommitModel commit, RepositoryModel repo,
+            Function<String, CommitModel> findCommit) {
+        ModuleScope scope = resolveScope(commit, repo, findCommit);
+        BuildStatus buildStatus = buildCommit(commit, repo, scope);
 
         if (buildStatus.equals(BuildStatus.SUCCESSFUL)) {
-            TechnicalDebt debt = analyseDebt(repo);
-            commit.setTechnicalDebt(debt);
+            analyseCommit(commit, repo, scope);
         }
 
         return commit;
     }
 
     /**
-     * Builds the current revision of the repository.
-     * TODO: make it work for gradle builds
+     * Sets the repository of the commit and returns the modules it requires
+     * to be built and analysed.
+     */
+    public ModuleScope resolveScope(CommitModel commit, RepositoryModel repo,
+            Function<String, CommitModel> findCommit) {
+        commit.setRepositoryId(repo.getId());
+        return moduleScopeResolver.resolve(commit, repo, findCommit);
+    }
+
+    /**
+     * Builds the modules of the scope in the revision that is checked out and
+     * sets the build status of the commit.
+     */
+    public BuildStatus buildCommit(CommitModel commit, RepositoryModel repo, ModuleScope scope) {
+        BuildStatus buildStatus = buildRevision(repo, scope);
+        commit.setBuildStatus(buildStatus);
+        return buildStatus;
+    }
+
+    /**
+     * Analyses the modules of the scope after a successful build and sets the
+     * technical debt of the commit.
+     */
+    public void analyseCommit(CommitModel commit, RepositoryModel repo, ModuleScope scope) {
+        TechnicalDebt debt = scope.isFull() ? analyseDebt(repo)
+                : staticAnalysisHelper.executeModuleAnalysis(repo, scope.getAffectedModules(), scope.getBaseline());
+        commit.setTechnicalDebt(debt);
+    }
+
+    /**
+     * Tries to reuse the results of an already analysed commit instead of
+     * building and analysing this one, either because it has the same source
+     * tree or because it only changes files that are irrelevant to the build.
+     * @return true if results were reused
+     */
+    public boolean reuseAnalysis(CommitModel commit, RepositoryModel repo) {
+        return reuseAnalysis(commit, repo, getSavedCommits(repo));
+    }
+
+    /**
+     * Tries to reuse the results of an already analysed commit, looking up
+     * the results of the parent with the given function.
+     * @param findCommit returns the results of a commit of the repository by
+     *            SHA, or null if they are not known
+     * @return true if results were reused
+     */
+    public boolean reuseAnalysis(CommitModel commit, RepositoryModel repo,
+            Function<String, CommitModel> findCommit) {
+        return loadCachedAnalysis(commit, repo) || loadParentAnalysis(commit, repo, findCommit);
+    }
+
+    /**
+     * If the commit does not change any file relevant to the build, copies the
+     * results of its first parent, provided the parent was built successfully.
+     * @return true if results were found and copied to the commit
+     */
+    public boolean loadParentAnalysis(CommitModel commit, RepositoryModel repo,
+            Function<String, CommitModel> findCommit) {
+        if (commit.getParents() == null || commit.getParents().isEmpty()
+                || relevanceClassifier.isRelevant(commit.getDiff())) {
+            return false;
+        }
+
+        String parentSha = commit.getParents().get(0);
+        CommitModel parent = findCommit.apply(parentSha);
+        if (parent == null || !BuildStatus.SUCCESSFUL.equals(parent.getBuildStatus())) {
+            return false;
+        }
+
+        logger.info(String.format("Commit %s has no build relevant changes, reusing analysis of parent %s",
+                commit.getSha(), parentSha));
+        commit.setRepositoryId(repo.getId());
+        commit.setBuildStatus(parent.getBuildStatus());
+        commit.setTechnicalDebt(parent.getTechnicalDebt());
+        return true;
+    }
+
+    /**
+     * Looks for an already analysed commit of the repository with the same
+     * source tree and copies its results, so that the revision does not need
+     * to be built and analysed again.
+     * @return true if results were found and copied to the commit
+     */
+    public boolean loadCachedAnalysis(CommitModel commit, RepositoryModel repo) {
+        if (!cacheEnabled || commit.getTreeId() == null) {
+            return false;
+        }
+
+        CommitModel cached = bulkWriter.findAnalysedTree(repo.getId(), commit.getTreeId());
+        if (cached == null || cached.getSha().equals(commit.getSha())) {
+            return false;
+        }
+
+        logger.info(String.format("Reusing analysis of commit %s for commit %s with identical tree %s",
+                cached.getSha(), commit.getSha(), commit.getTreeId()));
+        commit.setRepositoryId(repo.getId());
+        commit.setBuildStatus(cached.getBuildStatus());
+        commit.setTechnicalDebt(cached.getTechnicalDebt());
+        return true;
+    }
+
+    /**
+     * Builds the current revision of the repository with the build tool
+     * matching its build files.
      */
     public BuildStatus buildRevision(RepositoryModel repo) {
+        return buildRevision(repo, ModuleScope.full());
+    }
+
+    /**
+     * Builds the modules of the scope in the current revision.
+     */
+    public BuildStatus buildRevision(RepositoryModel repo, ModuleScope scope) {
         logger.info("Building current revision of repo", repo.getName());
-        return mavenBuildHelper.buildRepository(repo);
+        Optional<BuildHelper> buildHelper = buildHelperResolver.getBuildHelper(repo);
+        if (!buildHelper.isPresent()) {
+            logger.warn(String.format("No supported build tool found for repository %s", repo.getName()));
+            return BuildStatus.FAILED;
+        }
+
+        return scope.isFull() ? buildHelper.get().buildRepository(repo)
+                : buildHelper.get().buildModules(repo, scope.getModules());
     }
 
     /**
@@ -59,13 +215,22 @@ public class CommitProcessor {
      */
     public TechnicalDebt analyseDebt(RepositoryModel repo) {
         logger.info("Starting technical debt analysis for repository", repo.getName());
-        return findBugsAnalysisHelper.executeAnalysis(repo);
+        return staticAnalysisHelper.executeAnalysis(repo);
+    }
+
+    /**
+     * Looks up commits of the repository among those saved, or queued to be
+     * saved, on the {@link BulkWriter}.
+     */
+    public Function<String, CommitModel> getSavedCommits(RepositoryModel repo) {
+        return sha -> bulkWriter.findCommit(sha, repo.getId());
     }
 
     /**
-     * Writes the commit to the commit collection.
+     * Queues the commit to be written to the commit collection, see
+     * {@link BulkWriter}.
      */
     public void saveCommit(CommitModel commit) {
-        commitRepository.save(commit);
+        bulkWriter.saveCommit(commit);
     }
 }
@@ -0,0 +1,127 @@
+package com.td.processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.td.models.CommitModel;
+
+/**
+ * Chooses which commits of an ordered history to analyse. Every Nth commit is
+ * analysed first, then each interval whose endpoints have different results
+ * is bisected until it is no longer than the resolution. Stable stretches of
+ * history are skipped, while the commits where the results change are still
+ * located within the resolution. The history should be a single line of
+ * development, see {@link #getFirstParentChain}, so that neighbouring samples
+ * are successive versions of the same branch.
+ *
+ * @param <T> result of an analysed commit, compared with equals
+ */
+public class CommitSampler<T> {
+
+    private final int size;
+    private final int interval;
+    private final int resolution;
+
+    private final TreeMap<Integer, T> results = new TreeMap<>();
+    private final Set<Integer> samples = new HashSet<>();
+
+    /***
+     * @param size number of commits in the history
+     * @param interval distance between the commits sampled first
+     * @param resolution largest interval left unbisected, 1 to locate changes
+     * exactly
+     */
+    public CommitSampler(int size, int interval, int resolution) {
+        if (interval < 1 || resolution < 1) {
+            throw new IllegalArgumentException("Sampling interval and resolution must be positive");
+        }
+
+        this.size = size;
+        this.interval = interval;
+        this.resolution = resolution;
+    }
+
+    /**
+     * Returns every Nth commit, always including the first and the last one.
+     */
+    public synchronized List<Integer> initialSamples() {
+        List<Integer> initial = new ArrayList<>();
+        for (int index = 0; index < size; index += interval) {
+            initial.add(index);
+        }
+
+        if (size > 0 && initial.get(initial.size() - 1) != size - 1) {
+            initial.add(size - 1);
+        }
+
+        samples.addAll(initial);
+        return initial;
+    }
+
+    /**
+     * Records the result of an analysed commit.
+     */
+    public synchronized void record(int index, T result) {
+        results.put(index, result);
+    }
+
+    /**
+     * Returns the middle commits of the intervals whose endpoints have
+     * different results and that are longer than the resolution. An empty
+     * list means sampling is complete.
+     */
+    public synchronized List<Integer> nextSamples() {
+        List<Integer> next = new ArrayList<>();
+        Map.Entry<Integer, T> previous = null;
+        for (Map.Entry<Integer, T> current : results.entrySet()) {
+            if (previous != null && current.getKey() - previous.getKey() > resolution
+                    && !Objects.equals(previous.getValue(), current.getValue())) {
+                int middle = (previous.getKey() + current.getKey()) >>> 1;
+                if (samples.add(middle)) {
+                    next.add(middle);
+                }
+            }
+            previous = current;
+        }
+
+        return next;
+    }
+
+    /**
+     * Returns the positions of the commits on the first-parent chain of the
+     * newest commit, oldest first. Commits of merged branches are left out,
+     * as they would interleave with the mainline in the history.
+     * @param commits the commits, oldest first, parents before children
+     */
+    public static List<Integer> getFirstParentChain(List<CommitModel> commits) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int index = 0; index < commits.size(); index++) {
+            positions.put(commits.get(index).getSha(), index);
+        }
+
+        LinkedList<Integer> chain = new LinkedList<>();
+        Integer index = commits.isEmpty() ? null : commits.size() - 1;
+        while (index != null) {
+            chain.addFirst(index);
+            List<String> parents = commits.get(index).getParents();
+            index = parents == null || parents.isEmpty() ? null : positions.get(parents.get(0));
+        }
+
+        return chain;
+    }
+
+    public synchronized boolean isSampled(int index) {
+        return samples.contains(index);
+    }
+
+    public synchronized int getSampleCount() {
+        return samples.size();
+    }
+}
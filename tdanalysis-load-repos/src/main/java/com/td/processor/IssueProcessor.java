@@ -1,14 +1,31 @@
 package com.td.processor;
 
 import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.td.helpers.tracker.GithubTrackerHelper;
+import com.td.helpers.tracker.IssueCache;
 import com.td.helpers.tracker.IssueTrackerHelper;
 import com.td.helpers.tracker.JiraTrackerHelper;
+import com.td.helpers.tracker.TrackerRequestScheduler;
 import com.td.models.CommitModel;
 import com.td.models.IssueModel;
 import com.td.models.RepositoryModel;
@@ -25,14 +42,34 @@ public class IssueProcessor {
     private RepositoryModel repositoryModel;
     private IssueTrackerHelper issueTrackerHelper;
 
-    public IssueProcessor(String username, String password, RepositoryModel repo) {
+    // issues retrieved so far by key, empty if the tracker does not have the issue
+    private final Map<String, Optional<IssueModel>> issues = new ConcurrentHashMap<>();
+
+    // commits that reference issues which could not be retrieved for now, by issue key
+    private final Map<String, Set<String>> deferredCommits = new ConcurrentHashMap<>();
+
+    // prefetches in flight, by key
+    private final Map<String, CompletableFuture<Void>> prefetches = new ConcurrentHashMap<>();
+
+    // issues retrieved by previous runs, by key, see loadIssueCache
+    private IssueCache issueCache;
+    private volatile Map<String, IssueModel> cached = Collections.emptyMap();
+
+    public IssueProcessor(String username, String password, RepositoryModel repo,
+            TrackerRequestScheduler requestScheduler) {
         this.username = username;
         this.password = password;
         this.repositoryModel = repo;
         this.issueTrackerHelper = getTrackerHelper();
+        this.issueTrackerHelper.setRequestScheduler(requestScheduler);
         logger.info(String.format("Successfully initialised IssueTrackerHelper for repository %s", repo.getName()));
     }
 
+    IssueProcessor(RepositoryModel repo, IssueTrackerHelper issueTrackerHelper) {
+        this.repositoryModel = repo;
+        this.issueTrackerHelper = issueTrackerHelper;
+    }
+
     /***
      * Retrieve all issues associated with the commit.
      */
@@ -41,8 +78,12 @@ public class IssueProcessor {
         List<String> issueKeys = getIssueKeys(commit);
 
         // retrieve issues and set id
-        List<IssueModel> issues = issueKeys.stream().map(issueTrackerHelper::getIssue).flatMap(o -> streamopt(o))
+        List<IssueModel> issues = issueKeys.stream().map(this::getTrackerIssue).flatMap(o -> streamopt(o))
                 .collect(Collectors.toList());
+
+        // remember the commit for the issues that are retried later
+        issueKeys.stream().filter(issueTrackerHelper::isDeferred).forEach(issueKey -> deferredCommits
+                .computeIfAbsent(issueKey, key -> ConcurrentHashMap.newKeySet()).add(commit.getSha()));
         issues.forEach(issue -> {
             issue.setIssueId(repositoryModel.getName() + "/" + issue.getIssueKey());
             issue.setRepositoryId(repositoryModel.getId());
@@ -51,12 +92,209 @@ public class IssueProcessor {
         return issues;
     }
 
+    /***
+     * Reads the issues retrieved from the tracker by previous runs. They are
+     * still checked for updates, which costs a fraction of retrieving them.
+     */
+    public void loadIssueCache(IssueCache issueCache) {
+        this.issueCache = issueCache;
+        this.cached = issueCache.load(repositoryModel.getIssueTrackerURI());
+    }
+
+    /***
+     * Adds the issues retrieved so far to the cache read by
+     * {@link #loadIssueCache(IssueCache)}.
+     */
+    public void saveIssueCache() {
+        if (issueCache == null) {
+            return;
+        }
+
+        Map<String, IssueModel> retrieved = new HashMap<>();
+        issues.forEach((issueKey, issue) -> issue.ifPresent(found -> retrieved.put(issueKey, found)));
+        issueCache.save(repositoryModel.getIssueTrackerURI(), retrieved);
+    }
+
+    /***
+     * Retrieves the issues referenced anywhere in the history in the
+     * background, so that {@link #getIssues(CommitModel)} finds them ready
+     * instead of waiting on the tracker for every commit. Keys are retrieved
+     * once, in batches of {@link IssueTrackerHelper#getBatchSize()}, and the
+     * executor bounds the number of requests in flight. Commits that need an
+     * issue before its batch is done wait for that batch. Cached issues are
+     * only checked for updates.
+     * @param messages commit messages of the history, read before the method
+     *            returns and left to the caller to close
+     * @param executor runs the requests
+     * @return completes when all batches are done
+     */
+    public CompletableFuture<Void> prefetchIssues(Stream<String> messages, Executor executor) {
+        List<String> issueKeys = messages.flatMap(message -> issueTrackerHelper.getKeys(message).stream())
+                .distinct().filter(issueKey -> !issues.containsKey(issueKey) && !prefetches.containsKey(issueKey))
+                .collect(Collectors.toList());
+        if (issueKeys.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int batchSize = Math.max(1, issueTrackerHelper.getBatchSize());
+        logger.info(String.format("Retrieving %d issues of repository %s in batches of %d", issueKeys.size(),
+                repositoryModel.getName(), batchSize));
+
+        Map<Boolean, List<String>> byCached = issueKeys.stream()
+                .collect(Collectors.partitioningBy(cached::containsKey));
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        batches.addAll(prefetchBatches(byCached.get(false), batchSize, issueTrackerHelper::getIssues, executor));
+        batches.addAll(prefetchBatches(byCached.get(true), batchSize, this::getUpdatedIssues, executor));
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[batches.size()]));
+    }
+
+    private List<CompletableFuture<Void>> prefetchBatches(List<String> issueKeys, int batchSize,
+            Function<List<String>, Map<String, IssueModel>> retrieve, Executor executor) {
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < issueKeys.size(); i += batchSize) {
+            List<String> batch = new ArrayList<>(issueKeys.subList(i, Math.min(i + batchSize, issueKeys.size())));
+            batches.add(prefetchBatch(batch, retrieve, executor));
+        }
+        return batches;
+    }
+
+    /**
+     * Starts retrieving a batch of issues. The keys are registered before the
+     * request is submitted, so a commit never misses a batch in flight.
+     */
+    private CompletableFuture<Void> prefetchBatch(List<String> batch,
+            Function<List<String>, Map<String, IssueModel>> retrieve, Executor executor) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        batch.forEach(issueKey -> prefetches.put(issueKey, done));
+
+        Runnable finish = () -> {
+            batch.forEach(prefetches::remove);
+            done.complete(null);
+        };
+
+        try {
+            CompletableFuture.supplyAsync(() -> retrieve.apply(batch), executor)
+                    .whenComplete((found, error) -> {
+                        if (error != null) {
+                            logger.error(String.format("Could not retrieve issues %s", batch), error);
+                        } else {
+                            found.forEach((issueKey, issue) -> issues.put(issueKey, Optional.of(issue)));
+                        }
+                        finish.run();
+                    });
+        } catch (RejectedExecutionException e) {
+            logger.error(String.format("Could not schedule retrieval of issues %s", batch), e);
+            finish.run();
+        }
+
+        return done;
+    }
+
+    /**
+     * Returns the cached issues, replaced by their current version if the
+     * tracker reports an update since they were cached.
+     */
+    private Map<String, IssueModel> getUpdatedIssues(List<String> issueKeys) {
+        Map<String, IssueModel> results = new HashMap<>();
+        Map<String, LocalDateTime> known = new HashMap<>();
+        issueKeys.forEach(issueKey -> {
+            IssueModel issue = cached.get(issueKey);
+            results.put(issueKey, issue);
+            known.put(issueKey, issue.getUpdated());
+        });
+
+        results.putAll(issueTrackerHelper.getUpdatedIssues(known));
+        return results;
+    }
+
+    /***
+     * Retries the issues that could not be retrieved because of errors the
+     * tracker may recover from, such as throttling or an outage. Runs after
+     * the commits of the repository, which were saved without those issues.
+     * @param recovered receives each issue retrieved now, with the SHAs of the
+     *            commits that reference it
+     */
+    public void retryDeferredIssues(BiConsumer<IssueModel, Set<String>> recovered) {
+        Set<String> issueKeys = issueTrackerHelper.takeDeferredKeys();
+        if (issueKeys.isEmpty()) {
+            return;
+        }
+
+        logger.info(String.format("Retrying %d issues of repository %s", issueKeys.size(),
+                repositoryModel.getName()));
+        Map<String, IssueModel> found = issueTrackerHelper.getIssues(issueKeys);
+
+        for (String issueKey : issueKeys) {
+            Set<String> commits = deferredCommits.getOrDefault(issueKey, Collections.emptySet());
+            IssueModel issue = found.get(issueKey);
+            if (issue == null) {
+                logger.error(String.format("Could not retrieve issue %s referenced by commits %s", issueKey,
+                        commits));
+                continue;
+            }
+
+            issue.setIssueId(repositoryModel.getName() + "/" + issue.getIssueKey());
+            issue.setRepositoryId(repositoryModel.getId());
+            issues.put(issueKey, Optional.of(issue));
+            recovered.accept(issue, commits);
+        }
+    }
+
+    /***
+     * @return true if the issue tracker of the repository can list all its issues
+     */
+    public boolean canImportIssues() {
+        return issueTrackerHelper.canListIssues();
+    }
+
+    /***
+     * Lists all issues of the repository up front. Issues saved by a previous
+     * run are reused and only the ones updated since are listed.
+     * @param known issues of the repository saved by a previous run
+     * @return false if the issues could not be listed
+     */
+    public boolean importIssues(Collection<IssueModel> known) {
+        LocalDateTime since = known.stream().map(IssueModel::getUpdated).filter(Objects::nonNull)
+                .max(Comparator.naturalOrder()).orElse(null);
+        return issueTrackerHelper.importIssues(known, since);
+    }
+
+    /**
+     * Returns a prefetched issue, or retrieves it from the tracker. Keys the
+     * tracker does not have are remembered, so they are only asked once.
+     */
+    private Optional<IssueModel> getTrackerIssue(String issueKey) {
+        CompletableFuture<Void> prefetch = prefetches.get(issueKey);
+        if (prefetch != null) {
+            prefetch.join();
+        }
+
+        Optional<IssueModel> issue = issues.get(issueKey);
+        if (issue != null) {
+            return issue;
+        }
+
+        // a failed batch is retried at the end, instead of once per key now
+        if (issueTrackerHelper.isDeferred(issueKey)) {
+            return Optional.empty();
+        }
+
+        if (cached.containsKey(issueKey)) {
+            issue = Optional.ofNullable(getUpdatedIssues(Collections.singletonList(issueKey)).get(issueKey));
+        } else {
+            issue = issueTrackerHelper.getIssue(issueKey);
+        }
+        issues.put(issueKey, issue);
+        return issue;
+    }
+
     public List<String> getIssueIds(List<IssueModel> issues) {
         return issues.stream().map(issue -> issue.getIssueId()).collect(Collectors.toList());
     }
 
     Optional<IssueModel> getIssue(String issueKey) {
-        Optional<IssueModel> optIssue = issueTrackerHelper.getIssue(issueKey);
+        Optional<IssueModel> optIssue = getTrackerIssue(issueKey);
         if (!optIssue.isPresent()) {
             return optIssue;
         }
@@ -0,0 +1,163 @@
+package com.td.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A stage of the {@link CommitPipeline}: a bounded queue worked off by its
+ * own threads. Submitting to a full queue blocks, so a slow stage holds back
+ * the stages before it instead of letting work pile up in memory.
+ */
+class PipelineStage<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+    private static final long POLL_MILLIS = 100;
+
+    private final String name;
+    private final int capacity;
+    private final BlockingQueue<T> queue;
+    private final Consumer<T> task;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicInteger busy = new AtomicInteger();
+
+    /**
+     * @param name name of the stage, also used for the worker threads
+     * @param threads number of items processed at the same time
+     * @param capacity number of items that can wait in the queue
+     * @param task processes an item and submits it to the next stage, if any
+     */
+    PipelineStage(String name, int threads, int capacity, Consumer<T> task) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.task = task;
+
+        for (int i = 1; i <= Math.max(1, threads); i++) {
+            Thread worker = new Thread(this::work, name + "-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues an item, waiting while the queue is full.
+     */
+    void submit(T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    /**
+     * Lets the workers finish the queued items and waits for them. Must only
+     * be called once nothing is submitted to the stage any more.
+     */
+    void close() throws InterruptedException {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Drops the queued items and interrupts the workers, for a pipeline that
+     * cannot complete.
+     */
+    void abort() {
+        closed = true;
+        queue.clear();
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                T item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+
+                busy.incrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    task.accept(item);
+                    processed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    logger.error(String.format("An error occurred in pipeline stage %s", name), e);
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                    busy.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn(String.format("Pipeline stage %s was interrupted", name));
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getThreads() {
+        return workers.size();
+    }
+
+    /**
+     * @return number of workers processing an item right now
+     */
+    int getBusy() {
+        return busy.get();
+    }
+
+    int getQueued() {
+        return queue.size();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    long getProcessed() {
+        return processed.get();
+    }
+
+    long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return average time a worker spends on an item, in milliseconds
+     */
+    long getAverageMillis() {
+        long done = processed.get() + failed.get();
+        return done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(busyNanos.get() / done);
+    }
+
+    /**
+     * Summary of the stage for the logs, e.g.
+     * "build: 12 done, 0 failed, 2/2 busy, queue 4/4, 95012 ms/item".
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: %d done, %d failed, %d/%d busy, queue %d/%d, %d ms/item", name, getProcessed(),
+                getFailed(), getBusy(), getThreads(), getQueued(), getCapacity(), getAverageMillis());
+    }
+}
@@ -3,20 +3,53 @@ package com.td.processor;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.td.db.CommitRepository;
 import com.td.db.IssueRepository;
 import com.td.db.ProjectRepository;
+import com.td.helpers.HistorySelection;
 import com.td.helpers.VersionControlHelper;
+import com.td.helpers.Workspace;
+import com.td.helpers.WorkspacePool;
+import com.td.helpers.tracker.IssueCache;
+import com.td.helpers.tracker.TrackerRequestScheduler;
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
 import com.td.models.IssueModel;
 import com.td.models.RepositoryModel;
+import com.td.models.TechnicalDebt;
+import com.td.scheduler.RepositoryJob;
+import com.td.scheduler.RepositoryScheduler;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -24,9 +57,147 @@ public class RepositoryProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(RepositoryProcessor.class);
 
+    /**
+     * Looks up no results, see {@link #processCommit}.
+     */
+    private static final Function<String, CommitModel> NO_PARENT_RESULTS = sha -> null;
+
     @Value("${git.clone.path}")
     private String tempFolder;
 
+    /**
+     * Number of commits of the same repository that are processed at the same
+     * time, each in its own workspace.
+     */
+    @Value("${git.workers.per.repo:1}")
+    private int workersPerRepository;
+
+    /**
+     * Number of threads computing the diffs of the commits of a repository,
+     * ahead of the commits being processed.
+     */
+    @Value("${git.diff.threads:2}")
+    private int diffThreads;
+
+    /**
+     * Branch whose history is processed, e.g. origin/master, or all branches
+     * and tags if empty. Remote branches follow the fetched updates.
+     */
+    @Value("${git.history.branch:}")
+    private String historyBranch;
+
+    /**
+     * If true, only the commits reached through the first parents from the
+     * tips are processed, leaving out the commits merged from other branches.
+     */
+    @Value("${git.history.first.parent:false}")
+    private boolean historyFirstParent;
+
+    /**
+     * If true, merge commits are not processed.
+     */
+    @Value("${git.history.no.merges:false}")
+    private boolean historyNoMerges;
+
+    /**
+     * First and last day (yyyy-MM-dd, UTC) on which processed commits were
+     * committed, unbounded if empty.
+     */
+    @Value("${git.history.since:}")
+    private String historySince;
+
+    @Value("${git.history.until:}")
+    private String historyUntil;
+
+    /**
+     * If true, commits already saved by a previous run are not processed again.
+     */
+    @Value("${loader.resume:true}")
+    private boolean resume;
+
+    /**
+     * If true, existing clones are fetched and only commits that are not
+     * reachable from the tips processed by the last run are walked.
+     */
+    @Value("${loader.incremental:true}")
+    private boolean incremental;
+
+    /**
+     * If greater than 1, only every Nth commit is analysed at first, and the
+     * intervals in which the technical debt changes are then bisected.
+     * Commits that are not sampled are saved with status NOT_STARTED.
+     */
+    @Value("${loader.sampling.interval:0}")
+    private int samplingInterval;
+
+    /**
+     * Length of the intervals that are no longer bisected while sampling, 1
+     * locates every change of the technical debt exactly.
+     */
+    @Value("${loader.sampling.resolution:1}")
+    private int samplingResolution;
+
+    /**
+     * If true, the commits the issue analytics depend on are analysed before
+     * all others.
+     */
+    @Value("${loader.demand.enabled:false}")
+    private boolean demandDriven;
+
+    /**
+     * If true together with loader.demand.enabled, the other commits are saved
+     * with status NOT_STARTED instead of being analysed.
+     */
+    @Value("${loader.demand.only:false}")
+    private boolean demandOnly;
+
+    /**
+     * If true, all issues of repositories whose tracker can list them (GitHub)
+     * are imported up front instead of being retrieved one by one.
+     */
+    @Value("${tracker.bulk.import:true}")
+    private boolean bulkImport;
+
+    /**
+     * Number of issue tracker requests in flight at the same time, shared by
+     * all repositories.
+     */
+    @Value("${tracker.max.concurrent.requests:8}")
+    private int maxTrackerRequests;
+
+    /**
+     * If true, issues retrieved from the trackers are kept on disk and later
+     * runs only check them for updates.
+     */
+    @Value("${tracker.cache.enabled:true}")
+    private boolean issueCacheEnabled;
+
+    @Value("${tracker.cache.path:${git.clone.path}/issue-cache}")
+    private String issueCachePath;
+
+    /**
+     * Requests sent to a tracker host per second at most. The rate is lowered
+     * further to the quota the tracker reports.
+     */
+    @Value("${tracker.requests.per.second:10}")
+    private double trackerRequestRate;
+
+    @Value("${tracker.requests.burst:10}")
+    private int trackerRequestBurst;
+
+    /**
+     * Times a failed tracker request is sent again, waiting twice as long
+     * every time, before the issue is deferred to the end of the repository.
+     */
+    @Value("${tracker.max.retries:5}")
+    private int trackerMaxRetries;
+
+    @Value("${tracker.backoff.initial.ms:1000}")
+    private long trackerInitialBackoff;
+
+    @Value("${tracker.backoff.max.ms:60000}")
+    private long trackerMaxBackoff;
+
     @Value("${jira.username}")
     private String jiraUsername;
 
@@ -45,54 +216,422 @@ public class RepositoryProcessor {
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private CommitRepository commitRepository;
+
     @Autowired
     private CommitProcessor commitProcessor;
 
+    @Autowired
+    private CommitPipeline commitPipeline;
+
+    @Autowired
+    private BulkWriter bulkWriter;
+
+    @Autowired
+    private RepositoryScheduler scheduler;
+
+    private ExecutorService trackerExecutor;
+    private IssueCache issueCache;
+    private TrackerRequestScheduler requestScheduler;
+    private HistorySelection historySelection;
+
+    @PostConstruct
+    void initialise() {
+        this.trackerExecutor = Executors.newFixedThreadPool(Math.max(1, maxTrackerRequests),
+                new TrackerThreadFactory());
+        this.issueCache = new IssueCache(Paths.get(issueCachePath));
+        this.requestScheduler = new TrackerRequestScheduler(trackerRequestRate, trackerRequestBurst,
+                trackerMaxRetries, trackerInitialBackoff, trackerMaxBackoff);
+        this.historySelection = new HistorySelection(historyBranch, historyFirstParent, historyNoMerges,
+                parseDay(historySince, false), parseDay(historyUntil, true));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        trackerExecutor.shutdownNow();
+    }
+
+    /**
+     * Parses a day (yyyy-MM-dd) into its first or last second in UTC.
+     * @return null if the day is empty
+     */
+    static Instant parseDay(String day, boolean end) {
+        if (day == null || day.trim().isEmpty()) {
+            return null;
+        }
+
+        LocalDate date = LocalDate.parse(day.trim());
+        return end ? date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().minusSeconds(1)
+                : date.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
     /**
      * Process the repositories in the file as follows:
      * 1. Clones them to local disk or reads them if they are not present.
      * 2. Process each commit one by one.
+     * Repositories are queued on the {@link RepositoryScheduler}, which runs
+     * a bounded number of them at the same time.
      */
-    public void processRepositories(List<RepositoryModel> repositories) {
-        repositories.stream().forEach(this::processRepository);
+    public List<RepositoryJob> processRepositories(List<RepositoryModel> repositories) {
+        return repositories.stream().map(repo -> scheduler.submit(repo, this::processRepository))
+                .collect(Collectors.toList());
     }
 
-    public void processRepository(RepositoryModel repo) {
+    /**
+     * Processes all commits of a repository and blocks until they are done.
+     * @return false if the repository could not be read or cloned
+     */
+    public boolean processRepository(RepositoryModel repo) {
+        restoreProcessedTips(repo);
         projectRepository.save(repo);
         IssueProcessor issueProcessor = createIssueProcessor(repo);
 
-        Runnable run = () -> {
-            Optional<VersionControlHelper> optVc = readOrCloneRepository(repo);
-            if (!optVc.isPresent()) {
-                logger.error(String.format("Unable to read or clone repository %s, thread will exit.", repo.getName()));
-                return;
+        Optional<VersionControlHelper> optVc = readOrCloneRepository(repo);
+        if (!optVc.isPresent()) {
+            logger.error(String.format("Unable to read or clone repository %s, job will exit.", repo.getName()));
+            return false;
+        }
+
+        try (VersionControlHelper vch = optVc.get();
+                WorkspacePool workspaces = WorkspacePool.create(vch, repo, tempFolder, workersPerRepository)) {
+            vch.setHistorySelection(historySelection);
+
+            // remember where history ends now, new commits are left to the next run
+            List<String> tips = vch.getTips();
+            List<String> excludedTips = incremental && repo.getProcessedTips() != null
+                    && historySelection.getHistoryKey().equals(getProcessedSelection(repo)) ? repo.getProcessedTips()
+                    : new ArrayList<>();
+
+            // skip commits saved by a previous run
+            CommitCheckpoint checkpoint = loadCheckpoint(repo);
+
+            if (bulkImport && issueProcessor.canImportIssues()) {
+                importIssues(repo, issueProcessor);
             }
 
-            VersionControlHelper vch = optVc.get();
+            if (issueCacheEnabled) {
+                issueProcessor.loadIssueCache(issueCache);
+            }
 
-            // process commits
-            vch.getCommitStream().forEachOrdered(commit -> {
+            // retrieve the issues of the whole history while the commits are built
+            CompletableFuture<Void> prefetch;
+            try (Stream<String> messages = vch.getCommitMessages(sha -> !checkpoint.isProcessed(sha),
+                    excludedTips)) {
+                prefetch = issueProcessor.prefetchIssues(messages, trackerExecutor).exceptionally(e -> {
+                    logger.error(String.format("Could not retrieve the issues of repository %s in advance",
+                            repo.getName()), e);
+                    return null;
+                });
+            }
 
-                // checkout revision
-                if (!vch.checkoutRevision(commit.getSha())) {
-                    return;
+            // process commits
+            int unfinished;
+            try (Stream<CommitModel> commits = vch.getCommitStream(sha -> !checkpoint.isProcessed(sha),
+                    excludedTips, diffThreads)) {
+                if (demandDriven || samplingInterval > 1) {
+                    ExecutorService executor = Executors.newFixedThreadPool(workspaces.size(),
+                            new CommitThreadFactory(repo.getName()));
+                    try {
+                        List<CommitModel> history = commits.collect(Collectors.toList());
+                        unfinished = demandDriven ? processPlan(history, repo, issueProcessor, workspaces, executor)
+                                : processSample(history, repo, issueProcessor, workspaces, executor);
+                    } finally {
+                        // all commits are done once the plan or sample returns
+                        executor.shutdownNow();
+                    }
+                } else {
+                    unfinished = commitPipeline.process(commits, repo, issueProcessor, workspaces);
                 }
+            }
 
-                // get issues
-                List<IssueModel> issues = issueProcessor.getIssues(commit);
-                commit.setIssueIds(issueProcessor.getIssueIds(issues));
-                issueRepository.save(issues);
+            // issues deferred by the prefetch are retried as well
+            prefetch.join();
+
+            // commits patched with deferred issues are read back from the database
+            bulkWriter.flush();
+            retryDeferredIssues(repo, issueProcessor);
+            issueProcessor.saveIssueCache();
+
+            // the processed tips must not be saved before the commits are
+            bulkWriter.flush();
+            if (tips.isEmpty() || historySelection.isDateBounded()) {
+                // commits outside the selection are behind the tips, but were not processed
+                logger.info(String.format("Keeping the tips of the previous run of repository %s, the history "
+                        + "selection (%s) leaves commits out", repo.getName(), historySelection));
+            } else if (unfinished == 0) {
+                repo.setProcessedTips(tips);
+                repo.setProcessedSelection(historySelection.getHistoryKey());
+                projectRepository.save(repo);
+            } else {
+                // commits behind the new tips would be excluded from the next run
+                logger.warn(String.format("%d commits of repository %s were not analysed, keeping the tips of the "
+                        + "previous run so that the next run processes them", unfinished, repo.getName()));
+            }
+        } catch (IOException | GitAPIException e) {
+            logger.error(String.format("Unable to create workspaces for repository %s", repo.getName()), e);
+            return false;
+        } catch (InterruptedException e) {
+            logger.error(String.format("Interrupted while processing repository %s", repo.getName()), e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
 
-                // process commit
-                commitProcessor.processCommit(commit, repo);
-                commitProcessor.saveCommit(commit);
-            });
+        return true;
+    }
 
-            vch.close();
+    /**
+     * Analyses and saves a single commit. If the results of an already
+     * analysed commit with the same source tree can be reused they are
+     * copied, otherwise the commit is checked out, built and analysed in one
+     * of the workspaces.
+     *
+     * Plans and samples process commits concurrently without ordering them
+     * after their parents, so the results of the parent are not used: commits
+     * without build relevant changes are analysed, and all modules are built.
+     * Whether a parent was done first would otherwise depend on timing.
+     * @return true if the commit was saved
+     */
+    boolean processCommit(CommitModel commit, RepositoryModel repo, IssueProcessor issueProcessor,
+            WorkspacePool workspaces) {
+        if (!commitProcessor.reuseAnalysis(commit, repo, NO_PARENT_RESULTS)
+                && !analyseInWorkspace(commit, workspaces)) {
+            return false;
+        }
+
+        saveCommit(commit, issueProcessor);
+        return true;
+    }
+
+    /**
+     * Analyses the commits required by the issue analytics first, as planned
+     * by a {@link CommitPlan}. The other commits are analysed afterwards, or
+     * saved without building them if only required commits are analysed. In
+     * that case baselines that fail to build are replaced by earlier commits.
+     * @param commits the commits, oldest first
+     * @return number of commits that were not analysed and saved
+     */
+    int processPlan(List<CommitModel> commits, RepositoryModel repo, IssueProcessor issueProcessor,
+            WorkspacePool workspaces, ExecutorService executor) {
+        Set<String> analysed = ConcurrentHashMap.newKeySet();
+        Consumer<CommitModel> process = commit -> {
+            if (processCommit(commit, repo, issueProcessor, workspaces)) {
+                analysed.add(commit.getSha());
+            }
         };
 
-        Thread t = new Thread(run);
-        t.start();
+        CommitPlan plan = CommitPlan.create(commits, commit -> !issueProcessor.getIssueKeys(commit).isEmpty());
+        List<CommitModel> required = plan.getRequired();
+        logger.info(String.format("%d of %d commits of repository %s are required by issues", required.size(),
+                commits.size(), repo.getName()));
+
+        List<CommitModel> round = required;
+        while (!round.isEmpty()) {
+            runAll(round.stream(), process, executor);
+            round = demandOnly ? plan.getFallbacks(round.stream().filter(plan::isBaseline)
+                    .filter(commit -> !BuildStatus.SUCCESSFUL.equals(commit.getBuildStatus()))
+                    .collect(Collectors.toList())) : Collections.emptyList();
+        }
+
+        if (demandOnly) {
+            runAll(plan.getRemaining().stream(), commit -> saveSkippedCommit(commit, repo, issueProcessor),
+                    executor);
+        } else {
+            runAll(plan.getRemaining().stream(), process, executor);
+        }
+
+        return commits.size() - analysed.size();
+    }
+
+    /**
+     * Analyses the commits chosen by a {@link CommitSampler} along the first
+     * parent chain of the newest commit, one round of samples at a time, then
+     * saves the commits that were not sampled without building them.
+     * @param commits the commits, oldest first
+     * @return number of commits that were not analysed and saved
+     */
+    int processSample(List<CommitModel> commits, RepositoryModel repo, IssueProcessor issueProcessor,
+            WorkspacePool workspaces, ExecutorService executor) {
+        List<CommitModel> chain = CommitSampler.getFirstParentChain(commits).stream().map(commits::get)
+                .collect(Collectors.toList());
+        CommitSampler<List<Object>> sampler = new CommitSampler<>(chain.size(), samplingInterval,
+                samplingResolution);
+        Set<String> analysed = ConcurrentHashMap.newKeySet();
+
+        List<Integer> samples = sampler.initialSamples();
+        while (!samples.isEmpty()) {
+            logger.info(String.format("Analysing %d sampled commits of repository %s", samples.size(),
+                    repo.getName()));
+            runAll(samples.stream(), index -> {
+                CommitModel commit = chain.get(index);
+                if (processCommit(commit, repo, issueProcessor, workspaces)) {
+                    analysed.add(commit.getSha());
+                }
+                sampler.record(index, getSampleResult(commit));
+            }, executor);
+            samples = sampler.nextSamples();
+        }
+
+        logger.info(String.format("Analysed %d of %d commits of repository %s, sampling %d commits on the first "
+                + "parent chain", sampler.getSampleCount(), commits.size(), repo.getName(), chain.size()));
+
+        // merged branches are not sampled, later runs without sampling analyse them
+        Set<String> sampled = IntStream.range(0, chain.size()).filter(sampler::isSampled)
+                .mapToObj(index -> chain.get(index).getSha()).collect(Collectors.toSet());
+        runAll(commits.stream().filter(commit -> !sampled.contains(commit.getSha())),
+                commit -> saveSkippedCommit(commit, repo, issueProcessor), executor);
+        return commits.size() - analysed.size();
+    }
+
+    /**
+     * Runs the task for every item on the executor and waits for all of them.
+     */
+    private <T> void runAll(Stream<T> items, Consumer<T> task, ExecutorService executor) {
+        CompletableFuture<?>[] futures = items.map(item -> CompletableFuture.runAsync(() -> {
+            try {
+                task.accept(item);
+            } catch (RuntimeException e) {
+                logger.error("An error occurred when processing a commit", e);
+            }
+        }, executor)).toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * Saves a commit that is not analysed with status NOT_STARTED.
+     */
+    private void saveSkippedCommit(CommitModel commit, RepositoryModel repo, IssueProcessor issueProcessor) {
+        commit.setRepositoryId(repo.getId());
+        commit.setBuildStatus(BuildStatus.NOT_STARTED);
+        saveCommit(commit, issueProcessor);
+    }
+
+    /**
+     * Returns what is compared between sampled commits: the build status and
+     * the technical debt counts.
+     */
+    private static List<Object> getSampleResult(CommitModel commit) {
+        TechnicalDebt debt = commit.getTechnicalDebt();
+        if (debt == null) {
+            return Arrays.asList(commit.getBuildStatus());
+        }
+
+        return Arrays.asList(commit.getBuildStatus(), debt.getTotalCount(), debt.getHighCount(),
+                debt.getMediumCount(), debt.getLowCount());
+    }
+
+    /**
+     * Retrieves the issues that failed because the tracker was throttling or
+     * unavailable, and adds them to the commits that were saved without them.
+     */
+    private void retryDeferredIssues(RepositoryModel repo, IssueProcessor issueProcessor) {
+        issueProcessor.retryDeferredIssues((issue, shas) -> {
+            bulkWriter.saveIssues(Collections.singletonList(issue));
+            for (String sha : shas) {
+                CommitModel commit = bulkWriter.findCommit(sha, repo.getId());
+                if (commit == null) {
+                    continue;
+                }
+
+                List<String> issueIds = commit.getIssueIds() != null ? new ArrayList<>(commit.getIssueIds())
+                        : new ArrayList<>();
+                if (!issueIds.contains(issue.getIssueId())) {
+                    issueIds.add(issue.getIssueId());
+                    commit.setIssueIds(issueIds);
+                    commitProcessor.saveCommit(commit);
+                }
+            }
+        });
+    }
+
+    /**
+     * Imports all issues of the repository. Incremental runs start from the
+     * issues saved by the previous run.
+     */
+    private void importIssues(RepositoryModel repo, IssueProcessor issueProcessor) {
+        List<IssueModel> known = incremental
+                ? issueRepository.findIssueModelsByRepositoryId(repo.getId(), new Sort(Sort.Direction.ASC, "updated"))
+                : new ArrayList<>();
+        if (!issueProcessor.importIssues(known)) {
+            logger.warn(String.format("Issues of repository %s will be retrieved one by one", repo.getName()));
+        }
+    }
+
+    /**
+     * Links the commit to its issues and saves both.
+     */
+    private void saveCommit(CommitModel commit, IssueProcessor issueProcessor) {
+        // get issues
+        List<IssueModel> issues = issueProcessor.getIssues(commit);
+        commit.setIssueIds(issueProcessor.getIssueIds(issues));
+        bulkWriter.saveIssues(issues);
+
+        commitProcessor.saveCommit(commit);
+    }
+
+    /**
+     * Checks out, builds and analyses a commit in one of the workspaces.
+     * @return false if the commit could not be checked out
+     */
+    boolean analyseInWorkspace(CommitModel commit, WorkspacePool workspaces) {
+        Workspace workspace;
+        try {
+            workspace = workspaces.borrow();
+        } catch (InterruptedException e) {
+            logger.error(String.format("Interrupted before processing commit %s", commit.getSha()), e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        try {
+            // checkout revision
+            if (!workspace.getVersionControl().checkoutRevision(commit.getSha())) {
+                return false;
+            }
+
+            // process commit
+            commitProcessor.processCommit(commit, workspace.getRepository(), NO_PARENT_RESULTS);
+            return true;
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    /**
+     * Loads the SHAs of the commits of the repository that are already in the
+     * commits collection. Returns an empty checkpoint if resuming is disabled.
+     */
+    CommitCheckpoint loadCheckpoint(RepositoryModel repo) {
+        if (!resume) {
+            return CommitCheckpoint.empty();
+        }
+
+        CommitCheckpoint checkpoint = new CommitCheckpoint(commitRepository.findShasByRepositoryId(repo.getId()));
+        logger.info(String.format("Resuming repository %s, %d commits already processed", repo.getName(),
+                checkpoint.size()));
+        return checkpoint;
+    }
+
+    /**
+     * Copies the tips processed by the last run from the stored repository,
+     * since the repository read from file does not know about them.
+     */
+    void restoreProcessedTips(RepositoryModel repo) {
+        RepositoryModel stored = projectRepository.findOne(repo.getId());
+        if (stored != null) {
+            repo.setProcessedTips(stored.getProcessedTips());
+            repo.setProcessedSelection(stored.getProcessedSelection());
+        }
+    }
+
+    /**
+     * Returns the history selection the processed tips were taken from. Tips
+     * taken from another selection do not stand for the commits of this one.
+     */
+    static String getProcessedSelection(RepositoryModel repo) {
+        return repo.getProcessedSelection() != null ? repo.getProcessedSelection()
+                : HistorySelection.all().getHistoryKey();
     }
 
     /**
@@ -108,8 +647,14 @@ public class RepositoryProcessor {
         VersionControlHelper versionControlHelper = null;
 
         try {
-            versionControlHelper = repoPath.exists() ? new VersionControlHelper(repoPath)
-                    : new VersionControlHelper(repo.getURI(), repoPath);
+            if (repoPath.exists()) {
+                versionControlHelper = new VersionControlHelper(repoPath);
+                if (incremental) {
+                    versionControlHelper.fetch();
+                }
+            } else {
+                versionControlHelper = new VersionControlHelper(repo.getURI(), repoPath);
+            }
             repo.setProjectFolder(repoPath);
         } catch (IOException | GitAPIException e) {
             logger.error(String.format("An error occurred when processing repository %s", repo.getURI()), e);
@@ -122,9 +667,43 @@ public class RepositoryProcessor {
 
     private IssueProcessor createIssueProcessor(RepositoryModel repo) {
         if (repo.getIssueTrackerURI().contains("jira")) {
-            return new IssueProcessor(jiraUsername, jiraPassword, repo);
+            return new IssueProcessor(jiraUsername, jiraPassword, repo, requestScheduler);
         } else {
-            return new IssueProcessor(githubUsername, githubToken, repo);
+            return new IssueProcessor(githubUsername, githubToken, repo, requestScheduler);
+        }
+    }
+
+    /**
+     * Names the commit worker threads after the repository they work on.
+     */
+    private static class CommitThreadFactory implements ThreadFactory {
+
+        private final String repositoryName;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        CommitThreadFactory(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, repositoryName + "-commit-" + counter.incrementAndGet());
+        }
+    }
+
+    /**
+     * Daemon threads for issue tracker requests, so that requests still in
+     * flight do not keep the loader alive.
+     */
+    private static class TrackerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "tracker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 }
@@ -0,0 +1,5 @@
+package com.td.scheduler;
+
+public enum JobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
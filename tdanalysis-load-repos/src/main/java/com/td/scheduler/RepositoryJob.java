@@ -0,0 +1,81 @@
+package com.td.scheduler;
+
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+import com.td.models.RepositoryModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A unit of work submitted to the {@link RepositoryScheduler}. Wraps the
+ * processing of a single repository and keeps track of its status.
+ */
+public class RepositoryJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryJob.class);
+
+    private final RepositoryModel repository;
+    private final Predicate<RepositoryModel> task;
+
+    private volatile JobStatus status;
+    private volatile LocalDateTime started;
+    private volatile LocalDateTime finished;
+
+    public RepositoryJob(RepositoryModel repository, Predicate<RepositoryModel> task) {
+        this.repository = repository;
+        this.task = task;
+        this.status = JobStatus.QUEUED;
+    }
+
+    @Override
+    public void run() {
+        this.started = LocalDateTime.now();
+        this.status = JobStatus.RUNNING;
+        logger.info(String.format("Started processing repository %s", repository.getName()));
+
+        try {
+            this.status = task.test(repository) ? JobStatus.COMPLETED : JobStatus.FAILED;
+        } catch (RuntimeException e) {
+            logger.error(String.format("An error occurred when processing repository %s", repository.getName()), e);
+            this.status = JobStatus.FAILED;
+        } finally {
+            this.finished = LocalDateTime.now();
+        }
+
+        logger.info(String.format("Finished processing repository %s with status %s", repository.getName(), status));
+    }
+
+    /**
+     * @return the repository
+     */
+    public RepositoryModel getRepository() {
+        return repository;
+    }
+
+    /**
+     * @return the status
+     */
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the time the job started running, or null if still queued
+     */
+    public LocalDateTime getStarted() {
+        return started;
+    }
+
+    /**
+     * @return the time the job finished, or null if not done yet
+     */
+    public LocalDateTime getFinished() {
+        return finished;
+    }
+
+    public boolean isDone() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+}
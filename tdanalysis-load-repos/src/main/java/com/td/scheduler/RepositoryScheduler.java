@@ -0,0 +1,179 @@
+package com.td.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.td.models.RepositoryModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs repository jobs on a bounded pool of worker threads. Jobs that do not
+ * fit in the pool wait in a queue until a worker becomes available, so that
+ * the number of concurrent builds and analyses stays within what the host can
+ * handle.
+ */
+@Component
+public class RepositoryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryScheduler.class);
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    /**
+     * Number of workers. If zero or negative, it is computed from the number
+     * of available processors and the physical memory of the host.
+     */
+    @Value("${scheduler.pool.size:0}")
+    private int poolSize;
+
+    /**
+     * Number of cores a single repository job keeps busy (e.g. mvn -T 2).
+     */
+    @Value("${scheduler.job.cores:2}")
+    private int coresPerJob;
+
+    /**
+     * Memory in MB a single repository job needs for its build and analysis
+     * processes.
+     */
+    @Value("${scheduler.job.memory.mb:2048}")
+    private long memoryPerJob;
+
+    private ExecutorService executor;
+    private final List<RepositoryJob> jobs = Collections.synchronizedList(new ArrayList<>());
+
+    public RepositoryScheduler() {
+    }
+
+    /**
+     * Creates a scheduler that is not initialised yet, for tests.
+     */
+    RepositoryScheduler(int poolSize, int coresPerJob, long memoryPerJob) {
+        this.poolSize = poolSize;
+        this.coresPerJob = coresPerJob;
+        this.memoryPerJob = memoryPerJob;
+    }
+
+    @PostConstruct
+    void initialise() {
+        int workers = poolSize > 0 ? poolSize : computePoolSize();
+        logger.info(String.format("Initialising repository scheduler with %d workers", workers));
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new WorkerThreadFactory());
+    }
+
+    /**
+     * Adds a repository job to the queue.
+     * @param repository the repository to process
+     * @param task processing function, returns false if the job failed
+     */
+    public RepositoryJob submit(RepositoryModel repository, Predicate<RepositoryModel> task) {
+        RepositoryJob job = new RepositoryJob(repository, task);
+        jobs.add(job);
+        executor.execute(job);
+        logger.info(String.format("Queued repository %s", repository.getName()));
+        return job;
+    }
+
+    /**
+     * Returns a snapshot of all jobs submitted so far.
+     */
+    public List<RepositoryJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs);
+        }
+    }
+
+    /**
+     * Stops accepting new jobs and blocks until all submitted jobs are done.
+     * @return true if all jobs have completed successfully
+     */
+    public boolean awaitCompletion() throws InterruptedException {
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            logStatus();
+        }
+
+        List<RepositoryJob> snapshot = getJobs();
+        long failed = snapshot.stream().filter(job -> job.getStatus() == JobStatus.FAILED).count();
+        logger.info(String.format("All repository jobs finished: %d completed, %d failed", snapshot.size() - failed,
+                failed));
+
+        return failed == 0;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null && !executor.isTerminated()) {
+            logger.info("Shutting down repository scheduler");
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Logs how many jobs are in each state.
+     */
+    void logStatus() {
+        List<RepositoryJob> snapshot = getJobs();
+        StringBuilder sb = new StringBuilder("Repository jobs:");
+        for (JobStatus status : JobStatus.values()) {
+            long count = snapshot.stream().filter(job -> job.getStatus() == status).count();
+            sb.append(String.format(" %s=%d", status, count));
+        }
+        logger.info(sb.toString());
+    }
+
+    /**
+     * Limits the number of workers by both CPU and memory, so that the host
+     * is not oversubscribed by concurrent builds.
+     */
+    int computePoolSize() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int byCores = cores / Math.max(1, coresPerJob);
+
+        long memory = getPhysicalMemory() / BYTES_PER_MB;
+        int byMemory = memory > 0 ? (int) (memory / Math.max(1, memoryPerJob)) : byCores;
+
+        return Math.max(1, Math.min(byCores, byMemory));
+    }
+
+    /**
+     * Returns the total physical memory of the host in bytes, or -1 if not
+     * available on this JVM.
+     */
+    private long getPhysicalMemory() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getTotalPhysicalMemorySize();
+        }
+        return -1;
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "repo-worker-" + counter.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+}
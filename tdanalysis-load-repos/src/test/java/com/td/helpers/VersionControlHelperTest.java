@@ -0,0 +1,193 @@
+package com.td.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.td.models.CommitModel;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VersionControlHelperTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private int day;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        root = folder.newFolder("repo");
+        try (Git git = Git.init().setDirectory(root).call()) {
+            write("pom.xml", "<project/>");
+            write("src/A.java", "class A {}");
+            commit(git, "root");
+
+            write("src/A.java", "class A { int a; }");
+            write("src/B.java", "class B {}");
+            commit(git, "TD-1 change A, add B");
+
+            git.rm().addFilepattern("pom.xml").call();
+            commit(git, "TD-2 remove pom");
+        }
+    }
+
+    @Test
+    public void testDiffsOfHistory() throws IOException {
+        try (VersionControlHelper vch = new VersionControlHelper(root);
+                Stream<CommitModel> stream = vch.getCommitStream(sha -> true, Collections.emptyList())) {
+            List<CommitModel> commits = stream.collect(Collectors.toList());
+            assertEquals(3, commits.size());
+
+            // the root commit is compared against an empty tree
+            assertEquals(Arrays.asList("pom.xml", "src/A.java"), commits.get(0).getDiff().getAdditionSet());
+            assertEquals(2, commits.get(0).getDiff().getTotalChanges());
+
+            assertEquals(Collections.singletonList("src/B.java"), commits.get(1).getDiff().getAdditionSet());
+            assertEquals(Collections.singletonList("src/A.java"), commits.get(1).getDiff().getModificationSet());
+
+            assertEquals(Collections.singletonList("pom.xml"), commits.get(2).getDiff().getDeletionSet());
+            assertTrue(commits.get(2).getDiff().getAdditionSet().isEmpty());
+        }
+    }
+
+    @Test
+    public void testParallelDiffsKeepOrder() throws IOException {
+        try (VersionControlHelper vch = new VersionControlHelper(root);
+                Stream<CommitModel> sequential = vch.getCommitStream(sha -> true, Collections.emptyList(), 1);
+                Stream<CommitModel> parallel = vch.getCommitStream(sha -> true, Collections.emptyList(), 3)) {
+            List<CommitModel> expected = sequential.collect(Collectors.toList());
+            List<CommitModel> actual = parallel.collect(Collectors.toList());
+
+            assertEquals(expected.stream().map(CommitModel::getSha).collect(Collectors.toList()),
+                    actual.stream().map(CommitModel::getSha).collect(Collectors.toList()));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getDiff().getAdditionSet(), actual.get(i).getDiff().getAdditionSet());
+                assertEquals(expected.get(i).getDiff().getModificationSet(),
+                        actual.get(i).getDiff().getModificationSet());
+                assertEquals(expected.get(i).getDiff().getDeletionSet(), actual.get(i).getDiff().getDeletionSet());
+            }
+        }
+    }
+
+    @Test
+    public void testHistorySelection() throws IOException, GitAPIException {
+        try (Git git = Git.open(root)) {
+            git.branchCreate().setName("feature").call();
+            git.checkout().setName("feature").call();
+            write("src/F.java", "class F {}");
+            commit(git, "feature");
+
+            git.checkout().setName("master").call();
+            write("src/M.java", "class M {}");
+            commit(git, "mainline");
+            git.merge().include(git.getRepository().resolve("feature"))
+                    .setFastForward(MergeCommand.FastForwardMode.NO_FF).setMessage("merge").call();
+        }
+
+        assertEquals(Arrays.asList("root", "TD-1 change A, add B", "TD-2 remove pom", "feature", "mainline", "merge"),
+                getMessages(HistorySelection.all()));
+        assertEquals(Arrays.asList("root", "TD-1 change A, add B", "TD-2 remove pom", "mainline", "merge"),
+                getMessages(new HistorySelection("master", true, false, null, null)));
+        assertEquals(Arrays.asList("root", "TD-1 change A, add B", "TD-2 remove pom", "mainline"),
+                getMessages(new HistorySelection("master", true, true, null, null)));
+        assertEquals(Arrays.asList("root", "TD-1 change A, add B", "TD-2 remove pom", "feature"),
+                getMessages(new HistorySelection("feature", false, false, null, null)));
+        assertEquals(Arrays.asList("TD-1 change A, add B", "TD-2 remove pom", "feature"),
+                getMessages(new HistorySelection(null, false, false, Instant.parse("2018-01-02T00:00:00Z"),
+                        Instant.parse("2018-01-04T23:59:59Z"))));
+        assertEquals(Collections.emptyList(), getMessages(new HistorySelection("missing", false, false, null, null)));
+    }
+
+    @Test
+    public void testDiffOfRevisions() throws IOException {
+        try (VersionControlHelper vch = new VersionControlHelper(root)) {
+            List<String> tips = vch.getTips();
+            assertEquals(1, tips.size());
+
+            assertEquals(Collections.singletonList("pom.xml"), vch.getDiff(tips.get(0) + "^", tips.get(0))
+                    .getDeletionSet());
+        }
+    }
+
+    @Test
+    public void testIncrementalWalkSkipsProcessedHistory() throws IOException, GitAPIException {
+        List<String> processedTips;
+        try (VersionControlHelper vch = new VersionControlHelper(root)) {
+            processedTips = vch.getTips();
+        }
+
+        try (Git git = Git.open(root)) {
+            write("src/C.java", "class C {}");
+            commit(git, "TD-3 add C");
+            write("src/C.java", "class C { int c; }");
+            commit(git, "TD-4 change C");
+        }
+
+        try (VersionControlHelper vch = new VersionControlHelper(root)) {
+            try (Stream<CommitModel> commits = vch.getCommitStream(sha -> true, processedTips)) {
+                assertEquals(Arrays.asList("TD-3 add C", "TD-4 change C"),
+                        commits.map(CommitModel::getMessage).collect(Collectors.toList()));
+            }
+            try (Stream<String> messages = vch.getCommitMessages(sha -> true, processedTips)) {
+                assertEquals(Arrays.asList("TD-3 add C", "TD-4 change C"), messages.collect(Collectors.toList()));
+            }
+
+            // tips that no longer exist, e.g. after a force push, do not exclude anything
+            try (Stream<CommitModel> commits = vch.getCommitStream(sha -> true,
+                    Collections.singletonList("0123456789012345678901234567890123456789"))) {
+                assertEquals(5, commits.count());
+            }
+        }
+    }
+
+    private List<String> getMessages(HistorySelection selection) throws IOException {
+        try (VersionControlHelper vch = new VersionControlHelper(root)) {
+            vch.setHistorySelection(selection);
+            try (Stream<String> messages = vch.getCommitMessages(sha -> true, Collections.emptyList())) {
+                return messages.collect(Collectors.toList());
+            }
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Commits all changes, one day after the previous commit.
+     */
+    private void commit(Git git, String message) throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage(message).setAuthor("dev", "dev@example.com").setCommitter(nextDay()).call();
+    }
+
+    private PersonIdent nextDay() {
+        Instant time = LocalDate.of(2018, 1, 1).plusDays(day++).atTime(12, 0).toInstant(ZoneOffset.UTC);
+        return new PersonIdent("dev", "dev@example.com", Date.from(time), TimeZone.getTimeZone("UTC"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.td.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import com.td.models.RepositoryModel;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WorkspacePoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private RepositoryModel repo;
+    private List<String> shas;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        root = folder.newFolder("project");
+        try (Git git = Git.init().setDirectory(root).call()) {
+            ObjectId first = commit(git, "class A {}");
+            ObjectId second = commit(git, "class A { int a; }");
+            shas = Arrays.asList(first.getName(), second.getName());
+        }
+
+        repo = new RepositoryModel();
+        repo.setId("1");
+        repo.setName("project");
+        repo.setProjectFolder(root);
+    }
+
+    @Test
+    public void testWorkspacesCheckOutRevisionsIndependently() throws IOException, GitAPIException,
+            InterruptedException {
+        try (VersionControlHelper vch = new VersionControlHelper(root);
+                WorkspacePool workspaces = WorkspacePool.create(vch, repo, folder.getRoot().getAbsolutePath(), 2)) {
+            assertEquals(2, workspaces.size());
+            Workspace first = workspaces.borrow();
+            Workspace second = workspaces.borrow();
+
+            File firstFolder = first.getRepository().getProjectFolder();
+            assertEquals(new File(folder.getRoot(), "project-workspaces/worker-1"), firstFolder);
+            assertNotEquals(firstFolder, second.getRepository().getProjectFolder());
+
+            first.getVersionControl().checkoutRevision(shas.get(0));
+            second.getVersionControl().checkoutRevision(shas.get(1));
+            assertEquals("class A {}", read(first, "A.java"));
+            assertEquals("class A { int a; }", read(second, "A.java"));
+
+            // the history is borrowed from the main clone instead of being copied
+            assertEquals(new File(root, ".git/objects").getAbsolutePath(),
+                    new String(Files.readAllBytes(Paths.get(firstFolder.getAbsolutePath(), ".git", "objects", "info",
+                            "alternates")), StandardCharsets.UTF_8).trim());
+
+            workspaces.release(first);
+            assertSame(first, workspaces.borrow());
+        }
+    }
+
+    @Test
+    public void testSingleWorkspaceIsMainClone() throws IOException, GitAPIException, InterruptedException {
+        try (VersionControlHelper vch = new VersionControlHelper(root)) {
+            try (WorkspacePool workspaces = WorkspacePool.create(vch, repo, folder.getRoot().getAbsolutePath(), 1)) {
+                Workspace workspace = workspaces.borrow();
+                assertSame(vch, workspace.getVersionControl());
+                assertEquals(root, workspace.getRepository().getProjectFolder());
+                assertNotSame(repo, workspace.getRepository());
+            }
+
+            // closing the pool leaves the main clone open
+            assertEquals(2, vch.getCommits().size());
+        }
+    }
+
+    private ObjectId commit(Git git, String content) throws IOException, GitAPIException {
+        Files.write(new File(root, "A.java").toPath(), content.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(content).setAuthor("dev", "dev@example.com").call().getId();
+    }
+
+    private static String read(Workspace workspace, String path) throws IOException {
+        return new String(Files.readAllBytes(new File(workspace.getRepository().getProjectFolder(), path).toPath()),
+                StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,110 @@
+package com.td.helpers.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.td.models.CommitTD;
+import com.td.models.TechnicalDebtPriority;
+import com.td.models.CommitTD.CodeLocation;
+
+import org.junit.Test;
+
+public class FindBugsXmlParserTest {
+
+    private static final String REPORT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<BugCollection version=\"3.1.12\" sequence=\"0\" timestamp=\"0\" analysisTimestamp=\"0\" release=\"\">"
+            + "<Project projectName=\"\"><Jar>link.jar</Jar></Project>"
+            + "<BugInstance type=\"RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE\" priority=\"2\" rank=\"18\" abbrev=\"RCN\" category=\"STYLE\">"
+            + "<Class classname=\"org.springframework.hateoas.Link\">"
+            + "<SourceLine classname=\"org.springframework.hateoas.Link\" start=\"40\" end=\"300\" sourcefile=\"Link.java\"/>"
+            + "</Class>"
+            + "<Method classname=\"org.springframework.hateoas.Link\" name=\"hashCode\" signature=\"()I\" isStatic=\"false\">"
+            + "<SourceLine classname=\"org.springframework.hateoas.Link\" start=\"50\" end=\"60\" sourcefile=\"Link.java\"/>"
+            + "</Method>"
+            + "<Type descriptor=\"Ljava/lang/String;\" role=\"TYPE_FOUND\">"
+            + "<SourceLine classname=\"java.lang.String\" start=\"111\" end=\"3141\" sourcefile=\"String.java\"/>"
+            + "</Type>"
+            + "<SourceLine classname=\"java.lang.String\" start=\"1\" end=\"1\" sourcefile=\"String.java\" role=\"SOURCE_LINE_ANOTHER_INSTANCE\"/>"
+            + "<SourceLine classname=\"org.springframework.hateoas.Link\" start=\"55\" end=\"55\" sourcefile=\"Link.java\"/>"
+            + "</BugInstance>"
+            + "<BugInstance type=\"ES_COMPARING_PARAMETER_STRING_WITH_EQ\" priority=\"1\" rank=\"5\" abbrev=\"ES\" category=\"BAD_PRACTICE\">"
+            + "<Class classname=\"org.springframework.hateoas.hal.forms.HalFormsTemplate\">"
+            + "<SourceLine classname=\"org.springframework.hateoas.hal.forms.HalFormsTemplate\" sourcefile=\"HalFormsTemplate.java\"/>"
+            + "</Class>"
+            + "<Method classname=\"org.springframework.hateoas.hal.forms.HalFormsTemplate\" name=\"withTitle\" signature=\"(Ljava/lang/String;)V\" isStatic=\"false\">"
+            + "<SourceLine classname=\"org.springframework.hateoas.hal.forms.HalFormsTemplate\" start=\"62\" end=\"80\" sourcefile=\"HalFormsTemplate.java\"/>"
+            + "</Method>"
+            + "</BugInstance>"
+            + "<BugInstance type=\"SE_BAD_FIELD\" priority=\"3\" abbrev=\"Se\" category=\"BAD_PRACTICE\">"
+            + "<Class classname=\"org.springframework.hateoas.Resource\">"
+            + "<SourceLine classname=\"org.springframework.hateoas.Resource\" sourcefile=\"Resource.java\"/>"
+            + "</Class>"
+            + "</BugInstance>"
+            + "<BugCategory category=\"STYLE\"><Description>Dodgy code</Description></BugCategory>"
+            + "</BugCollection>";
+
+    private List<CommitTD> parse(String report) throws XMLStreamException {
+        List<CommitTD> results = new ArrayList<>();
+        FindBugsXmlParser.parse(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8)), results::add);
+        return results;
+    }
+
+    @Test
+    public void testParseBugCount() throws XMLStreamException {
+        assertEquals(3, parse(REPORT).size());
+    }
+
+    @Test
+    public void testParseBugLocation() throws XMLStreamException {
+        CommitTD bug = parse(REPORT).get(0);
+
+        assertEquals("D", bug.getId().getCategoryInitial());
+        assertEquals("RCN", bug.getId().getIssueCode());
+        assertEquals(TechnicalDebtPriority.MEDIUM, bug.getPriority());
+        assertEquals(new CodeLocation("Link.java", "55"), bug.getLocation());
+        assertEquals(Integer.valueOf(18), bug.getRank());
+        assertEquals("org.springframework.hateoas.Link.hashCode", bug.getMethod());
+    }
+
+    @Test
+    public void testParseMethodLocation() throws XMLStreamException {
+        CommitTD bug = parse(REPORT).get(1);
+
+        assertEquals("B", bug.getId().getCategoryInitial());
+        assertEquals(TechnicalDebtPriority.HIGH, bug.getPriority());
+        assertEquals(new CodeLocation("HalFormsTemplate.java", "62-80"), bug.getLocation());
+    }
+
+    @Test
+    public void testParseClassLocation() throws XMLStreamException {
+        CommitTD bug = parse(REPORT).get(2);
+
+        assertEquals(TechnicalDebtPriority.LOW, bug.getPriority());
+        assertEquals(new CodeLocation("Resource.java", null), bug.getLocation());
+        assertNull(bug.getRank());
+        assertNull(bug.getMethod());
+    }
+
+    @Test
+    public void testMalformedNumbersIgnored() throws XMLStreamException {
+        List<CommitTD> bugs = parse("<BugCollection>"
+                + "<BugInstance type=\"SE_BAD_FIELD\" priority=\"2\" rank=\"high\" abbrev=\"Se\" category=\"STYLE\">"
+                + "<Class classname=\"Resource\">"
+                + "<SourceLine classname=\"Resource\" start=\"\" end=\"12\" sourcefile=\"Resource.java\"/>"
+                + "</Class>"
+                + "<SourceLine classname=\"Resource\" start=\"40\" end=\"x\" sourcefile=\"Resource.java\"/>"
+                + "</BugInstance>"
+                + "</BugCollection>");
+
+        assertEquals(1, bugs.size());
+        assertNull(bugs.get(0).getRank());
+        assertEquals(new CodeLocation("Resource.java", "40"), bugs.get(0).getLocation());
+    }
+}
@@ -0,0 +1,44 @@
+package com.td.helpers.analysis;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.td.helpers.HistorySelection;
+
+import org.junit.Test;
+
+public class IsolatedClassLoaderTest {
+
+    @Test
+    public void testIsolatedClassesDefinedFromParentClassFiles() throws ClassNotFoundException, IOException {
+        try (IsolatedClassLoader loader = new IsolatedClassLoader(new URL[0], getClass().getClassLoader(),
+                Arrays.asList("java.", "com.td."), Collections.singletonList(HistorySelection.class.getName()))) {
+            Class<?> isolated = loader.loadClass(HistorySelection.class.getName());
+
+            assertSame(loader, isolated.getClassLoader());
+            assertNotSame(HistorySelection.class, isolated);
+            assertSame(isolated, loader.loadClass(HistorySelection.class.getName()));
+        }
+    }
+
+    @Test
+    public void testSharedClassesTakenFromParent() throws ClassNotFoundException, IOException {
+        try (IsolatedClassLoader loader = new IsolatedClassLoader(new URL[0], getClass().getClassLoader(),
+                Arrays.asList("java.", "com.td."), Collections.singletonList("com.td.helpers.analysis.spotbugs."))) {
+            assertSame(SpotBugsEngine.class, loader.loadClass(SpotBugsEngine.class.getName()));
+        }
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testMissingIsolatedClass() throws ClassNotFoundException, IOException {
+        try (IsolatedClassLoader loader = new IsolatedClassLoader(new URL[0], getClass().getClassLoader(),
+                Collections.singletonList("java."), Collections.singletonList("com.td.missing."))) {
+            loader.loadClass("com.td.missing.Engine");
+        }
+    }
+}
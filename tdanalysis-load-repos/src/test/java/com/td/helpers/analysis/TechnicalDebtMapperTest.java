@@ -1,6 +1,11 @@
 package com.td.helpers.analysis;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import com.td.models.CommitTD;
+import com.td.models.TechnicalDebtPriority;
 
 import com.td.models.CommitTD.CodeLocation;
 
@@ -41,4 +46,39 @@ public class TechnicalDebtMapperTest {
 
         assertEquals(expected.getFileName(), actual.getFileName());
     }
+
+    @Test
+    public void testCodeLocationFollowedByText() {
+        String line = "M X OBL: org.eclipse.jgit.api.ApplyCommand.apply(File, FileHeader) may fail to clean up java.io.Writer on checked exception  Obligation to clean up resource created at ApplyCommand.java:[line 262] is not discharged";
+        CodeLocation expected = new CodeLocation("ApplyCommand.java", "262");
+        CodeLocation actual = TechnicalDebtMapper.parseLocation(line);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testParseFindBugsOutput() {
+        String line = "H B ES: Comparison of String parameter using == or != in org.springframework.hateoas.hal.forms.HalFormsTemplate.withTitle(String)   At HalFormsTemplate.java:[lines 62-80]";
+        CommitTD actual = TechnicalDebtMapper.parseFindBugsOutput(line).get();
+
+        assertEquals(TechnicalDebtPriority.HIGH, actual.getPriority());
+        assertEquals("B", actual.getId().getCategoryInitial());
+        assertEquals("ES", actual.getId().getIssueCode());
+        assertEquals(new CodeLocation("HalFormsTemplate.java", "62-80"), actual.getLocation());
+    }
+
+    @Test
+    public void testParseFindBugsOutputNoLocation() {
+        assertFalse(TechnicalDebtMapper.parseFindBugsOutput("Warnings generated: 27").isPresent());
+        assertFalse(TechnicalDebtMapper.parseFindBugsOutput("The following classes needed for analysis were missing:").isPresent());
+    }
+
+    @Test
+    public void testParseFindBugsOutputInterned() {
+        String line = "M D RCN: Redundant nullcheck of $affordances, which is known to be non-null in org.springframework.hateoas.Link.hashCode()  Redundant null check at Link.java:[line 55]";
+        CommitTD first = TechnicalDebtMapper.parseFindBugsOutput(line).get();
+        CommitTD second = TechnicalDebtMapper.parseFindBugsOutput(new String(line)).get();
+
+        assertSame(first.getId(), second.getId());
+        assertSame(first.getLocation(), second.getLocation());
+    }
 }
\ No newline at end of file
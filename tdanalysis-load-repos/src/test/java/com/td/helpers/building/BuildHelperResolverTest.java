@@ -0,0 +1,79 @@
+package com.td.helpers.building;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+import com.td.models.RepositoryModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildHelperResolverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MavenBuildHelper maven = new MavenBuildHelper();
+    private final GradleBuildHelper gradle = new GradleBuildHelper();
+    private final BuildHelperResolver resolver = new BuildHelperResolver(Arrays.asList(maven, gradle));
+
+    private RepositoryModel repo;
+
+    @Before
+    public void setUp() {
+        repo = new RepositoryModel();
+        repo.setProjectFolder(folder.getRoot());
+        repo.setBuildCommand("mvn clean install -DskipTests");
+    }
+
+    @Test
+    public void testMavenProject() throws IOException {
+        folder.newFile("pom.xml");
+
+        assertEquals(Optional.of(maven), resolver.getBuildHelper(repo));
+    }
+
+    @Test
+    public void testGradleProject() throws IOException {
+        folder.newFile("build.gradle");
+
+        assertEquals(Optional.of(gradle), resolver.getBuildHelper(repo));
+    }
+
+    @Test
+    public void testBuildCommandDecidesBetweenBuildTools() throws IOException {
+        folder.newFile("pom.xml");
+        folder.newFile("settings.gradle.kts");
+
+        assertEquals(Optional.of(maven), resolver.getBuildHelper(repo));
+
+        repo.setBuildCommand("./gradlew clean build");
+        assertEquals(Optional.of(gradle), resolver.getBuildHelper(repo));
+    }
+
+    @Test
+    public void testNoBuildFiles() {
+        assertEquals(Optional.of(maven), resolver.getBuildHelper(repo));
+
+        repo.setBuildCommand("make all");
+        assertFalse(resolver.getBuildHelper(repo).isPresent());
+    }
+
+    @Test
+    public void testBuildFileInSubfolderIsIgnored() throws IOException {
+        File module = folder.newFolder("module");
+        assertTrue(new File(module, "build.gradle").createNewFile());
+        repo.setBuildCommand("gradle build");
+
+        assertEquals(Optional.of(gradle), resolver.getBuildHelper(repo));
+        assertFalse(gradle.canBuild(folder.getRoot()));
+    }
+}
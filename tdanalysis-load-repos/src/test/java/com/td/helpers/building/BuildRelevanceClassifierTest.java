@@ -0,0 +1,56 @@
+package com.td.helpers.building;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.td.models.CommitDiff;
+
+import org.junit.Test;
+
+public class BuildRelevanceClassifierTest {
+
+    private final BuildRelevanceClassifier classifier = new BuildRelevanceClassifier(
+            BuildRelevanceClassifier.DEFAULT_PATTERNS.split(","));
+
+    @Test
+    public void testSourcesAndBuildFilesAreRelevant() {
+        assertTrue(classifier.isRelevant("Link.java"));
+        assertTrue(classifier.isRelevant("src/main/java/org/springframework/hateoas/Link.java"));
+        assertTrue(classifier.isRelevant("pom.xml"));
+        assertTrue(classifier.isRelevant("core/pom.xml"));
+        assertTrue(classifier.isRelevant("build.gradle"));
+        assertTrue(classifier.isRelevant("core/src/main/resources/application.properties"));
+    }
+
+    @Test
+    public void testDocsAndConfigAreNotRelevant() {
+        assertFalse(classifier.isRelevant("README.md"));
+        assertFalse(classifier.isRelevant("docs/index.adoc"));
+        assertFalse(classifier.isRelevant(".travis.yml"));
+        assertFalse(classifier.isRelevant("src/test/resources/fixture.json"));
+    }
+
+    @Test
+    public void testDiffWithOnlyDocs() {
+        CommitDiff diff = new CommitDiff();
+        diff.modify("README.md");
+        diff.add("docs/changelog.md");
+        diff.delete(".travis.yml");
+
+        assertFalse(classifier.isRelevant(diff));
+    }
+
+    @Test
+    public void testDiffWithSources() {
+        CommitDiff diff = new CommitDiff();
+        diff.modify("README.md");
+        diff.delete("src/main/java/Link.java");
+
+        assertTrue(classifier.isRelevant(diff));
+    }
+
+    @Test
+    public void testMissingDiffIsRelevant() {
+        assertTrue(classifier.isRelevant((CommitDiff) null));
+    }
+}
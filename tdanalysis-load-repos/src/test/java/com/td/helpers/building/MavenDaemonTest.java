@@ -0,0 +1,28 @@
+package com.td.helpers.building;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+public class MavenDaemonTest {
+
+    @Test
+    public void testDaemonClassPathHoldsMainClass() throws IOException, ReflectiveOperationException {
+        Path classes = MavenDaemon.getDaemonClasses();
+
+        // the daemon JVM only has the JDK besides Maven
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes.toUri().toURL() }, null)) {
+            Class<?> main = loader.loadClass(MavenDaemonMain.class.getName());
+
+            assertSame(loader, main.getClassLoader());
+            assertEquals("main", main.getMethod("main", String[].class).getName());
+        }
+        assertSame(classes, MavenDaemon.getDaemonClasses());
+    }
+}
@@ -0,0 +1,77 @@
+package com.td.helpers.building;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MavenReactorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot();
+        write("pom.xml", pom("parent", null, "<modules><module>core</module><module>web</module>"
+                + "<module>tools/cli/pom.xml</module></modules>"));
+        write("core/pom.xml", pom("core", "parent", "<modules><module>api</module></modules>"));
+        write("core/api/pom.xml", pom("api", "core", ""));
+        write("web/pom.xml", pom("web", "parent", dependencies("api", "junit")));
+        write("tools/cli/pom.xml", pom("cli", "parent", dependencies("web")));
+        // not listed as a module
+        write("web/src/it/sample/pom.xml", pom("sample", "web", ""));
+    }
+
+    @Test
+    public void testModulesOfReactor() {
+        assertEquals(new TreeSet<>(Arrays.asList("", "core", "core/api", "web", "tools/cli")),
+                MavenReactor.read(root).getModules());
+    }
+
+    @Test
+    public void testDependentsFollowDependenciesAndParents() {
+        MavenReactor reactor = MavenReactor.read(root);
+
+        assertEquals(new TreeSet<>(Arrays.asList("core/api", "web", "tools/cli")),
+                reactor.getDependents(Collections.singleton("core/api")));
+        assertEquals(new TreeSet<>(Arrays.asList("core", "core/api", "web", "tools/cli")),
+                reactor.getDependents(Collections.singleton("core")));
+        assertEquals(Collections.singleton("tools/cli"), reactor.getDependents(Collections.singleton("tools/cli")));
+    }
+
+    private static String pom(String artifactId, String parent, String content) {
+        return "<?xml version=\"1.0\"?><project><modelVersion>4.0.0</modelVersion>"
+                + (parent != null ? "<parent><groupId>com.td</groupId><artifactId>" + parent
+                        + "</artifactId><version>1.0</version></parent>" : "")
+                + "<groupId>com.td</groupId><artifactId>" + artifactId + "</artifactId><version>1.0</version>"
+                + content + "</project>";
+    }
+
+    private static String dependencies(String... artifactIds) {
+        StringBuilder dependencies = new StringBuilder("<dependencies>");
+        for (String artifactId : artifactIds) {
+            dependencies.append("<dependency><groupId>com.td</groupId><artifactId>").append(artifactId)
+                    .append("</artifactId><version>1.0</version></dependency>");
+        }
+        return dependencies.append("</dependencies>").toString();
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
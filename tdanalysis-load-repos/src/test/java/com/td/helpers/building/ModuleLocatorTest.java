@@ -0,0 +1,51 @@
+package com.td.helpers.building;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModuleLocatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot();
+        folder.newFile("pom.xml");
+        folder.newFolder("core", "api");
+        folder.newFile("core/pom.xml");
+        folder.newFile("core/api/pom.xml");
+        folder.newFolder("docs");
+    }
+
+    @Test
+    public void testFilesOfModules() {
+        assertEquals("core", ModuleLocator.getModule(root, Paths.get("core/src/main/java/com/td/Link.java")));
+        assertEquals("core/api", ModuleLocator.getModule(root, Paths.get("core/api/src/main/java/Api.java")));
+        assertEquals("core", ModuleLocator.getModule(root, Paths.get("core/pom.xml")));
+    }
+
+    @Test
+    public void testFilesOfRootModule() {
+        assertEquals(ModuleLocator.ROOT_MODULE, ModuleLocator.getModule(root, Paths.get("pom.xml")));
+        assertEquals(ModuleLocator.ROOT_MODULE, ModuleLocator.getModule(root, Paths.get("docs/index.md")));
+        assertEquals(ModuleLocator.ROOT_MODULE, ModuleLocator.getModule(root, Paths.get("removed/pom.xml")));
+    }
+
+    @Test
+    public void testAbsolutePaths() {
+        File jar = new File(root, "core/api/target/api-1.0.jar");
+
+        assertEquals("core/api", ModuleLocator.getModule(root, jar.toPath()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.td.helpers.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.td.helpers.process.OutputHandler.Action;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessSupervisorTest {
+
+    private ProcessSupervisor supervisor;
+
+    @Before
+    public void setUp() {
+        assumeFalse(System.getProperty("os.name").contains("Windows"));
+        supervisor = new ProcessSupervisor(2);
+    }
+
+    @After
+    public void tearDown() {
+        if (supervisor != null) {
+            supervisor.shutdown();
+        }
+    }
+
+    private ProcessResult run(String script, ProcessPolicy policy, OutputHandler handler) throws IOException {
+        return supervisor.run("test", new ProcessBuilder("sh", "-c", script), policy, handler);
+    }
+
+    @Test
+    public void testCompleted() throws IOException {
+        List<String> lines = new ArrayList<>();
+        ProcessResult result = run("echo one; echo two >&2; exit 3", new ProcessPolicy(0, 0), line -> {
+            lines.add(line);
+            return Action.CONTINUE;
+        });
+
+        assertEquals(TerminationReason.COMPLETED, result.getReason());
+        assertEquals(3, result.getExitCode());
+        assertFalse(result.isSuccessful());
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    public void testFailureDetected() throws IOException {
+        ProcessResult result = run("echo BUILD FAILURE; sleep 30 & wait", new ProcessPolicy(0, 0),
+                line -> line.contains("BUILD FAILURE") ? Action.ABORT : Action.CONTINUE);
+
+        assertEquals(TerminationReason.FAILURE_DETECTED, result.getReason());
+        assertTrue(result.getDurationMillis() < 10000);
+    }
+
+    @Test
+    public void testIdleTimeout() throws IOException {
+        ProcessResult result = run("echo started; sleep 30", new ProcessPolicy(0, 500), line -> Action.CONTINUE);
+
+        assertEquals(TerminationReason.IDLE_TIMEOUT, result.getReason());
+        assertTrue(result.getDurationMillis() < 10000);
+    }
+
+    @Test
+    public void testWallClockTimeout() throws IOException {
+        ProcessResult result = run("while true; do echo working; sleep 0.1; done", new ProcessPolicy(1500, 1000),
+                line -> Action.CONTINUE);
+
+        assertEquals(TerminationReason.WALL_CLOCK_TIMEOUT, result.getReason());
+        assertTrue(result.getDurationMillis() < 10000);
+    }
+}
@@ -0,0 +1,175 @@
+package com.td.helpers.tracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.td.models.IssueModel;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GithubTrackerHelperTest {
+
+    private static final int ISSUES = 250;
+
+    // issue n was last updated n hours after this
+    private static final Instant UPDATED = Instant.parse("2018-01-01T00:00:00Z");
+
+    private HttpServer server;
+    private List<String> requests;
+    private List<String> sinceParams;
+    private GithubTrackerHelper helper;
+
+    @Before
+    public void setUp() throws IOException {
+        requests = new ArrayList<>();
+        sinceParams = new ArrayList<>();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        String apiUrl = "http://localhost:" + server.getAddress().getPort();
+        helper = new GithubTrackerHelper(apiUrl, "owner/project", "user", "token");
+        requests.clear();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.add(path);
+
+        Object body;
+        if (path.equals("/repos/owner/project")) {
+            body = new JSONObject().put("name", "project").put("full_name", "owner/project")
+                    .put("owner", new JSONObject().put("login", "owner"));
+        } else if (path.equals("/repos/owner/project/issues")) {
+            body = listIssues(getParams(exchange));
+        } else if (path.equals("/users/dev")) {
+            body = new JSONObject().put("login", "dev").put("name", "Dev Eloper").put("url", path)
+                    .put("created_at", UPDATED.toString());
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] response = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+
+    private static Map<String, String> getParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] pair = param.split("=", 2);
+            params.put(pair[0], URLDecoder.decode(pair[1], "UTF-8"));
+        }
+        return params;
+    }
+
+    /**
+     * Lists the issues updated since the since parameter, most recent first.
+     */
+    private JSONArray listIssues(Map<String, String> params) {
+        String since = params.get("since");
+        sinceParams.add(since);
+        Instant from = since == null ? Instant.MIN : Instant.parse(since);
+
+        int perPage = Integer.parseInt(params.get("per_page"));
+        int page = Integer.parseInt(params.get("page"));
+
+        JSONArray issues = new JSONArray();
+        IntStream.iterate(ISSUES, n -> n - 1).limit(ISSUES).filter(n -> !getUpdated(n).isBefore(from))
+                .skip((page - 1) * perPage).limit(perPage).forEach(n -> issues.put(createIssue(n)));
+        return issues;
+    }
+
+    private static Instant getUpdated(int number) {
+        return UPDATED.plusSeconds(number * 3600L);
+    }
+
+    private static JSONObject createIssue(int number) {
+        boolean closed = number % 2 == 0;
+        return new JSONObject().put("number", number).put("title", "Issue " + number).put("body", JSONObject.NULL)
+                .put("state", closed ? "closed" : "open")
+                .put("labels", new JSONArray().put(new JSONObject().put("name", "bug")))
+                .put("assignees", new JSONArray().put(new JSONObject().put("login", "dev")))
+                .put("created_at", UPDATED.toString()).put("updated_at", getUpdated(number).toString())
+                .put("closed_at", closed ? getUpdated(number).toString() : JSONObject.NULL);
+    }
+
+    private long countRequests(String path) {
+        return requests.stream().filter(path::equals).count();
+    }
+
+    @Test
+    public void testImportIssues() {
+        assertTrue(helper.importIssues(new ArrayList<>(), null));
+
+        // three pages, one name lookup for the single assignee
+        assertEquals(3, countRequests("/repos/owner/project/issues"));
+        assertEquals(1, countRequests("/users/dev"));
+        assertNull(sinceParams.get(0));
+
+        Optional<IssueModel> issue = helper.getIssue("#8");
+        assertTrue(issue.isPresent());
+        assertEquals("8", issue.get().getIssueKey());
+        assertEquals("project/8", issue.get().getIssueId());
+        assertEquals("Issue 8", issue.get().getSummary());
+        assertEquals("CLOSED", issue.get().getStatus());
+        assertEquals("Dev Eloper", issue.get().getAssignee());
+        assertTrue(issue.get().getLabels().contains("bug"));
+        assertEquals(LocalDateTime.ofInstant(getUpdated(8), ZoneId.systemDefault()), issue.get().getClosed());
+
+        // answered from the listing
+        assertEquals(4, requests.size());
+    }
+
+    @Test
+    public void testImportIssuesSince() {
+        IssueModel saved = new IssueModel();
+        saved.setIssueKey("1");
+        saved.setSummary("Saved issue 1");
+
+        List<IssueModel> known = new ArrayList<>();
+        known.add(saved);
+        LocalDateTime since = LocalDateTime.ofInstant(getUpdated(200), ZoneId.systemDefault());
+        assertTrue(helper.importIssues(known, since));
+
+        // issues 200 to 250 fit in one page
+        assertEquals(1, countRequests("/repos/owner/project/issues"));
+        assertEquals(getUpdated(200).toString(), sinceParams.get(0));
+
+        assertEquals("Saved issue 1", helper.getIssue("#1").get().getSummary());
+        assertEquals("Issue 230", helper.getIssue("#230").get().getSummary());
+        assertEquals(2, requests.size());
+    }
+}
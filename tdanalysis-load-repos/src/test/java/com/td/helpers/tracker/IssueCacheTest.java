@@ -0,0 +1,80 @@
+package com.td.helpers.tracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.td.models.IssueModel;
+import com.td.models.IssueModel.Transition;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IssueCacheTest {
+
+    private static final String TRACKER = "https://issues.apache.org/jira";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IssueCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        cache = new IssueCache(folder.newFolder("issues").toPath());
+    }
+
+    private static IssueModel createIssue(String issueKey, LocalDateTime updated) {
+        Transition transition = new Transition();
+        transition.setField("status");
+        transition.setTo("Closed");
+        transition.setCreated(updated);
+
+        IssueModel issue = new IssueModel();
+        issue.setIssueKey(issueKey);
+        issue.setSummary("Summary of " + issueKey);
+        issue.setUpdated(updated);
+        issue.setTransitions(Collections.singletonList(transition));
+        return issue;
+    }
+
+    @Test
+    public void testLoadEmpty() {
+        assertTrue(cache.load(TRACKER).isEmpty());
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        LocalDateTime updated = LocalDateTime.of(2017, 11, 3, 10, 0);
+        cache.save(TRACKER, Collections.singletonMap("TD-1", createIssue("TD-1", updated)));
+
+        IssueModel issue = cache.load(TRACKER).get("TD-1");
+        assertEquals("Summary of TD-1", issue.getSummary());
+        assertEquals(updated, issue.getUpdated());
+        assertEquals(updated, issue.getTransitions().get(0).getCreated());
+        assertTrue(cache.load("https://github.com/spring-projects/spring-hateoas/issues").isEmpty());
+    }
+
+    @Test
+    public void testSaveKeepsLatest() {
+        LocalDateTime older = LocalDateTime.of(2017, 11, 1, 10, 0);
+        LocalDateTime newer = LocalDateTime.of(2017, 11, 3, 10, 0);
+        cache.save(TRACKER, Collections.singletonMap("TD-1", createIssue("TD-1", newer)));
+
+        Map<String, IssueModel> issues = new HashMap<>();
+        issues.put("TD-1", createIssue("TD-1", older));
+        issues.put("TD-2", createIssue("TD-2", older));
+        cache.save(TRACKER, issues);
+
+        Map<String, IssueModel> cached = cache.load(TRACKER);
+        assertEquals(2, cached.size());
+        assertEquals(newer, cached.get("TD-1").getUpdated());
+    }
+}
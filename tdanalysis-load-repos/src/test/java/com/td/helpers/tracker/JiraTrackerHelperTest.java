@@ -0,0 +1,213 @@
+package com.td.helpers.tracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.td.models.IssueModel;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JiraTrackerHelperTest {
+
+    // the stub returns at most this many issues per page, like Jira does
+    private static final int PAGE_SIZE = 60;
+
+    private HttpServer server;
+    private List<String> requests;
+
+    // number of requests the stub answers with 503 before answering normally
+    private int unavailable;
+    private JiraTrackerHelper helper;
+
+    @Before
+    public void setUp() throws IOException {
+        requests = new ArrayList<>();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/rest/api/latest/search", this::search);
+        server.start();
+
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort());
+        helper = new JiraTrackerHelper(uri, "user", "secret") {
+            @Override
+            void initialise(URI uri, String username, String password) {
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Answers a search for key in (...) with the requested keys that exist,
+     * which are the ones of project TD.
+     */
+    private void search(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] pair = param.split("=", 2);
+            params.put(pair[0], URLDecoder.decode(pair[1], "UTF-8"));
+        }
+        requests.add(params.get("jql"));
+
+        if (unavailable > 0) {
+            unavailable--;
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+
+        String jql = params.get("jql");
+        String keyList = jql.substring(jql.indexOf('(') + 1, jql.indexOf(')'));
+        List<String> keys = Arrays.stream(keyList.split(",")).filter(key -> key.startsWith("TD-"))
+                .collect(Collectors.toList());
+
+        int startAt = Integer.parseInt(params.get("startAt"));
+        JSONArray issues = new JSONArray();
+        keys.stream().skip(startAt).limit(PAGE_SIZE).forEach(key -> issues.put(createIssue(key)));
+
+        JSONObject body = new JSONObject();
+        body.put("startAt", startAt);
+        body.put("maxResults", PAGE_SIZE);
+        body.put("total", keys.size());
+        body.put("issues", issues);
+
+        byte[] response = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+
+    private static JSONObject createIssue(String key) {
+        JSONObject fields = new JSONObject();
+        fields.put("summary", "Summary of " + key);
+        fields.put("description", JSONObject.NULL);
+        fields.put("issuetype", new JSONObject().put("name", "Bug"));
+        fields.put("status", new JSONObject().put("name", "Closed"));
+        fields.put("priority", new JSONObject().put("name", "Major"));
+        fields.put("assignee", JSONObject.NULL);
+        fields.put("labels", new JSONArray().put("core"));
+        fields.put("created", "2017-11-01T10:00:00.000+0000");
+        fields.put("updated", "2017-11-03T10:00:00.000+0000");
+        fields.put("duedate", "2017-11-30");
+        fields.put("timetracking", new JSONObject().put("originalEstimateSeconds", 7200).put("timeSpentSeconds", 3600));
+
+        JSONObject item = new JSONObject().put("field", "status").put("fromString", "Open").put("toString",
+                "Closed");
+        JSONObject history = new JSONObject().put("created", "2017-11-02T10:00:00.000+0000")
+                .put("author", new JSONObject().put("displayName", "Developer"))
+                .put("items", new JSONArray().put(item));
+
+        return new JSONObject().put("key", key).put("fields", fields)
+                .put("changelog", new JSONObject().put("histories", new JSONArray().put(history)));
+    }
+
+    @Test
+    public void testGetIssuesBatched() {
+        List<String> keys = IntStream.rangeClosed(1, 150).mapToObj(i -> "TD-" + i).collect(Collectors.toList());
+        Map<String, IssueModel> issues = helper.getIssues(keys);
+
+        assertEquals(150, issues.size());
+
+        // two batches, the first one split in two pages
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testGetIssuesMissing() {
+        List<String> keys = new ArrayList<>();
+        keys.add("TD-1");
+        keys.add("OTHER-1");
+        keys.add("TD-1");
+        Map<String, IssueModel> issues = helper.getIssues(keys);
+
+        assertEquals(1, issues.size());
+        assertTrue(issues.containsKey("TD-1"));
+        assertFalse(issues.containsKey("OTHER-1"));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void testGetIssuesMapping() {
+        List<String> keys = new ArrayList<>();
+        keys.add("TD-7");
+        IssueModel issue = helper.getIssues(keys).get("TD-7");
+
+        assertEquals("TD-7", issue.getIssueKey());
+        assertEquals("Bug", issue.getType());
+        assertEquals("Summary of TD-7", issue.getSummary());
+        assertNull(issue.getDescription());
+        assertEquals("Major", issue.getPriority());
+        assertEquals("None", issue.getAssignee());
+        assertTrue(issue.getLabels().contains("core"));
+        assertEquals(LocalDateTime.of(2017, 11, 30, 0, 0), issue.getDue());
+        assertEquals(120, issue.getTimeTracker().getEstimate());
+        assertEquals(60, issue.getTimeTracker().getLogged());
+        assertEquals(1, issue.getTransitions().size());
+        assertEquals(LocalDateTime.of(2017, 11, 2, 10, 0), issue.getClosed());
+    }
+
+    @Test
+    public void testGetUpdatedIssues() {
+        Map<String, LocalDateTime> known = new HashMap<>();
+        known.put("TD-1", LocalDateTime.of(2017, 11, 3, 10, 0));
+        known.put("TD-2", LocalDateTime.of(2017, 11, 1, 10, 0));
+        Map<String, IssueModel> issues = helper.getUpdatedIssues(known);
+
+        // only TD-2 was updated since it was retrieved
+        assertEquals(1, issues.size());
+        assertTrue(issues.containsKey("TD-2"));
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0).endsWith(" AND updated >= \"2017/10/31 10:00\""));
+    }
+
+    @Test
+    public void testGetIssuesRetried() {
+        helper.setRequestScheduler(new TrackerRequestScheduler(0, 1, 2, 1, 1));
+        unavailable = 2;
+        Map<String, IssueModel> issues = helper.getIssues(Arrays.asList("TD-1", "TD-2"));
+
+        assertEquals(2, issues.size());
+        assertEquals(3, requests.size());
+        assertTrue(helper.takeDeferredKeys().isEmpty());
+    }
+
+    @Test
+    public void testGetIssuesDeferred() {
+        helper.setRequestScheduler(new TrackerRequestScheduler(0, 1, 1, 1, 1));
+        unavailable = 2;
+        Map<String, IssueModel> issues = helper.getIssues(Arrays.asList("TD-1", "TD-2"));
+
+        assertTrue(issues.isEmpty());
+        assertTrue(helper.isDeferred("TD-1"));
+        assertEquals(new HashSet<>(Arrays.asList("TD-1", "TD-2")), helper.takeDeferredKeys());
+        assertFalse(helper.isDeferred("TD-1"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.td.helpers.tracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+import org.kohsuke.github.HttpException;
+
+public class TrackerRequestSchedulerTest {
+
+    private static final String HOST = "tracker.example.org";
+
+    /**
+     * Scheduler on a fake clock, which records how long it waits.
+     */
+    private static class FakeClockScheduler extends TrackerRequestScheduler {
+
+        long time = 1_000_000L;
+        final List<Long> sleeps = new ArrayList<>();
+
+        FakeClockScheduler(double requestsPerSecond, int burst, int maxRetries) {
+            super(requestsPerSecond, burst, maxRetries, 100, 400);
+        }
+
+        @Override
+        long now() {
+            return time;
+        }
+
+        @Override
+        void sleep(long millis) {
+            sleeps.add(millis);
+            time += millis;
+        }
+    }
+
+    private static HttpResponse response(int status, String... headers) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "");
+        for (int i = 0; i < headers.length; i += 2) {
+            response.addHeader(headers[i], headers[i + 1]);
+        }
+        return response;
+    }
+
+    @Test
+    public void testRetryableErrors() {
+        assertTrue(TrackerRequestScheduler.isRetryable(new SocketTimeoutException("read timed out")));
+        assertTrue(TrackerRequestScheduler.isRetryable(new ConnectException("connection refused")));
+        assertTrue(TrackerRequestScheduler.isRetryable(new HttpException("busy", 503, "", "")));
+        assertTrue(TrackerRequestScheduler.isRetryable(new HttpException("throttled", 429, "", "")));
+        assertTrue(TrackerRequestScheduler.isRetryable(
+                new HttpException(-1, null, "", new SocketException("connection reset"))));
+
+        assertFalse(TrackerRequestScheduler.isRetryable(new HttpException("bad credentials", 401, "", "")));
+        assertFalse(TrackerRequestScheduler.isRetryable(new HttpException("forbidden", 403, "", "")));
+        assertFalse(TrackerRequestScheduler.isRetryable(new FileNotFoundException("no such issue")));
+        assertFalse(TrackerRequestScheduler.isRetryable(new IOException("invalid response")));
+    }
+
+    @Test
+    public void testRequestsPaced() throws IOException {
+        FakeClockScheduler scheduler = new FakeClockScheduler(2, 1, 0);
+        for (int i = 0; i < 3; i++) {
+            scheduler.execute(HOST, () -> null);
+        }
+
+        // the first request uses the token in the bucket
+        assertEquals(Arrays.asList(500L, 500L), scheduler.sleeps);
+    }
+
+    @Test
+    public void testThrottledRequestRetried() throws IOException {
+        FakeClockScheduler scheduler = new FakeClockScheduler(0, 1, 3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = scheduler.execute(HOST, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw scheduler.failed(URI.create("http://" + HOST), response(429, "Retry-After", "2"));
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(Arrays.asList(2000L, 2000L), scheduler.sleeps);
+    }
+
+    @Test
+    public void testBackoffDoubles() {
+        FakeClockScheduler scheduler = new FakeClockScheduler(0, 1, 4);
+        try {
+            scheduler.execute(HOST, () -> {
+                throw scheduler.failed(URI.create("http://" + HOST), response(503));
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals(503, ((TrackerRequestException) e).getStatus());
+        }
+
+        assertEquals(Arrays.asList(100L, 200L, 400L, 400L), scheduler.sleeps);
+    }
+
+    @Test
+    public void testNotFoundNotRetried() {
+        FakeClockScheduler scheduler = new FakeClockScheduler(0, 1, 3);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            scheduler.execute(HOST, () -> {
+                attempts.incrementAndGet();
+                throw scheduler.failed(URI.create("http://" + HOST), response(404));
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void testExhaustedQuotaWaitsForReset() throws IOException {
+        FakeClockScheduler scheduler = new FakeClockScheduler(0, 1, 0);
+        long reset = scheduler.time / 1000 + 60;
+        scheduler.updateQuota(HOST, response(200, TrackerRequestScheduler.RATE_LIMIT_REMAINING, "0",
+                TrackerRequestScheduler.RATE_LIMIT_RESET, Long.toString(reset)));
+
+        scheduler.execute(HOST, () -> null);
+
+        assertEquals(Arrays.asList(reset * 1000 - 1_000_000L), scheduler.sleeps);
+    }
+
+    @Test
+    public void testQuotaSpreadUntilReset() throws IOException {
+        FakeClockScheduler scheduler = new FakeClockScheduler(100, 1, 0);
+        long reset = scheduler.time / 1000 + 10;
+        scheduler.updateQuota(HOST, response(200, TrackerRequestScheduler.RATE_LIMIT_REMAINING, "5",
+                TrackerRequestScheduler.RATE_LIMIT_RESET, Long.toString(reset)));
+
+        scheduler.execute(HOST, () -> null);
+        scheduler.execute(HOST, () -> null);
+
+        // 5 requests left for 10 seconds, one every 2 seconds
+        assertEquals(Arrays.asList(2000L), scheduler.sleeps);
+    }
+}
@@ -0,0 +1,170 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.MongoException;
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
+import com.td.models.IssueModel;
+
+import org.junit.Test;
+
+public class BulkWriterTest {
+
+    /**
+     * Records the batches instead of writing them.
+     */
+    private static class RecordingWriter extends BulkWriter {
+
+        private final List<List<?>> issueBatches = new ArrayList<>();
+        private final List<List<?>> commitBatches = new ArrayList<>();
+        private boolean available = true;
+        private boolean issuesAvailable = true;
+        // indexes of the next batch that are rejected
+        private List<Integer> rejected = Collections.emptyList();
+
+        RecordingWriter(int batchSize) {
+            super(batchSize);
+        }
+
+        @Override
+        List<BulkWriteError> upsert(Class<?> type, List<?> entities) {
+            if (!available || (type == IssueModel.class && !issuesAvailable)) {
+                throw new MongoException("unavailable");
+            }
+            (type == IssueModel.class ? issueBatches : commitBatches).add(entities);
+            List<BulkWriteError> errors = rejected.stream()
+                    .map(index -> new BulkWriteError(11000, "duplicate", new BasicDBObject(), index))
+                    .collect(Collectors.toList());
+            rejected = Collections.emptyList();
+            return errors;
+        }
+    }
+
+    @Test
+    public void testFlushesWhenBatchIsFull() {
+        RecordingWriter writer = new RecordingWriter(3);
+        writer.saveCommit(commit("a", "tree-a"));
+        writer.saveCommit(commit("b", "tree-b"));
+        assertEquals(0, writer.commitBatches.size());
+
+        writer.saveCommit(commit("c", "tree-c"));
+        assertEquals(1, writer.commitBatches.size());
+        assertEquals(3, writer.commitBatches.get(0).size());
+
+        writer.flush();
+        assertEquals(1, writer.commitBatches.size());
+    }
+
+    @Test
+    public void testIssuesWrittenOncePerVersion() {
+        RecordingWriter writer = new RecordingWriter(100);
+        LocalDateTime updated = LocalDateTime.of(2018, 1, 1, 12, 0);
+        writer.saveIssues(Arrays.asList(issue("TD-1", updated), issue("TD-2", updated)));
+        writer.flush();
+
+        writer.saveIssues(Arrays.asList(issue("TD-1", updated), issue("TD-2", updated.plusDays(1))));
+        writer.flush();
+
+        assertEquals(2, writer.issueBatches.size());
+        assertEquals(2, writer.issueBatches.get(0).size());
+        assertEquals(1, writer.issueBatches.get(1).size());
+        assertEquals("TD-2", ((IssueModel) writer.issueBatches.get(1).get(0)).getIssueId());
+    }
+
+    @Test
+    public void testCommitsWrittenWhenIssuesFail() {
+        RecordingWriter writer = new RecordingWriter(100);
+        IssueModel issue = issue("TD-1", LocalDateTime.of(2018, 1, 1, 12, 0));
+        writer.saveIssues(Collections.singletonList(issue));
+        writer.saveCommit(commit("a", "tree-a"));
+
+        writer.issuesAvailable = false;
+        writer.flush();
+        assertEquals(1, writer.commitBatches.size());
+        assertTrue(writer.issueBatches.isEmpty());
+
+        // the issues are kept for the next flush, the commits are not written again
+        writer.issuesAvailable = true;
+        writer.flush();
+        assertEquals(Collections.singletonList(issue), writer.issueBatches.get(0));
+        assertEquals(1, writer.commitBatches.size());
+    }
+
+    @Test
+    public void testRejectedDocumentsByIndex() {
+        List<String> documents = Arrays.asList("a", "b", "c", "d");
+        List<BulkWriteError> errors = Arrays.asList(new BulkWriteError(11000, "duplicate", new BasicDBObject(), 1),
+                new BulkWriteError(121, "invalid", new BasicDBObject(), 3));
+
+        assertEquals(Arrays.asList("b", "d"), BulkWriter.getRejected(documents, errors));
+        assertTrue(BulkWriter.getRejected(documents, Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testRejectedDocumentsNotWrittenAgain() {
+        RecordingWriter writer = new RecordingWriter(100);
+        LocalDateTime updated = LocalDateTime.of(2018, 1, 1, 12, 0);
+        writer.saveIssues(Arrays.asList(issue("TD-1", updated), issue("TD-2", updated)));
+
+        // the unordered bulk upsert writes every issue it does not reject
+        writer.rejected = Collections.singletonList(1);
+        writer.flush();
+        writer.flush();
+        assertEquals(1, writer.issueBatches.size());
+
+        // only the written issue is known to be written in its current version
+        writer.saveIssues(Arrays.asList(issue("TD-1", updated), issue("TD-2", updated)));
+        writer.flush();
+        assertEquals(2, writer.issueBatches.size());
+        assertEquals("TD-2", ((IssueModel) writer.issueBatches.get(1).get(0)).getIssueId());
+        assertEquals(1, writer.issueBatches.get(1).size());
+    }
+
+    @Test
+    public void testPendingCommitsVisibleUntilWritten() {
+        RecordingWriter writer = new RecordingWriter(100);
+        CommitModel commit = commit("a", "tree-a");
+        writer.saveCommit(commit);
+
+        assertSame(commit, writer.findCommit("a", "repo"));
+        assertSame(commit, writer.findAnalysedTree("repo", "tree-a"));
+
+        // failed writes are kept for the next flush
+        writer.available = false;
+        writer.flush();
+        assertSame(commit, writer.findCommit("a", "repo"));
+
+        writer.available = true;
+        writer.flush();
+        assertEquals(1, writer.commitBatches.size());
+        assertSame(commit, writer.commitBatches.get(0).get(0));
+    }
+
+    private static CommitModel commit(String sha, String treeId) {
+        CommitModel commit = new CommitModel();
+        commit.setSha(sha);
+        commit.setTreeId(treeId);
+        commit.setRepositoryId("repo");
+        commit.setBuildStatus(BuildStatus.SUCCESSFUL);
+        return commit;
+    }
+
+    private static IssueModel issue(String issueId, LocalDateTime updated) {
+        IssueModel issue = new IssueModel();
+        issue.setIssueId(issueId);
+        issue.setUpdated(updated);
+        return issue;
+    }
+}
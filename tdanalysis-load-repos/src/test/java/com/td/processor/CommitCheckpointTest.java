@@ -0,0 +1,53 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
+
+import org.junit.Test;
+
+public class CommitCheckpointTest {
+
+    private static final String BUILT = "1111111111111111111111111111111111111111";
+    private static final String FAILED = "2222222222222222222222222222222222222222";
+    private static final String NOT_STARTED = "3333333333333333333333333333333333333333";
+    private static final String UNSAVED = "4444444444444444444444444444444444444444";
+
+    @Test
+    public void testSkipsSavedCommits() {
+        CommitCheckpoint checkpoint = new CommitCheckpoint(Arrays.asList(commit(BUILT, BuildStatus.SUCCESSFUL),
+                commit(FAILED, BuildStatus.FAILED), commit(NOT_STARTED, BuildStatus.NOT_STARTED)));
+
+        assertEquals(2, checkpoint.size());
+        assertTrue(checkpoint.isProcessed(BUILT));
+        assertTrue(checkpoint.isProcessed(FAILED));
+        assertFalse(checkpoint.isProcessed(UNSAVED));
+    }
+
+    @Test
+    public void testCommitsSavedWithoutBuildNotSkipped() {
+        CommitCheckpoint checkpoint = new CommitCheckpoint(Arrays.asList(commit(NOT_STARTED,
+                BuildStatus.NOT_STARTED)));
+
+        assertFalse(checkpoint.isProcessed(NOT_STARTED));
+        assertEquals(0, checkpoint.size());
+    }
+
+    @Test
+    public void testEmptyCheckpoint() {
+        assertFalse(CommitCheckpoint.empty().isProcessed(BUILT));
+        assertFalse(CommitCheckpoint.empty().isProcessed("not a sha"));
+    }
+
+    private static CommitModel commit(String sha, BuildStatus buildStatus) {
+        CommitModel commit = new CommitModel();
+        commit.setSha(sha);
+        commit.setBuildStatus(buildStatus);
+        return commit;
+    }
+}
@@ -0,0 +1,204 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.td.helpers.VersionControlHelper;
+import com.td.helpers.WorkspacePool;
+import com.td.helpers.building.ModuleScope;
+import com.td.helpers.tracker.IssueTrackerHelper;
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
+import com.td.models.IssueModel;
+import com.td.models.RepositoryModel;
+import com.td.models.TechnicalDebt;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CommitPipelineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private RepositoryModel repo;
+
+    /**
+     * Builds slowly, and copies the results of the parent for commits that
+     * change neither sources nor the pom.
+     */
+    private static class ReusingProcessor extends CommitProcessor {
+
+        private final List<String> built = new CopyOnWriteArrayList<>();
+        // counted down by every build, which then waits for the others
+        private final CountDownLatch building;
+        private volatile boolean concurrent = true;
+
+        ReusingProcessor(int concurrentBuilds) {
+            this.building = new CountDownLatch(concurrentBuilds);
+        }
+
+        @Override
+        public boolean reuseAnalysis(CommitModel commit, RepositoryModel repo,
+                Function<String, CommitModel> findCommit) {
+            if (commit.getParents() == null || commit.getParents().isEmpty() || isRelevant(commit)) {
+                return false;
+            }
+
+            CommitModel parent = findCommit.apply(commit.getParents().get(0));
+            if (parent == null) {
+                return false;
+            }
+            commit.setBuildStatus(parent.getBuildStatus());
+            commit.setTechnicalDebt(parent.getTechnicalDebt());
+            return true;
+        }
+
+        @Override
+        public ModuleScope resolveScope(CommitModel commit, RepositoryModel repo,
+                Function<String, CommitModel> findCommit) {
+            return ModuleScope.full();
+        }
+
+        @Override
+        public BuildStatus buildCommit(CommitModel commit, RepositoryModel repo, ModuleScope scope) {
+            built.add(commit.getSha());
+            building.countDown();
+            try {
+                Thread.sleep(200);
+                if (!building.await(5, TimeUnit.SECONDS)) {
+                    concurrent = false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            commit.setBuildStatus(BuildStatus.SUCCESSFUL);
+            return BuildStatus.SUCCESSFUL;
+        }
+
+        private static boolean isRelevant(CommitModel commit) {
+            return Stream.of(commit.getDiff().getAdditionSet(), commit.getDiff().getModificationSet())
+                    .flatMap(Collection::stream).anyMatch(path -> path.endsWith(".java") || path.endsWith("pom.xml"));
+        }
+
+        @Override
+        public void analyseCommit(CommitModel commit, RepositoryModel repo, ModuleScope scope) {
+            commit.setTechnicalDebt(new TechnicalDebt());
+        }
+
+        @Override
+        public void saveCommit(CommitModel commit) {
+        }
+    }
+
+    private static class NoTrackerHelper extends IssueTrackerHelper {
+
+        NoTrackerHelper() {
+            this.issuePattern = Pattern.compile("TD-\\d+");
+        }
+
+        @Override
+        public Optional<IssueModel> getIssue(String issueId) {
+            return Optional.empty();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        root = folder.newFolder("project");
+        try (Git git = Git.init().setDirectory(root).call()) {
+            write("pom.xml", "<project/>");
+            commit(git, "root");
+
+            write("README.md", "readme");
+            commit(git, "add readme");
+        }
+
+        repo = new RepositoryModel();
+        repo.setId("1");
+        repo.setName("project");
+        repo.setProjectFolder(root);
+    }
+
+    @Test
+    public void testChildReusesParentStillInPipeline() throws Exception {
+        ReusingProcessor processor = new ReusingProcessor(1);
+        CommitPipeline pipeline = new CommitPipeline(processor, new BulkWriter(100));
+
+        try (VersionControlHelper vch = new VersionControlHelper(root);
+                WorkspacePool workspaces = WorkspacePool.create(vch, repo, folder.getRoot().getAbsolutePath(), 2);
+                Stream<CommitModel> stream = vch.getCommitStream(sha -> true, Collections.emptyList())) {
+            List<CommitModel> commits = stream.collect(Collectors.toList());
+            assertEquals(2, commits.size());
+
+            int unfinished = pipeline.process(commits.stream(), repo,
+                    new IssueProcessor(repo, new NoTrackerHelper()), workspaces);
+            assertEquals(0, unfinished);
+
+            // the second commit waited for the first instead of being built next to it
+            assertEquals(Collections.singletonList(commits.get(0).getSha()), processor.built);
+            assertSame(commits.get(0).getTechnicalDebt(), commits.get(1).getTechnicalDebt());
+        }
+    }
+
+    @Test
+    public void testRelevantCommitsBuildConcurrently() throws Exception {
+        try (Git git = Git.open(root)) {
+            new File(root, "src").mkdirs();
+            write("src/A.java", "class A {}");
+            commit(git, "add A");
+
+            write("src/A.java", "class A { int a; }");
+            commit(git, "change A");
+        }
+
+        ReusingProcessor processor = new ReusingProcessor(2);
+        CommitPipeline pipeline = new CommitPipeline(processor, new BulkWriter(100));
+
+        try (VersionControlHelper vch = new VersionControlHelper(root);
+                WorkspacePool workspaces = WorkspacePool.create(vch, repo, folder.getRoot().getAbsolutePath(), 2);
+                Stream<CommitModel> stream = vch.getCommitStream(sha -> true, Collections.emptyList())) {
+            List<CommitModel> commits = stream.collect(Collectors.toList());
+            assertEquals(4, commits.size());
+
+            int unfinished = pipeline.process(commits.subList(2, 4).stream(), repo,
+                    new IssueProcessor(repo, new NoTrackerHelper()), workspaces);
+            assertEquals(0, unfinished);
+
+            // the child does not use the results of its parent, so it does not wait for them
+            assertEquals(2, processor.built.size());
+            assertTrue(processor.concurrent);
+        }
+    }
+
+    private void commit(Git git, String message) throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage(message).setAuthor("dev", "dev@example.com").call();
+    }
+
+    private void write(String path, String content) throws IOException {
+        Files.write(new File(root, path).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.td.models.CommitModel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommitPlanTest {
+
+    private List<CommitModel> commits;
+
+    @Before
+    public void setUp() {
+        commits = new ArrayList<>();
+        commits.add(createCommit("1", 1, "initial import"));
+        commits.add(createCommit("2", 2, "fix typo"));
+        commits.add(createCommit("3", 3, "HATEOAS-1 add links"));
+        commits.add(createCommit("4", 4, "update readme"));
+        commits.add(createCommit("5", 5, "refactoring"));
+        commits.add(createCommit("6", 6, "HATEOAS-2 fix links"));
+        commits.add(createCommit("7", 7, "HATEOAS-2 review"));
+        commits.add(createCommit("8", 8, "release"));
+    }
+
+    private CommitPlan plan(List<CommitModel> commits) {
+        return CommitPlan.create(commits, commit -> commit.getMessage().startsWith("HATEOAS"));
+    }
+
+    @Test
+    public void testRequiredCommits() {
+        CommitPlan plan = plan(commits);
+
+        assertEquals(Arrays.asList("2", "3", "5", "6", "7"), shas(plan.getRequired()));
+        assertEquals(Arrays.asList("1", "4", "8"), shas(plan.getRemaining()));
+    }
+
+    @Test
+    public void testBaselines() {
+        CommitPlan plan = plan(commits);
+
+        assertTrue(plan.isBaseline(commits.get(1)));
+        assertTrue(plan.isBaseline(commits.get(4)));
+        assertFalse(plan.isBaseline(commits.get(2)));
+        assertFalse(plan.isBaseline(commits.get(0)));
+    }
+
+    @Test
+    public void testPreviousFollowsTimestamps() {
+        // history order differs from timestamp order after a rebase
+        Collections.swap(commits, 4, 5);
+        CommitPlan plan = plan(commits);
+
+        assertEquals("4", plan.getPrevious(commits.get(5)).get().getSha());
+        assertFalse(plan.getPrevious(commits.get(0)).isPresent());
+        assertEquals(Arrays.asList("2", "3", "6", "5", "7"), shas(plan.getRequired()));
+    }
+
+    @Test
+    public void testFallbacks() {
+        CommitPlan plan = plan(commits);
+
+        List<CommitModel> fallbacks = plan.getFallbacks(Arrays.asList(commits.get(1), commits.get(4)));
+
+        assertEquals(Arrays.asList("1", "4"), shas(fallbacks));
+        assertEquals(Arrays.asList("8"), shas(plan.getRemaining()));
+        assertTrue(plan.getFallbacks(fallbacks).isEmpty());
+    }
+
+    private List<String> shas(List<CommitModel> commits) {
+        return commits.stream().map(CommitModel::getSha).collect(Collectors.toList());
+    }
+
+    private CommitModel createCommit(String sha, int day, String message) {
+        CommitModel commit = new CommitModel();
+        commit.setSha(sha);
+        commit.setTimestamp(LocalDateTime.of(2018, 1, day, 12, 0));
+        commit.setMessage(message);
+        return commit;
+    }
+}
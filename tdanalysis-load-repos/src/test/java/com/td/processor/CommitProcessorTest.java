@@ -0,0 +1,97 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.td.models.BuildStatus;
+import com.td.models.CommitModel;
+import com.td.models.RepositoryModel;
+import com.td.models.TechnicalDebt;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommitProcessorTest {
+
+    /**
+     * Finds the analysed trees among the commits saved in the test.
+     */
+    private static class TreeWriter extends BulkWriter {
+
+        private final Map<String, CommitModel> trees = new HashMap<>();
+
+        TreeWriter() {
+            super(100);
+        }
+
+        @Override
+        public CommitModel findAnalysedTree(String repositoryId, String treeId) {
+            CommitModel commit = trees.get(treeId);
+            return commit != null && repositoryId.equals(commit.getRepositoryId()) ? commit : null;
+        }
+    }
+
+    private TreeWriter writer;
+    private CommitProcessor processor;
+    private RepositoryModel repo;
+    private CommitModel analysed;
+
+    @Before
+    public void setUp() {
+        writer = new TreeWriter();
+        processor = new CommitProcessor(writer);
+
+        repo = new RepositoryModel();
+        repo.setId("1");
+        repo.setName("project");
+
+        analysed = commit("a", "tree-a");
+        analysed.setRepositoryId("1");
+        analysed.setBuildStatus(BuildStatus.SUCCESSFUL);
+        analysed.setTechnicalDebt(new TechnicalDebt());
+        writer.trees.put("tree-a", analysed);
+    }
+
+    @Test
+    public void testIdenticalTreeReused() {
+        CommitModel commit = commit("b", "tree-a");
+
+        assertTrue(processor.loadCachedAnalysis(commit, repo));
+        assertEquals("1", commit.getRepositoryId());
+        assertEquals(BuildStatus.SUCCESSFUL, commit.getBuildStatus());
+        assertSame(analysed.getTechnicalDebt(), commit.getTechnicalDebt());
+    }
+
+    @Test
+    public void testOtherTreeNotReused() {
+        CommitModel commit = commit("b", "tree-b");
+
+        assertFalse(processor.loadCachedAnalysis(commit, repo));
+        assertNull(commit.getBuildStatus());
+        assertNull(commit.getTechnicalDebt());
+
+        // nor trees of other repositories, or a commit without tree
+        RepositoryModel other = new RepositoryModel();
+        other.setId("2");
+        assertFalse(processor.loadCachedAnalysis(commit("b", "tree-a"), other));
+        assertFalse(processor.loadCachedAnalysis(commit("b", null), repo));
+    }
+
+    @Test
+    public void testCommitNotReusedForItself() {
+        assertFalse(processor.loadCachedAnalysis(commit("a", "tree-a"), repo));
+    }
+
+    private static CommitModel commit(String sha, String treeId) {
+        CommitModel commit = new CommitModel();
+        commit.setSha(sha);
+        commit.setTreeId(treeId);
+        return commit;
+    }
+}
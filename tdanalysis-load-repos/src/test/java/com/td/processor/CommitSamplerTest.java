@@ -0,0 +1,104 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import com.td.models.CommitModel;
+
+import org.junit.Test;
+
+public class CommitSamplerTest {
+
+    /**
+     * Runs the sampler to completion against the given history.
+     */
+    private CommitSampler<Integer> sample(int size, int interval, int resolution, IntFunction<Integer> history) {
+        CommitSampler<Integer> sampler = new CommitSampler<>(size, interval, resolution);
+        List<Integer> samples = sampler.initialSamples();
+        while (!samples.isEmpty()) {
+            samples.forEach(index -> sampler.record(index, history.apply(index)));
+            samples = sampler.nextSamples();
+        }
+        return sampler;
+    }
+
+    @Test
+    public void testFirstParentChainSkipsMergedBranches() {
+        // a - b - d - e (merge of c) - f, with c branched off a
+        List<CommitModel> commits = Arrays.asList(commit("a"), commit("b", "a"), commit("c", "a"),
+                commit("d", "b"), commit("e", "d", "c"), commit("f", "e"));
+
+        assertEquals(Arrays.asList(0, 1, 3, 4, 5), CommitSampler.getFirstParentChain(commits));
+        assertEquals(Collections.emptyList(), CommitSampler.getFirstParentChain(Collections.emptyList()));
+    }
+
+    @Test
+    public void testFirstParentChainStopsAtProcessedCommits() {
+        // the parent of b was processed by an earlier run
+        List<CommitModel> commits = Arrays.asList(commit("b", "a"), commit("c", "b"));
+
+        assertEquals(Arrays.asList(0, 1), CommitSampler.getFirstParentChain(commits));
+    }
+
+    @Test
+    public void testInitialSamples() {
+        CommitSampler<Integer> sampler = new CommitSampler<>(10, 4, 1);
+
+        assertEquals(Arrays.asList(0, 4, 8, 9), sampler.initialSamples());
+    }
+
+    @Test
+    public void testInitialSamplesEmptyHistory() {
+        CommitSampler<Integer> sampler = new CommitSampler<>(0, 4, 1);
+
+        assertEquals(Collections.emptyList(), sampler.initialSamples());
+        assertEquals(Collections.emptyList(), sampler.nextSamples());
+    }
+
+    @Test
+    public void testStableHistoryIsNotRefined() {
+        CommitSampler<Integer> sampler = sample(100, 10, 1, index -> 5);
+
+        assertEquals(11, sampler.getSampleCount());
+    }
+
+    @Test
+    public void testChangePointIsLocatedExactly() {
+        // debt grows from 5 to 7 at commit 37
+        CommitSampler<Integer> sampler = sample(100, 10, 1, index -> index < 37 ? 5 : 7);
+
+        assertTrue(sampler.isSampled(36));
+        assertTrue(sampler.isSampled(37));
+        assertFalse(sampler.isSampled(45));
+        assertTrue(sampler.getSampleCount() < 20);
+    }
+
+    @Test
+    public void testChangePointWithinResolution() {
+        // bisection stops once the change lies between two samples 4 apart
+        CommitSampler<Integer> sampler = sample(100, 16, 4, index -> index < 37 ? 5 : 7);
+
+        assertTrue(sampler.isSampled(36));
+        assertTrue(sampler.isSampled(40));
+        assertFalse(sampler.isSampled(37));
+        assertFalse(sampler.isSampled(38));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() {
+        new CommitSampler<Integer>(10, 0, 1);
+    }
+
+    private static CommitModel commit(String sha, String... parents) {
+        CommitModel commit = new CommitModel();
+        commit.setSha(sha);
+        commit.setParents(Arrays.asList(parents));
+        return commit;
+    }
+}
@@ -0,0 +1,210 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.td.helpers.tracker.IssueCache;
+import com.td.helpers.tracker.IssueTrackerHelper;
+import com.td.helpers.tracker.TrackerRequestException;
+import com.td.models.CommitModel;
+import com.td.models.IssueModel;
+import com.td.models.RepositoryModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IssueProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+    private CountingTrackerHelper helper;
+    private IssueProcessor processor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        helper = new CountingTrackerHelper();
+
+        RepositoryModel repo = new RepositoryModel();
+        repo.setId("1");
+        repo.setName("project");
+        repo.setIssueTrackerURI("https://issues.example.org/jira");
+        processor = new IssueProcessor(repo, helper);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPrefetchRetrievesEachKeyOnce() {
+        processor.prefetchIssues(Stream.of("TD-1 fix", "TD-2 and TD-1", "TD-3", "no issue", "TD-2 again"), executor)
+                .join();
+
+        assertEquals(Arrays.asList("TD-1", "TD-2", "TD-3"), helper.sortedBatchKeys());
+        assertEquals(2, helper.batches.size());
+    }
+
+    @Test
+    public void testIssuesWaitForPrefetch() throws InterruptedException {
+        helper.release = new CountDownLatch(1);
+        CompletableFuture<Void> prefetch = processor.prefetchIssues(Stream.of("TD-1"), executor);
+
+        CompletableFuture<List<IssueModel>> issues = CompletableFuture
+                .supplyAsync(() -> processor.getIssues(commit("TD-1")));
+        Thread.sleep(100);
+        assertFalse(issues.isDone());
+
+        helper.release.countDown();
+        prefetch.join();
+
+        assertEquals("project/TD-1", issues.join().get(0).getIssueId());
+        assertTrue(helper.single.isEmpty());
+    }
+
+    @Test
+    public void testCachedIssuesOnlyChecked() throws IOException {
+        IssueModel cachedIssue = CountingTrackerHelper.createIssue("TD-1");
+        cachedIssue.setSummary("cached");
+        IssueCache cache = new IssueCache(folder.newFolder("issues").toPath());
+        cache.save("https://issues.example.org/jira", Collections.singletonMap("TD-1", cachedIssue));
+
+        processor.loadIssueCache(cache);
+        processor.prefetchIssues(Stream.of("TD-1", "TD-2"), executor).join();
+
+        assertEquals("cached", processor.getIssues(commit("TD-1")).get(0).getSummary());
+        assertEquals(Collections.singletonList("TD-1"), helper.checked);
+        assertEquals(Arrays.asList("TD-2"), helper.sortedBatchKeys());
+
+        processor.saveIssueCache();
+        assertEquals(2, cache.load("https://issues.example.org/jira").size());
+    }
+
+    @Test
+    public void testMissingIssueRetrievedOnce() {
+        processor.prefetchIssues(Stream.of("TD-404"), executor).join();
+
+        assertTrue(processor.getIssues(commit("TD-404")).isEmpty());
+        assertTrue(processor.getIssues(commit("TD-404 again")).isEmpty());
+        assertEquals(Collections.singletonList("TD-404"), helper.single);
+    }
+
+    @Test
+    public void testDeferredIssueRetried() {
+        helper.unavailable = true;
+        assertTrue(processor.getIssues(commit("TD-5 first")).isEmpty());
+        assertTrue(processor.getIssues(commit("TD-5 second")).isEmpty());
+        assertEquals(Collections.singletonList("TD-5"), helper.single);
+
+        helper.unavailable = false;
+        Map<String, Set<String>> recovered = new HashMap<>();
+        processor.retryDeferredIssues((issue, shas) -> recovered.put(issue.getIssueId(), shas));
+
+        assertEquals(new HashSet<>(Arrays.asList("TD-5 first", "TD-5 second")), recovered.get("project/TD-5"));
+        assertEquals("TD-5", processor.getIssues(commit("TD-5 third")).get(0).getIssueKey());
+    }
+
+    private static CommitModel commit(String message) {
+        CommitModel commit = new CommitModel();
+        commit.setSha(message);
+        commit.setMessage(message);
+        return commit;
+    }
+
+    /**
+     * Answers every key except TD-404 and records the requests it gets.
+     */
+    private static class CountingTrackerHelper extends IssueTrackerHelper {
+
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        final List<String> single = Collections.synchronizedList(new ArrayList<>());
+        final List<String> checked = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch release;
+        volatile boolean unavailable;
+
+        CountingTrackerHelper() {
+            this.issuePattern = Pattern.compile("TD-\\d+");
+        }
+
+        @Override
+        public int getBatchSize() {
+            return 2;
+        }
+
+        @Override
+        public Optional<IssueModel> getIssue(String issueId) {
+            single.add(issueId);
+            if (unavailable) {
+                defer(issueId, new TrackerRequestException("unavailable", 503, 0));
+                return Optional.empty();
+            }
+            return Optional.ofNullable(createIssue(issueId));
+        }
+
+        @Override
+        public Map<String, IssueModel> getIssues(Collection<String> issueIds) {
+            batches.add(new ArrayList<>(issueIds));
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            Map<String, IssueModel> results = new HashMap<>();
+            issueIds.forEach(issueId -> Optional.ofNullable(createIssue(issueId))
+                    .ifPresent(issue -> results.put(issueId, issue)));
+            return results;
+        }
+
+        @Override
+        public Map<String, IssueModel> getUpdatedIssues(Map<String, LocalDateTime> known) {
+            checked.addAll(known.keySet());
+            return new HashMap<>();
+        }
+
+        List<String> sortedBatchKeys() {
+            List<String> keys = new ArrayList<>();
+            batches.forEach(keys::addAll);
+            Collections.sort(keys);
+            return keys;
+        }
+
+        private static IssueModel createIssue(String issueId) {
+            if ("TD-404".equals(issueId)) {
+                return null;
+            }
+
+            IssueModel issue = new IssueModel();
+            issue.setIssueKey(issueId);
+            return issue;
+        }
+    }
+}
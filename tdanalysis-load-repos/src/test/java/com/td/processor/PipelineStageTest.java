@@ -0,0 +1,102 @@
+package com.td.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class PipelineStageTest {
+
+    @Test
+    public void testStagesProcessAllItems() throws InterruptedException {
+        List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<Integer> last = new PipelineStage<>("last", 1, 2, results::add);
+        PipelineStage<Integer> first = new PipelineStage<>("first", 3, 2, item -> {
+            try {
+                last.submit(item * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 20; i++) {
+            first.submit(i);
+        }
+        first.close();
+        last.close();
+
+        Collections.sort(results);
+        assertEquals(IntStream.range(0, 20).map(i -> i * 2).boxed().collect(Collectors.toList()), results);
+        assertEquals(20, first.getProcessed());
+        assertEquals(20, last.getProcessed());
+    }
+
+    @Test
+    public void testFullQueueBlocksSubmit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PipelineStage<Integer> stage = new PipelineStage<>("slow", 1, 1, item -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // one item in the worker, one in the queue, the third one has to wait
+        stage.submit(1);
+        waitUntil(() -> stage.getBusy() == 1);
+        stage.submit(2);
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try {
+                stage.submit(3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Thread.sleep(100);
+        assertFalse(third.isDone());
+        assertEquals(1, stage.getQueued());
+
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS);
+        stage.close();
+        assertEquals(3, stage.getProcessed());
+    }
+
+    @Test
+    public void testFailedItemsCounted() throws InterruptedException {
+        PipelineStage<Integer> stage = new PipelineStage<>("failing", 2, 4, item -> {
+            if (item % 2 == 0) {
+                throw new IllegalStateException("failed " + item);
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            stage.submit(i);
+        }
+        stage.close();
+
+        assertEquals(2, stage.getProcessed());
+        assertEquals(2, stage.getFailed());
+        assertTrue(stage.toString().startsWith("failing: 2 done, 2 failed, 0/2 busy, queue 0/4"));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.td.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.td.models.RepositoryModel;
+
+import org.junit.Test;
+
+public class RepositorySchedulerTest {
+
+    @Test
+    public void testPoolSizeBoundByCores() {
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        assertEquals(cores, new RepositoryScheduler(0, 1, 1).computePoolSize());
+        assertEquals(Math.max(1, cores / 2), new RepositoryScheduler(0, 2, 1).computePoolSize());
+        assertEquals(1, new RepositoryScheduler(0, Integer.MAX_VALUE, 1).computePoolSize());
+    }
+
+    @Test
+    public void testPoolSizeBoundByMemory() {
+        assertEquals(1, new RepositoryScheduler(0, 1, Long.MAX_VALUE).computePoolSize());
+    }
+
+    @Test
+    public void testAwaitCompletion() throws InterruptedException {
+        RepositoryScheduler scheduler = new RepositoryScheduler(2, 1, 1);
+        scheduler.initialise();
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            boolean succeeds = i != 3;
+            scheduler.submit(repository("repo-" + i), repo -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return succeeds;
+            });
+        }
+
+        assertFalse(scheduler.awaitCompletion());
+        assertTrue(scheduler.getJobs().stream().allMatch(RepositoryJob::isDone));
+        assertEquals(1, scheduler.getJobs().stream().filter(job -> job.getStatus() == JobStatus.FAILED).count());
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testAwaitCompletionOfSuccessfulJobs() throws InterruptedException {
+        RepositoryScheduler scheduler = new RepositoryScheduler(1, 1, 1);
+        scheduler.initialise();
+        scheduler.submit(repository("repo"), repo -> true);
+
+        assertTrue(scheduler.awaitCompletion());
+        assertEquals(JobStatus.COMPLETED, scheduler.getJobs().get(0).getStatus());
+    }
+
+    private static RepositoryModel repository(String name) {
+        RepositoryModel repo = new RepositoryModel();
+        repo.setName(name);
+        return repo;
+    }
+}
@@ -32,8 +32,8 @@ public class TDCalculator {
         CommitModel first = issueCommits.get(0);
         CommitModel last = issueCommits.get(issueCommits.size() - 1);
 
-        // if the last build has failed, find an earlier commit that is successful
-        if (last.getBuildStatus().equals(BuildStatus.FAILED)) {
+        // if the last build has failed or was skipped, find an earlier commit that is successful
+        if (!BuildStatus.SUCCESSFUL.equals(last.getBuildStatus())) {
             Optional<CommitModel> optLast = TDCalculator.getPreviousCommit(last, issueCommits);
 
             if (first.equals(last)) {
@@ -110,11 +110,11 @@ public class TDCalculator {
 
         // find the previous successful commit
         CommitModel target = commits.get(--index);
-        while (target.getBuildStatus().equals(BuildStatus.FAILED) && index > 0) {
+        while (!BuildStatus.SUCCESSFUL.equals(target.getBuildStatus()) && index > 0) {
             target = commits.get(--index);
         }
 
-        if (index <= 0 && target.getBuildStatus().equals(BuildStatus.FAILED)) {
+        if (index <= 0 && !BuildStatus.SUCCESSFUL.equals(target.getBuildStatus())) {
             return Optional.empty();
         }
 
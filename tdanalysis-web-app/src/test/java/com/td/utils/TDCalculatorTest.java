@@ -57,6 +57,24 @@ public class TDCalculatorTest {
         assertEquals(result.getSha(), "1");
     }
 
+    @Test
+    public void testGetPreviousCommitNotStarted() {
+        List<CommitModel> commits = new ArrayList<>();
+        commits.add(createCommit("1", BuildStatus.SUCCESSFUL));
+        commits.add(createCommit("2", BuildStatus.FAILED));
+        commits.add(createCommit("3", BuildStatus.NOT_STARTED));
+
+        CommitModel target = createCommit("4", BuildStatus.SUCCESSFUL);
+        commits.add(target);
+
+        Optional<CommitModel> opt = TDCalculator.getPreviousCommit(target, commits);
+
+        assertTrue(opt.isPresent());
+
+        CommitModel result = opt.get();
+        assertEquals(result.getSha(), "1");
+    }
+
     @Test
     public void testGetPreviousCommitFirst() {
         List<CommitModel> commits = new ArrayList<>();